@@ -29,6 +29,7 @@ import com.example.aipodcast.adapter.NewsAdapter;
 import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.repository.NewsRepository;
 import com.example.aipodcast.repository.NewsRepositoryProvider;
+import com.example.aipodcast.service.RefreshListener;
 import com.example.aipodcast.service.SimplifiedTTSHelper;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
@@ -67,6 +68,9 @@ public class InputActivity extends AppCompatActivity {
     private int commuteDuration;
     private boolean useAIGeneration = true; 
     private ConnectivityManager connectivityManager;
+    private String currentKeyword;
+    private final RefreshListener refreshListener = (keyword, articles, added) ->
+            runOnUiThread(() -> onArticlesRefreshed(keyword, articles, added));
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -80,6 +84,7 @@ public class InputActivity extends AppCompatActivity {
         isPodcastMode = getIntent().getBooleanExtra("podcast_mode", false);
         useAIGeneration = getIntent().getBooleanExtra("use_ai_generation", true);
         newsRepository = NewsRepositoryProvider.getRepository(this);
+        newsRepository.addRefreshListener(refreshListener);
         connectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
         initializeViews();
         setupRecyclerView();
@@ -89,12 +94,7 @@ public class InputActivity extends AppCompatActivity {
         animateUI();
         supportStartPostponedEnterTransition();
         if (selectedTopics != null && !selectedTopics.isEmpty()) {
-            if (isNetworkAvailable()) {
-                performSearch(selectedTopics.get(0));
-            } else {
-                showError("No internet connection. Please check your network settings and try again.");
-                showEmptyState("No internet connection");
-            }
+            performSearch(selectedTopics.get(0));
         }
     }
     private void initializeViews() {
@@ -226,11 +226,12 @@ public class InputActivity extends AppCompatActivity {
         return activeNetwork != null && activeNetwork.isConnectedOrConnecting();
     }
     private void performSearch(String keyword) {
-        if (!isNetworkAvailable()) {
-            showError("No internet connection. Please check your network settings and try again.");
-            showEmptyState("No internet connection");
-            return;
+        // Offline searches are answered from the article cache, including full-text matches
+        boolean offline = !isNetworkAvailable();
+        if (offline) {
+            showError("No internet connection. Showing saved articles.");
         }
+        currentKeyword = keyword;
         setLoadingState(true);
         Log.d(TAG, "Searching for keyword: " + keyword);
         try {
@@ -239,6 +240,8 @@ public class InputActivity extends AppCompatActivity {
                 setLoadingState(false);
                 if (articles != null && !articles.isEmpty()) {
                     showResults(articles);
+                } else if (offline) {
+                    showEmptyState("No saved articles found for: " + keyword);
                 } else {
                     showEmptyState("No articles found for: " + keyword);
                 }
@@ -264,6 +267,17 @@ public class InputActivity extends AppCompatActivity {
             showEmptyState("Error occurred");
         }
     }
+    private void onArticlesRefreshed(String keyword, List<NewsArticle> articles, List<NewsArticle> added) {
+        if (isFinishing() || !keyword.equals(currentKeyword)) {
+            return;
+        }
+        if (newsAdapter.isSelectMode()) {
+            Log.d(TAG, "Skipping refresh of " + added.size() + " articles while selecting");
+            return;
+        }
+        Log.d(TAG, "Applying background refresh with " + added.size() + " new articles for: " + keyword);
+        showResults(articles);
+    }
     private void setLoadingState(boolean isLoading) {
         progressBar.setVisibility(isLoading ? View.VISIBLE : View.GONE);
         emptyStateView.setVisibility(isLoading ? View.GONE : View.VISIBLE);
@@ -312,6 +326,9 @@ public class InputActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (newsRepository != null) {
+            newsRepository.removeRefreshListener(refreshListener);
+        }
         if (ttsHelper != null) {
             ttsHelper.shutdown();
         }
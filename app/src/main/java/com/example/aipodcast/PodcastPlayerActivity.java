@@ -24,8 +24,12 @@ import com.example.aipodcast.repository.NewsRepository;
 import com.example.aipodcast.repository.NewsRepositoryProvider;
 import com.example.aipodcast.service.EnhancedTTSService;
 import com.example.aipodcast.service.OpenAIService;
+import com.example.aipodcast.service.PodcastAudioRenderer;
 import com.example.aipodcast.service.PodcastGenerator;
 import com.example.aipodcast.service.SimplifiedTTSHelper;
+import com.example.aipodcast.ui.TranscriptDeltaFormatter;
+import com.example.aipodcast.util.CancellationToken;
+import com.example.aipodcast.util.LlmResponseCache;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -73,12 +77,21 @@ public class PodcastPlayerActivity extends AppCompatActivity {
     private static final int MAX_PROGRESS = 100;
     private Handler generationProgressHandler = new Handler(Looper.getMainLooper());
     private boolean isCancelled = false;
+    // Shared by the article fetch, script generation and streamed playback of one podcast
+    private CancellationToken generationToken = new CancellationToken();
     private ArrayList<String> selectedTopics;
     private int duration;
     private Set<NewsArticle> selectedArticles;
     private PodcastContent podcastContent;
     private File audioFile;
     private boolean useAIGeneration = false; 
+    private boolean usePipelinedPlayback = true;
+    private boolean bypassResponseCache = false;
+    // One request per article, then a stitch pass; off unless the caller asks for it
+    private boolean useMapReduce = false;
+    // Plays audio rendered to files ahead of the playhead instead of live speech
+    private boolean usePreRenderedAudio = true;
+    private PodcastAudioRenderer audioRenderer;
     private SimplifiedTTSHelper ttsHelper;
     private PodcastGenerator podcastGenerator;
     private Runnable seekBarUpdater;
@@ -102,6 +115,20 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         lastUIUpdateTime = currentTime;
         return true;
     }
+    // A cancelled token stays cancelled, so a retry after cancelling starts a fresh one
+    private CancellationToken currentGenerationToken() {
+        if (generationToken.isCancelled()) {
+            generationToken = new CancellationToken();
+        }
+        return generationToken;
+    }
+    // Null when caching is turned off in settings, so every generation hits the API
+    private LlmResponseCache getResponseCache() {
+        if (!com.example.aipodcast.config.ConfigFactory.getInstance(this).isCachingEnabled()) {
+            return null;
+        }
+        return LlmResponseCache.getInstance(this);
+    }
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -113,6 +140,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         selectedTopics = intent.getStringArrayListExtra("selected_topics");
         duration = intent.getIntExtra("duration", 5);
         useAIGeneration = intent.getBooleanExtra("use_ai_generation", false);
+        usePipelinedPlayback = intent.getBooleanExtra("pipelined_playback", true);
+        bypassResponseCache = intent.getBooleanExtra("bypass_response_cache", false);
+        useMapReduce = intent.getBooleanExtra("map_reduce_generation", false);
+        usePreRenderedAudio = intent.getBooleanExtra("pre_rendered_audio", true);
         useStreamingMode = false;
 
         ArrayList<NewsArticle> articlesList = (ArrayList<NewsArticle>) intent.getSerializableExtra("selected_articles_list");
@@ -228,7 +259,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
             public void onStopTrackingTouch(SeekBar seekBar) {
                 int seekPosition = seekBar.getProgress();
                 Log.d(TAG, "Seeking to position: " + seekPosition + "s");
-                if (ttsHelper != null && isPodcastGenerated) {
+                if (isRenderedPlaybackActive()) {
+                    audioRenderer.seekTo(seekPosition * 1000L);
+                    updateCurrentTimeText(seekPosition);
+                } else if (ttsHelper != null && isPodcastGenerated) {
                     int seekPositionMs = seekPosition * 1000;
                     ttsHelper.seekTo(seekPositionMs);
                     currentPlayingSentenceIndex = -1;
@@ -244,6 +278,8 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                 updateSpeedText();
                 if (useStreamingMode && enhancedTTS != null) {
                     enhancedTTS.setSpeechRate(value);
+                } else if (isRenderedPlaybackActive()) {
+                    audioRenderer.setPlaybackSpeed(value);
                 } else if (ttsHelper != null && isPodcastGenerated) {
                     ttsHelper.setPlaybackSpeed(value);
                 }
@@ -275,6 +311,11 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                 });
             }
             @Override
+            public void onBuffering(boolean buffering) {
+                runOnUiThread(() -> currentWordIndicator.setText(
+                        buffering ? "Waiting for the script..." : "HOST is speaking..."));
+            }
+            @Override
             public void onError(String message) {
                 runOnUiThread(() -> {
                     showError("Error during playback: " + message);
@@ -441,11 +482,11 @@ public class PodcastPlayerActivity extends AppCompatActivity {
 
         // Make sure PodcastGenerator is initialized
         if (podcastGenerator == null) {
-            podcastGenerator = new PodcastGenerator(selectedArticles, duration, selectedTopics);
-            podcastGenerator.setUseAI(useAIGeneration);
+            podcastGenerator = createPodcastGenerator();
         }
 
-        podcastGenerator.generateContentAsync()
+        CancellationToken token = currentGenerationToken();
+        podcastGenerator.generateContentAsync(token)
                 .thenAccept(content -> {
                     podcastContent = content;
                     runOnUiThread(() -> {
@@ -460,6 +501,9 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                     });
                 })
                 .exceptionally(e -> {
+                    if (token.isCancelled()) {
+                        return null;
+                    }
                     runOnUiThread(() -> {
                         showError("Error generating podcast: " + e.getMessage());
                         showGeneratingState(false);
@@ -467,8 +511,63 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                     return null;
                 });
     }
+    private PodcastGenerator createPodcastGenerator() {
+        PodcastGenerator generator = new PodcastGenerator(selectedArticles, duration, selectedTopics);
+        generator.setResponseCache(getResponseCache(), bypassResponseCache);
+        generator.setUseAI(useAIGeneration);
+        generator.setUseMapReduce(useMapReduce);
+        return generator;
+    }
     private void synthesizeToFile() {
-        directSpeechPlayback();
+        if (podcastContent == null) {
+            return;
+        }
+        if (audioRenderer == null) {
+            audioRenderer = new PodcastAudioRenderer(this, new PodcastAudioRenderer.Listener() {
+                @Override
+                public void onPlaybackStateChanged(boolean playing) {
+                    isPlaying = playing;
+                    updatePlayButtonState(playing);
+                    if (playing) {
+                        startProgressUpdates();
+                    }
+                }
+                @Override
+                public void onBuffering(boolean buffering) {
+                    if (generationStatus != null) {
+                        generationStatus.setText("正在生成音频...");
+                        generationStatus.setVisibility(buffering ? View.VISIBLE : View.GONE);
+                    }
+                }
+                @Override
+                public void onPlaybackComplete() {
+                    isPlaying = false;
+                    updatePlayButtonState(false);
+                    stopProgressUpdates();
+                }
+                @Override
+                public void onError(String message) {
+                    Log.e(TAG, "Pre-rendered playback failed, using live speech: " + message);
+                    audioRenderer.release();
+                    audioRenderer = null;
+                    usePreRenderedAudio = false;
+                    if (generationStatus != null) {
+                        generationStatus.setVisibility(View.GONE);
+                    }
+                    directSpeechPlayback();
+                }
+            });
+        }
+        if (audioRenderer.isActiveFor(podcastContent)) {
+            audioRenderer.play();
+        } else {
+            audioRenderer.start(podcastContent, playbackSpeed);
+        }
+        showGeneratingState(false);
+        startProgressUpdates();
+    }
+    private boolean isRenderedPlaybackActive() {
+        return audioRenderer != null && audioRenderer.isActiveFor(podcastContent);
     }
     private void directSpeechPlayback() {
         if (podcastContent != null) {
@@ -524,10 +623,16 @@ public class PodcastPlayerActivity extends AppCompatActivity {
     private void updateProgress() {
         if (ttsHelper == null) return;
         try {
-            Log.d(TAG, "TTS position: " + ttsHelper.getCurrentPosition());
-
-            int currentPosition = ttsHelper.getCurrentPosition() / 1000;
-            int totalDuration = ttsHelper.getTotalDuration() / 1000;
+            int currentPosition;
+            int totalDuration;
+            if (isRenderedPlaybackActive()) {
+                currentPosition = (int) (audioRenderer.getPositionMs() / 1000);
+                totalDuration = (int) (audioRenderer.getDurationMs() / 1000);
+            } else {
+                Log.d(TAG, "TTS position: " + ttsHelper.getCurrentPosition());
+                currentPosition = ttsHelper.getCurrentPosition() / 1000;
+                totalDuration = ttsHelper.getTotalDuration() / 1000;
+            }
             if (totalDuration <= 0) {
                 if (podcastContent != null) {
                     totalDuration = podcastContent.getTotalDuration();
@@ -555,8 +660,14 @@ public class PodcastPlayerActivity extends AppCompatActivity {
             return;
         }
         try {
-            ttsHelper.skipBackward(10000);
-            int currentPosition = ttsHelper.getCurrentPosition() / 1000;
+            int currentPosition;
+            if (isRenderedPlaybackActive()) {
+                audioRenderer.seekTo(Math.max(0, audioRenderer.getPositionMs() - 10000));
+                currentPosition = (int) (audioRenderer.getPositionMs() / 1000);
+            } else {
+                ttsHelper.skipBackward(10000);
+                currentPosition = ttsHelper.getCurrentPosition() / 1000;
+            }
             seekBar.setProgress(currentPosition);
             updateCurrentTimeText(currentPosition);
             updateProgress();
@@ -573,8 +684,14 @@ public class PodcastPlayerActivity extends AppCompatActivity {
             return;
         }
         try {
-            ttsHelper.skipForward(10000);
-            int currentPosition = ttsHelper.getCurrentPosition() / 1000;
+            int currentPosition;
+            if (isRenderedPlaybackActive()) {
+                audioRenderer.seekTo(Math.max(0, audioRenderer.getPositionMs() + 10000));
+                currentPosition = (int) (audioRenderer.getPositionMs() / 1000);
+            } else {
+                ttsHelper.skipForward(10000);
+                currentPosition = ttsHelper.getCurrentPosition() / 1000;
+            }
             seekBar.setProgress(currentPosition);
             updateCurrentTimeText(currentPosition);
             updateProgress();
@@ -588,6 +705,20 @@ public class PodcastPlayerActivity extends AppCompatActivity {
     private void togglePlayback() {
         Log.d(TAG, "togglePlayback called, isPodcastGenerated=" + isPodcastGenerated + 
               ", isPlaying=" + isPlaying + ", isTtsInitialized=" + isTtsInitialized);
+        // Pipelined playback pauses and resumes in place, also while the script is still streaming;
+        // stop() would drop every turn that has not been spoken yet
+        if (ttsHelper != null && ttsHelper.isStreamingPlayback()) {
+            if (ttsHelper.isStreamingPlaybackPaused()) {
+                isPlaying = ttsHelper.resumeStreamingPlayback();
+                startProgressUpdates();
+            } else {
+                ttsHelper.pauseStreamingPlayback();
+                isPlaying = false;
+                stopProgressUpdates();
+            }
+            updatePlayButtonState(isPlaying);
+            return;
+        }
         if (!isPodcastGenerated) {
             Log.e(TAG, "Cannot toggle playback: podcast not yet generated");
             showError("播客内容仍在生成中，请稍候。");
@@ -600,6 +731,9 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         }
         if (isPlaying) {
             Log.d(TAG, "Stopping playback");
+            if (isRenderedPlaybackActive()) {
+                audioRenderer.pause();
+            }
             if (ttsHelper != null) {
                 ttsHelper.stop();
             }
@@ -621,6 +755,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
             toggleChatPlayback();
             return;
         }
+        if (usePreRenderedAudio) {
+            synthesizeToFile();
+            return;
+        }
         Log.d(TAG, "Starting playback, audioFile=" + (audioFile != null ? "exists" : "null"));
         try {
             if (audioFile != null && audioFile.exists()) {
@@ -962,8 +1100,14 @@ public class PodcastPlayerActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Stops article fetches, API streams and turn scheduling nobody will see
+        generationToken.cancel();
         stopProgressUpdates();
         progressHandler.removeCallbacksAndMessages(null);
+        if (audioRenderer != null) {
+            audioRenderer.release();
+            audioRenderer = null;
+        }
         if (ttsHelper != null) {
             ttsHelper.shutdown();
             ttsHelper = null;
@@ -1007,6 +1151,7 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         generationProgress.setProgress(0);
         generationProgressPercent = 0;
         isCancelled = false;
+        CancellationToken cancellationToken = currentGenerationToken();
         startGenerationProgressSimulation();
         hostContainer.setVisibility(View.VISIBLE);
         hostText.setText(""); 
@@ -1015,7 +1160,9 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         currentWordIndicator.setText("Starting AI generator...");
         TextView fullTranscriptView = findViewById(R.id.transcript_text);
         fullTranscriptView.setVisibility(View.VISIBLE);
-        fullTranscriptView.setText("");
+        // Editable up front so every append() extends the buffer in place
+        fullTranscriptView.setText("", TextView.BufferType.EDITABLE);
+        TranscriptDeltaFormatter transcriptFormatter = new TranscriptDeltaFormatter();
         Handler timeoutHandler = new Handler(Looper.getMainLooper());
         timeoutHandler.postDelayed(() -> {
             if (!isPodcastGenerated && !isCancelled) {
@@ -1043,6 +1190,8 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                 return;
                 }
                 openAIService = new OpenAIService(apiKey);
+                openAIService.setResponseCache(getResponseCache());
+                openAIService.setBypassResponseCache(bypassResponseCache);
             }
         String podcastTitle = "AI Podcast";
         if (selectedTopics != null && !selectedTopics.isEmpty()) {
@@ -1050,6 +1199,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         }
         this.podcastTitle.setText(podcastTitle);
             final OpenAIService finalOpenAIService = openAIService;
+        // Pipelined mode speaks each finished turn while the rest of the script streams in
+        final boolean pipelined = usePipelinedPlayback && ttsHelper != null && ttsHelper.startStreamingPlayback();
+        final long generationStartTime = System.currentTimeMillis();
+        final java.util.concurrent.atomic.AtomicBoolean firstTurnQueued = new java.util.concurrent.atomic.AtomicBoolean(false);
         OpenAIService.StreamingResponseHandler handler = new OpenAIService.StreamingResponseHandler() {
             @Override
             public void onContentReceived(String content) {
@@ -1064,11 +1217,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                 });
             }
             @Override
-            public void onFullTranscriptUpdate(String fullTranscript) {
+            public void onTranscriptDelta(int offset, String appended) {
                 runOnUiThread(() -> {
                         clearPlaceholderTexts();
-                    String formattedText = formatFullTranscript(fullTranscript);
-                        fullTranscriptView.setText(android.text.Html.fromHtml(formattedText, android.text.Html.FROM_HTML_MODE_COMPACT));
+                        fullTranscriptView.append(transcriptFormatter.append(appended));
                         smoothScrollToBottom();
                 });
             }
@@ -1104,6 +1256,24 @@ public class PodcastPlayerActivity extends AppCompatActivity {
             @Override
             public void onSpeakerComplete(String speaker, String completeText) {
                     Log.d(TAG, "Speaker complete: " + speaker);
+            }
+            @Override
+            public void onSegmentComplete(PodcastSegment segment) {
+                    if (!pipelined) {
+                        return;
+                    }
+                    ttsHelper.enqueueSegment(segment);
+                    if (firstTurnQueued.compareAndSet(false, true)) {
+                        Log.d(TAG, "First turn queued for playback after "
+                                + (System.currentTimeMillis() - generationStartTime) + "ms");
+                        runOnUiThread(() -> {
+                            if (ttsHelper == null || ttsHelper.isStreamingPlaybackPaused()) {
+                                return;
+                            }
+                            isPlaying = true;
+                            updatePlayButtonState(true);
+                        });
+                    }
             }
                 @Override
                 public void onError(String error) {
@@ -1123,6 +1293,10 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                         }
                         showErrorDialog(userMessage);
                         showGeneratingState(false);
+                        if (pipelined) {
+                            // Let the turns that already arrived finish playing
+                            ttsHelper.finishStreamingPlayback();
+                        }
                     });
                 }
             @Override
@@ -1131,14 +1305,13 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                     timeoutHandler.removeCallbacksAndMessages(null);
                 runOnUiThread(() -> {
                     try {
+                            fullTranscriptView.append(transcriptFormatter.flush());
                             clearGeneratingIndicators();
                         showGeneratingState(false);
                             stopGenerationProgressSimulation();
                         isPodcastGenerated = true;
-                            currentWordIndicator.setText("Ready to play");
+                            currentWordIndicator.setText(pipelined ? "HOST is speaking..." : "Ready to play");
                             currentSectionLabel.setText("AI Podcast");
-                        createPodcastContentFromTranscript(fullResponse);
-                        updateUIForPlayerState();
                     } catch (Exception e) {
                         Log.e(TAG, "Error in onComplete: " + e.getMessage());
                         showError("Error processing generated content: " + e.getMessage());
@@ -1152,8 +1325,22 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                 selectedTopics,
                 duration,
                 podcastTitle,
-                handler
-        );
+                handler,
+                cancellationToken
+        ).thenAccept(content -> runOnUiThread(() -> {
+                    // Segments were assembled turn by turn while the script streamed in
+                    this.podcastContent = content;
+                    updatePodcastInfo();
+                    if (pipelined) {
+                        ttsHelper.finishStreamingPlayback();
+                        Log.i(TAG, "Time to first audio: " + ttsHelper.getTimeToFirstAudioMs()
+                                + "ms, full generation: " + (System.currentTimeMillis() - generationStartTime) + "ms");
+                        startProgressUpdates();
+                    } else if (ttsHelper != null) {
+                        ttsHelper.speakPodcast(content);
+                    }
+                    updateUIForPlayerState();
+                }));
             } catch (Exception e) {
                 timeoutHandler.removeCallbacksAndMessages(null);
                 Log.e(TAG, "Error starting streaming generation: " + e.getMessage());
@@ -1189,45 +1376,45 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         Log.d(TAG, "Starting to load full content for " + selectedArticles.size() + " articles");
 
         Set<NewsArticle> articlesWithContent = new HashSet<>();
-        List<CompletableFuture<NewsArticle>> futures = new ArrayList<>();
 
         // Create a repository for fetching article details
         NewsRepository repository = NewsRepositoryProvider.getRepository(this);
 
-        // Proceed with article loading
+        // Resolve all articles in one batch: cache hits from disk, misses in as few requests as possible
+        List<String> urls = new ArrayList<>();
         for (NewsArticle article : selectedArticles) {
-            Log.d(TAG, "Requesting full content for: " + article.getTitle());
-
-            CompletableFuture<NewsArticle> future = repository.getArticleDetails(article.getUrl())
-                    .thenApply(fullArticle -> {
-                        String fullText = fullArticle.getFullBodyText();
-                        int wordCount = fullText != null ? fullText.split("\\s+").length : 0;
+            urls.add(article.getUrl());
+        }
 
-                        Log.d(TAG, "SUCCESS: Got full article: " + fullArticle.getTitle() +
-                                " - Full text length: " + (fullText != null ? fullText.length() : 0) +
-                                " chars, Word count: " + wordCount);
+        CancellationToken token = currentGenerationToken();
+        repository.getArticleDetailsBatch(urls, token)
+                .thenAccept(fullArticles -> {
+                    for (NewsArticle article : selectedArticles) {
+                        NewsArticle fullArticle = fullArticles.get(article.getUrl());
+                        String fullText = fullArticle != null ? fullArticle.getFullBodyText() : null;
 
                         // Only use the article if it has substantial content
                         if (fullText != null && fullText.length() > 300) {
+                            Log.d(TAG, "SUCCESS: Got full article: " + fullArticle.getTitle() +
+                                    " - Full text length: " + fullText.length() + " chars");
                             articlesWithContent.add(fullArticle);
-                            return fullArticle;
                         } else {
-                            Log.w(TAG, "Article has insufficient content, using original");
+                            Log.w(TAG, "Article has insufficient content, using original: " + article.getTitle());
                             articlesWithContent.add(article);
-                            return article;
                         }
-                    })
-                    .exceptionally(e -> {
-                        Log.e(TAG, "Error fetching full article: " + e.getMessage());
-                        articlesWithContent.add(article); // Add original article if fetching fails
-                        return article;
-                    });
-
-            futures.add(future);
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    }
+                })
+                .exceptionally(e -> {
+                    Log.e(TAG, "Error fetching full articles: " + e.getMessage());
+                    articlesWithContent.clear();
+                    articlesWithContent.addAll(selectedArticles);
+                    return null;
+                })
                 .thenRun(() -> {
+                    if (token.isCancelled()) {
+                        Log.d(TAG, "Article loading cancelled, not generating");
+                        return;
+                    }
                     selectedArticles = articlesWithContent;
 
                     // Log detailed content status
@@ -1259,8 +1446,7 @@ public class PodcastPlayerActivity extends AppCompatActivity {
 
                     runOnUiThread(() -> {
                         // Create fresh instance with the updated articles containing full content
-                        podcastGenerator = new PodcastGenerator(selectedArticles, duration, selectedTopics);
-                        podcastGenerator.setUseAI(useAIGeneration);
+                        podcastGenerator = createPodcastGenerator();
 
                         // Continue with podcast generation
                         if (generationStatus != null) {
@@ -1272,13 +1458,15 @@ public class PodcastPlayerActivity extends AppCompatActivity {
                     });
                 })
                 .exceptionally(e -> {
+                    if (token.isCancelled()) {
+                        return null;
+                    }
                     Log.e(TAG, "Error fetching articles: " + e.getMessage());
                     runOnUiThread(() -> {
                         if (generationStatus != null) {
                             generationStatus.setText("Generating podcast with limited content...");
                         }
-                        podcastGenerator = new PodcastGenerator(selectedArticles, duration, selectedTopics);
-                        podcastGenerator.setUseAI(useAIGeneration);
+                        podcastGenerator = createPodcastGenerator();
                         generatePodcast(); // Proceed with what we have
                     });
                     return null;
@@ -1851,80 +2039,21 @@ public class PodcastPlayerActivity extends AppCompatActivity {
         }
         return "This is a test of the text to speech system.";
     }
-    private String formatFullTranscript(String fullTranscript) {
-        if (fullTranscript == null || fullTranscript.isEmpty()) {
-            return "";
-        }
-        String cleanTranscript = fullTranscript;
-        String[] statusPrefixes = {
-            "AI is generating", "Starting generation", "Generating",
-            "Connecting", "API connected", "processing"
-        };
-        for (String prefix : statusPrefixes) {
-            if (cleanTranscript.startsWith(prefix)) {
-                int contentStart = cleanTranscript.indexOf("§HOST§");
-            if (contentStart > 0) {
-                cleanTranscript = cleanTranscript.substring(contentStart);
-                    break;
-                }
-            }
-        }
-        String formatted = cleanTranscript
-            .replace("§HOST§", "<span style='color:#6200EE; font-weight:bold; display:block; margin-top:16dp'>HOST: </span>")
-            .replace("§ALEX§", "<span style='color:#6200EE; font-weight:bold; display:block; margin-top:16dp'>HOST: </span>")
-            .replace("§JORDAN§", "<span style='color:#6200EE; font-weight:bold; display:block; margin-top:16dp'>HOST: </span>");
-        formatted = formatted.replace("\n\n", "<br><br>")
-                           .replace("\n", "<br>");
-        formatted = formatted.replace("AI is generating", "")
-                         .replace("Starting generation", "")
-                         .replace("Analyzing news", "")
-                         .replace("Formatting conversation", "");
-        return formatted;
-    }
-    private void createPodcastContentFromTranscript(String transcript) {
-        if (transcript == null || transcript.isEmpty()) {
-            Log.e(TAG, "Empty transcript");
-            return;
-        }
-        PodcastContent content = new PodcastContent();
-        content.setTitle(podcastTitle.getText().toString());
-        String[] words = transcript.split("\\s+");
-        int wordCount = words.length;
-        float wordsPerSecond = 2.5f;
-        int calculatedDuration = Math.round(wordCount / wordsPerSecond);
-        int requestedDurationSeconds = duration * 60;
-        int minimumDuration = Math.max(requestedDurationSeconds * 8 / 10, 180);
-        int estimatedDuration = Math.max(calculatedDuration, minimumDuration);
-        Log.d(TAG, "Transcript word count: " + wordCount + 
-              ", Calculated duration: " + calculatedDuration + 
-              "s, Using duration: " + estimatedDuration + "s");
-        content.setTotalDuration(estimatedDuration);
-        content.setTranscriptText(transcript);
-        PodcastSegment segment = new PodcastSegment();
-        segment.setTitle("Podcast");
-        segment.setText(transcript);
-        segment.setType(PodcastSegment.SegmentType.NEWS_ARTICLE);
-        segment.setEstimatedDuration(estimatedDuration);
-        List<PodcastSegment> segments = new ArrayList<>();
-        segments.add(segment);
-        content.setSegments(segments);
-        content.setTopics(selectedTopics != null ? new ArrayList<>(selectedTopics) : new ArrayList<>());
-        this.podcastContent = content;
-        updatePodcastInfo();
-        if (ttsHelper != null) {
-            ttsHelper.speakPodcast(content);
-        }
-    }
     private void cancelGeneration() {
         new androidx.appcompat.app.AlertDialog.Builder(this)
             .setTitle("Cancel Generation")
             .setMessage("Are you sure you want to cancel the podcast generation?")
             .setPositiveButton("Yes", (dialog, which) -> {
                 isCancelled = true;
+                generationToken.cancel();
                 stopGenerationProgressSimulation();
                 if (enhancedTTS != null) {
                     enhancedTTS.stop();
                 }
+                if (ttsHelper != null) {
+                    // Drops any streamed turns already queued for playback
+                    ttsHelper.stop();
+                }
                 showGeneratingState(false);
                 generationStatus.setText("Generation cancelled");
                 new androidx.appcompat.app.AlertDialog.Builder(this)
@@ -5,6 +5,7 @@ import android.util.Log;
 import com.example.aipodcast.service.EnhancedOpenAIService;
 import com.example.aipodcast.service.PodcastAudioService;
 import com.example.aipodcast.service.UnifiedTTSService;
+import com.example.aipodcast.util.LlmResponseCache;
 import com.example.aipodcast.util.PodcastCacheManager;
 public class ConfigFactory {
     private static final String TAG = "ConfigFactory";
@@ -68,6 +69,9 @@ public class ConfigFactory {
                 throw new IllegalStateException("OpenAI API key not configured");
             }
             openAIService = new EnhancedOpenAIService(apiKey);
+            if (isCachingEnabled()) {
+                openAIService.setResponseCache(LlmResponseCache.getInstance(context));
+            }
         }
         return openAIService;
     }
@@ -96,14 +100,9 @@ public class ConfigFactory {
         openAIService = null;
         cacheManager = null;
     }
+    // The services run on the shared AppScheduler, so there are no threads to stop here
     public void shutdown() {
-        if (openAIService != null) {
-            openAIService.shutdown();
-            openAIService = null;
-        }
-        if (cacheManager != null) {
-            cacheManager.shutdown();
-            cacheManager = null;
-        }
+        openAIService = null;
+        cacheManager = null;
     }
 } 
\ No newline at end of file
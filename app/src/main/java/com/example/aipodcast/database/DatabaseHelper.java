@@ -1,14 +1,18 @@
 package com.example.aipodcast.database;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
+import com.example.aipodcast.util.TextCompressor;
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String TAG = "DatabaseHelper";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 7;
     private static final String DATABASE_NAME = "news_db";
     public static final String TABLE_NEWS = "news_articles";
     public static final String TABLE_USERS = "users";
+    public static final String TABLE_ARTICLE_KEYWORDS = "article_keywords";
+    public static final String TABLE_NEWS_FTS = "news_fts";
     public static final String COLUMN_ID = "id";
     public static final String COLUMN_CREATED_AT = "created_at";
     public static final String COLUMN_UPDATED_AT = "updated_at";
@@ -18,6 +22,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_SECTION = "section";
     public static final String COLUMN_PUBLISHED_DATE = "published_date";
     public static final String COLUMN_KEYWORD = "keyword";
+    public static final String COLUMN_BODY = "body";
+    public static final String COLUMN_ARTICLE_ID = "article_id";
+    public static final String COLUMN_DOCID = "docid";
+    public static final String COLUMN_LAST_READ_AT = "last_read_at";
     public static final String COLUMN_USERNAME = "username";
     public static final String COLUMN_PASSWORD = "password";
     public static final String COLUMN_EMAIL = "email";
@@ -28,12 +36,38 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + COLUMN_URL + " TEXT UNIQUE NOT NULL,"
             + COLUMN_SECTION + " TEXT,"
             + COLUMN_PUBLISHED_DATE + " TEXT,"
-            + COLUMN_KEYWORD + " TEXT,"
+            + COLUMN_BODY + " BLOB,"
+            + COLUMN_LAST_READ_AT + " INTEGER NOT NULL DEFAULT 0,"
             + COLUMN_CREATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP,"
             + COLUMN_UPDATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP"
             + ")";
-    private static final String CREATE_INDEX_KEYWORDS = "CREATE INDEX idx_keywords ON " 
-            + TABLE_NEWS + "(" + COLUMN_KEYWORD + ")";
+    // One row per (keyword, article) pair, so the same article can be cached under many searches
+    private static final String CREATE_TABLE_ARTICLE_KEYWORDS = "CREATE TABLE " + TABLE_ARTICLE_KEYWORDS + "("
+            + COLUMN_KEYWORD + " TEXT NOT NULL,"
+            + COLUMN_ARTICLE_ID + " INTEGER NOT NULL REFERENCES " + TABLE_NEWS + "(" + COLUMN_ID + ") ON DELETE CASCADE,"
+            + COLUMN_UPDATED_AT + " INTEGER NOT NULL,"
+            + "PRIMARY KEY (" + COLUMN_KEYWORD + ", " + COLUMN_ARTICLE_ID + ")"
+            + ")";
+    private static final String CREATE_INDEX_ARTICLE_KEYWORDS_ARTICLE = "CREATE INDEX idx_article_keywords_article ON "
+            + TABLE_ARTICLE_KEYWORDS + "(" + COLUMN_ARTICLE_ID + ")";
+    // FTS4 keeps its own plain-text copy: the body column is written by SqliteNewsDao because
+    // the stored body is compressed and cannot be read from a trigger
+    private static final String CREATE_TABLE_NEWS_FTS = "CREATE VIRTUAL TABLE " + TABLE_NEWS_FTS
+            + " USING fts4(" + COLUMN_TITLE + ", " + COLUMN_ABSTRACT + ", " + COLUMN_BODY + ", tokenize=unicode61)";
+    private static final String[] CREATE_TRIGGERS_NEWS_FTS = {
+            "CREATE TRIGGER news_fts_after_insert AFTER INSERT ON " + TABLE_NEWS + " BEGIN"
+                    + " INSERT INTO " + TABLE_NEWS_FTS + "(" + COLUMN_DOCID + ", " + COLUMN_TITLE + ", " + COLUMN_ABSTRACT + ")"
+                    + " VALUES (new." + COLUMN_ID + ", new." + COLUMN_TITLE + ", new." + COLUMN_ABSTRACT + "); END",
+            "CREATE TRIGGER news_fts_after_update AFTER UPDATE OF " + COLUMN_TITLE + ", " + COLUMN_ABSTRACT
+                    + " ON " + TABLE_NEWS
+                    + " WHEN old." + COLUMN_TITLE + " IS NOT new." + COLUMN_TITLE
+                    + " OR old." + COLUMN_ABSTRACT + " IS NOT new." + COLUMN_ABSTRACT + " BEGIN"
+                    + " UPDATE " + TABLE_NEWS_FTS + " SET " + COLUMN_TITLE + " = new." + COLUMN_TITLE + ", "
+                    + COLUMN_ABSTRACT + " = new." + COLUMN_ABSTRACT
+                    + " WHERE " + COLUMN_DOCID + " = new." + COLUMN_ID + "; END",
+            "CREATE TRIGGER news_fts_after_delete AFTER DELETE ON " + TABLE_NEWS + " BEGIN"
+                    + " DELETE FROM " + TABLE_NEWS_FTS + " WHERE " + COLUMN_DOCID + " = old." + COLUMN_ID + "; END"
+    };
     private static final String CREATE_TABLE_USERS = "CREATE TABLE " + TABLE_USERS + "("
             + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
             + COLUMN_USERNAME + " TEXT UNIQUE NOT NULL,"
@@ -50,11 +84,23 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
     private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // WAL lets reads run alongside the write-behind flushes instead of queueing behind them
+        setWriteAheadLoggingEnabled(true);
+    }
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Only takes effect for a new file; NewsRetentionManager converts existing ones
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        // Needed for ON DELETE CASCADE from news_articles to article_keywords
+        db.setForeignKeyConstraintsEnabled(true);
     }
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_NEWS);
-        db.execSQL(CREATE_INDEX_KEYWORDS);
+        db.execSQL(CREATE_TABLE_ARTICLE_KEYWORDS);
+        db.execSQL(CREATE_INDEX_ARTICLE_KEYWORDS_ARTICLE);
+        createFullTextIndex(db);
         db.execSQL(CREATE_TABLE_USERS);
         Log.i(TAG, "Database tables and indexes created");
     }
@@ -63,11 +109,56 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         Log.w(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
         if (oldVersion < 2) {
             db.execSQL("ALTER TABLE " + TABLE_NEWS + " ADD COLUMN " + COLUMN_KEYWORD + " TEXT");
-            db.execSQL(CREATE_INDEX_KEYWORDS);
         }
         if (oldVersion < 3) {
             db.execSQL(CREATE_TABLE_USERS);
         }
+        if (oldVersion < 4) {
+            // Article bodies are stored deflate-compressed, see TextCompressor
+            db.execSQL("ALTER TABLE " + TABLE_NEWS + " ADD COLUMN " + COLUMN_BODY + " BLOB");
+        }
+        if (oldVersion < 5) {
+            // Move the single keyword column into the join table; the old column stays but is no longer read
+            db.execSQL(CREATE_TABLE_ARTICLE_KEYWORDS);
+            db.execSQL(CREATE_INDEX_ARTICLE_KEYWORDS_ARTICLE);
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_ARTICLE_KEYWORDS + "("
+                    + COLUMN_KEYWORD + ", " + COLUMN_ARTICLE_ID + ", " + COLUMN_UPDATED_AT + ")"
+                    + " SELECT " + COLUMN_KEYWORD + ", " + COLUMN_ID + ", "
+                    + "CASE WHEN typeof(" + COLUMN_UPDATED_AT + ") = 'integer' THEN " + COLUMN_UPDATED_AT + " ELSE 0 END"
+                    + " FROM " + TABLE_NEWS + " WHERE " + COLUMN_KEYWORD + " IS NOT NULL");
+            db.execSQL("DROP INDEX IF EXISTS idx_keywords");
+        }
+        if (oldVersion < 6) {
+            createFullTextIndex(db);
+            db.execSQL("INSERT INTO " + TABLE_NEWS_FTS + "(" + COLUMN_DOCID + ", " + COLUMN_TITLE + ", " + COLUMN_ABSTRACT + ")"
+                    + " SELECT " + COLUMN_ID + ", " + COLUMN_TITLE + ", " + COLUMN_ABSTRACT + " FROM " + TABLE_NEWS);
+            backfillFullTextBodies(db);
+        }
+        if (oldVersion < 7) {
+            // Read time drives least-recently-read eviction in NewsRetentionManager
+            db.execSQL("ALTER TABLE " + TABLE_NEWS + " ADD COLUMN " + COLUMN_LAST_READ_AT + " INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+    private void createFullTextIndex(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_NEWS_FTS);
+        for (String trigger : CREATE_TRIGGERS_NEWS_FTS) {
+            db.execSQL(trigger);
+        }
+    }
+    private void backfillFullTextBodies(SQLiteDatabase db) {
+        int indexed = 0;
+        try (Cursor cursor = db.query(TABLE_NEWS, new String[]{COLUMN_ID, COLUMN_BODY},
+                COLUMN_BODY + " IS NOT NULL", null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String body = TextCompressor.decompress(cursor.getBlob(1));
+                if (!body.isEmpty()) {
+                    db.execSQL("UPDATE " + TABLE_NEWS_FTS + " SET " + COLUMN_BODY + " = ? WHERE " + COLUMN_DOCID + " = ?",
+                            new Object[]{body, cursor.getLong(0)});
+                    indexed++;
+                }
+            }
+        }
+        Log.i(TAG, "Indexed " + indexed + " stored article bodies for full-text search");
     }
     public void closeDB() {
         SQLiteDatabase db = getReadableDatabase();
@@ -77,6 +168,8 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
     public void resetDatabase() {
         SQLiteDatabase db = getWritableDatabase();
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NEWS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLE_KEYWORDS);
         db.execSQL("DROP TABLE IF EXISTS " + TABLE_NEWS);
         db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
         onCreate(db);
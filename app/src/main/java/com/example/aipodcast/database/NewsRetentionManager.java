@@ -0,0 +1,145 @@
+package com.example.aipodcast.database;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import com.example.aipodcast.database.dao.NewsDao;
+import com.example.aipodcast.util.AppScheduler;
+import java.io.File;
+/**
+ * Keeps news_db within a byte budget and a per-keyword max age. Eviction itself lives in
+ * {@link NewsDao#enforceRetention}; this class schedules it off the main thread, returns
+ * the freed pages to the file system in small incremental_vacuum steps and reports the
+ * database size before and after.
+ */
+public class NewsRetentionManager {
+    private static final String TAG = "NewsRetentionManager";
+    private static final long STARTUP_DELAY_MS = 30 * 1000;
+    private static final long RUN_INTERVAL_MS = 6 * 60 * 60 * 1000;
+    private static final int VACUUM_PAGES_PER_STEP = 64;
+    private static final long VACUUM_STEP_PAUSE_MS = 25;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    private final Context context;
+    private final DatabaseHelper dbHelper;
+    private final NewsDao newsDao;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final AppScheduler scheduler;
+    public static final class Report {
+        public final long bytesBefore;
+        public final long bytesAfter;
+        public final int articlesEvicted;
+        public final long pagesVacuumed;
+        public final long durationMs;
+        Report(long bytesBefore, long bytesAfter, int articlesEvicted, long pagesVacuumed, long durationMs) {
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+            this.articlesEvicted = articlesEvicted;
+            this.pagesVacuumed = pagesVacuumed;
+            this.durationMs = durationMs;
+        }
+        @Override
+        public String toString() {
+            return "db size " + bytesBefore / 1024 + "KB -> " + bytesAfter / 1024 + "KB, "
+                    + articlesEvicted + " articles evicted, " + pagesVacuumed + " pages vacuumed in "
+                    + durationMs + "ms";
+        }
+    }
+    public NewsRetentionManager(Context context, NewsDao newsDao, long maxBytes, long maxAgeMs) {
+        this(context, newsDao, maxBytes, maxAgeMs, AppScheduler.getInstance());
+    }
+    public NewsRetentionManager(Context context, NewsDao newsDao, long maxBytes, long maxAgeMs,
+                                AppScheduler scheduler) {
+        this.context = context.getApplicationContext();
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.newsDao = newsDao;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        this.scheduler = scheduler;
+    }
+    public void schedulePeriodic() {
+        scheduleRun(STARTUP_DELAY_MS);
+    }
+    // Runs as maintenance, so it only gets a disk thread once user-facing work is done
+    private void scheduleRun(long delayMs) {
+        scheduler.schedule(AppScheduler.Pool.DISK, AppScheduler.Priority.MAINTENANCE, this::startRun, delayMs);
+    }
+    // Progress of one retention run, carried from one vacuum step to the next
+    private static final class RunState {
+        final long start = System.currentTimeMillis();
+        long bytesBefore;
+        int evicted;
+        long freePages;
+        long vacuumed;
+    }
+    private void startRun() {
+        RunState state = new RunState();
+        try {
+            state.bytesBefore = getDatabaseFileBytes();
+            state.evicted = newsDao.enforceRetention(maxBytes, maxAgeMs);
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            if (DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+                // Files created before incremental mode need one full VACUUM to switch over
+                Log.i(TAG, "Converting news_db to incremental auto-vacuum");
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                db.execSQL("VACUUM");
+                finishRun(state);
+                return;
+            }
+            state.freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+            vacuumStep(state);
+        } catch (Exception e) {
+            failRun(e);
+        }
+    }
+    /**
+     * Frees one small batch of pages. Small steps keep each write lock short so the
+     * write-behind queue is never stalled, and the pause before the next step is a
+     * scheduled task rather than a sleep, so the disk thread serves other work meanwhile.
+     */
+    private void vacuumStep(RunState state) {
+        try {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            if (state.freePages > 0) {
+                // The pragma frees one page per step, so the cursor is stepped to the end
+                // (execSQL would step it only once)
+                try (Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum(" + VACUUM_PAGES_PER_STEP + ")", null)) {
+                    cursor.getCount();
+                }
+                long remaining = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+                if (remaining < state.freePages) {
+                    state.vacuumed += state.freePages - remaining;
+                    state.freePages = remaining;
+                    if (remaining > 0) {
+                        scheduler.schedule(AppScheduler.Pool.DISK, AppScheduler.Priority.MAINTENANCE,
+                                () -> vacuumStep(state), VACUUM_STEP_PAUSE_MS);
+                        return;
+                    }
+                }
+            }
+            finishRun(state);
+        } catch (Exception e) {
+            failRun(e);
+        }
+    }
+    private void finishRun(RunState state) {
+        // With WAL the main file only shrinks once the log is checkpointed
+        try (Cursor cursor = dbHelper.getWritableDatabase().rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null)) {
+            cursor.moveToFirst();
+        }
+        Report report = new Report(state.bytesBefore, getDatabaseFileBytes(), state.evicted, state.vacuumed,
+                System.currentTimeMillis() - state.start);
+        Log.i(TAG, "Retention finished: " + report);
+        scheduleRun(RUN_INTERVAL_MS);
+    }
+    private void failRun(Exception e) {
+        Log.e(TAG, "Retention run failed: " + e.getMessage(), e);
+        scheduleRun(RUN_INTERVAL_MS);
+    }
+    private long getDatabaseFileBytes() {
+        File file = context.getDatabasePath(dbHelper.getDatabaseName());
+        File wal = new File(file.getPath() + "-wal");
+        return file.length() + (wal.exists() ? wal.length() : 0);
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.aipodcast.database.dao;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+import com.example.aipodcast.database.DatabaseHelper;
+import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.TextCompressor;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+/**
+ * Write-behind buffer for article upserts. Writes from every caller are coalesced by URL
+ * and applied in a single transaction through precompiled statements, shortly after the
+ * first write, once FLUSH_THRESHOLD URLs are pending, or when the app goes to the
+ * background. The threshold only triggers a flush; writes past it are still accepted.
+ * Pending writes stay readable through the lookup methods until they are committed; a
+ * batch whose transaction fails goes back into the buffer and is retried with backoff.
+ */
+final class ArticleWriteQueue implements ComponentCallbacks2 {
+    private static final String TAG = "ArticleWriteQueue";
+    private static final long FLUSH_DELAY_MS = 500;
+    private static final int FLUSH_THRESHOLD = 200;
+    private static final long BACKPRESSURE_WAIT_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+    private final DatabaseHelper dbHelper;
+    private final AppScheduler scheduler;
+    // Timed and backpressure flushes run here, one at a time on the disk pool. Queries that
+    // need pending writes committed first still call flush() on their own (database) thread
+    private final Executor flusher;
+    private final Object flushLock = new Object();
+    private LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private LinkedHashMap<String, Long> pendingReads = new LinkedHashMap<>();
+    private Map<String, PendingWrite> committing;
+    private boolean flushScheduled;
+    private long queuedCount;
+    private long appliedCount;
+    private long flushCount;
+    private int consecutiveFailures;
+    // Compiled once and reused for every flush; only touched while holding flushLock
+    private SQLiteStatement updateStatement;
+    private SQLiteStatement updateWithBodyStatement;
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement findIdStatement;
+    private SQLiteStatement linkKeywordStatement;
+    private SQLiteStatement indexBodyStatement;
+    private SQLiteStatement markReadStatement;
+    private static final class PendingWrite {
+        NewsArticle article;
+        boolean insertIfMissing;
+        long updatedAt;
+        final Map<String, Long> keywords = new LinkedHashMap<>();
+    }
+    ArticleWriteQueue(Context context, DatabaseHelper dbHelper) {
+        this(context, dbHelper, AppScheduler.getInstance());
+    }
+    ArticleWriteQueue(Context context, DatabaseHelper dbHelper, AppScheduler scheduler) {
+        this.dbHelper = dbHelper;
+        this.scheduler = scheduler;
+        this.flusher = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
+        context.getApplicationContext().registerComponentCallbacks(this);
+    }
+    void enqueue(NewsArticle article, String keyword, boolean insertIfMissing) {
+        boolean full;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            PendingWrite write = pending.get(article.getUrl());
+            if (write == null) {
+                write = new PendingWrite();
+                write.article = article;
+                pending.put(article.getUrl(), write);
+            } else {
+                write.article = merge(write.article, article);
+            }
+            write.insertIfMissing |= insertIfMissing;
+            write.updatedAt = now;
+            if (keyword != null) {
+                write.keywords.put(keyword, now);
+            }
+            queuedCount++;
+            // While flushes are failing, the retry schedule drains the buffer instead
+            full = pending.size() >= FLUSH_THRESHOLD && consecutiveFailures == 0;
+            if (!full) {
+                scheduleFlushLocked();
+            }
+        }
+        if (full) {
+            awaitFlush();
+        }
+    }
+    // Backpressure: the writer that reaches the threshold waits, for a bounded time, while
+    // the disk pool drains the buffer, rather than running the transaction itself
+    private void awaitFlush() {
+        try {
+            CompletableFuture.runAsync(this::flush, flusher).get(BACKPRESSURE_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, "Flush still running after " + BACKPRESSURE_WAIT_MS + "ms, not waiting longer");
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Backpressure flush failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    // Read times ride along with the next flush instead of costing a write per read
+    synchronized void markRead(Collection<String> urls) {
+        long now = System.currentTimeMillis();
+        for (String url : urls) {
+            pendingReads.put(url, now);
+        }
+        if (!pendingReads.isEmpty()) {
+            scheduleFlushLocked();
+        }
+    }
+    void flush() {
+        synchronized (flushLock) {
+            Map<String, PendingWrite> batch;
+            Map<String, Long> reads;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.isEmpty() && pendingReads.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                committing = batch;
+                pending = new LinkedHashMap<>();
+                reads = pendingReads;
+                pendingReads = new LinkedHashMap<>();
+            }
+            long start = System.currentTimeMillis();
+            int applied = 0;
+            boolean committed = false;
+            int failures;
+            try {
+                SQLiteDatabase db = dbHelper.getWritableDatabase();
+                db.beginTransactionNonExclusive();
+                try {
+                    compileStatements(db);
+                    for (PendingWrite write : batch.values()) {
+                        try {
+                            if (apply(write)) {
+                                applied++;
+                            }
+                        } catch (SQLException e) {
+                            Log.e(TAG, "Error writing article " + write.article.getUrl() + ": " + e.getMessage());
+                        }
+                    }
+                    for (Map.Entry<String, Long> read : reads.entrySet()) {
+                        markReadStatement.clearBindings();
+                        markReadStatement.bindLong(1, read.getValue());
+                        markReadStatement.bindString(2, read.getKey());
+                        markReadStatement.executeUpdateDelete();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                committed = true;
+            } catch (Exception e) {
+                Log.e(TAG, "Error flushing article writes: " + e.getMessage());
+                // The statements may belong to a connection that is gone; compile afresh next time
+                releaseStatements();
+            } finally {
+                synchronized (this) {
+                    committing = null;
+                    flushCount++;
+                    if (committed) {
+                        appliedCount += applied;
+                        consecutiveFailures = 0;
+                    } else {
+                        requeueLocked(batch, reads);
+                        consecutiveFailures++;
+                        scheduleFlushLocked();
+                    }
+                    failures = consecutiveFailures;
+                }
+            }
+            if (!committed) {
+                Log.w(TAG, "Requeued " + batch.size() + " article writes and " + reads.size()
+                        + " read times after " + failures + " failed flushes in a row");
+                return;
+            }
+            Log.d(TAG, "Flushed " + applied + "/" + batch.size() + " article writes and "
+                    + reads.size() + " read times in "
+                    + (System.currentTimeMillis() - start) + "ms (" + getStats() + ")");
+        }
+    }
+    private void scheduleFlushLocked() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            // Failed flushes back off exponentially so a broken database is not hammered
+            long delayMs = Math.min(MAX_RETRY_DELAY_MS, FLUSH_DELAY_MS << Math.min(consecutiveFailures, 10));
+            // The timer thread only hands the flush over to the disk pool
+            scheduler.schedule(() -> flusher.execute(this::flush), delayMs);
+        }
+    }
+    // Puts a failed batch back; anything queued while it was committing is newer and wins
+    private void requeueLocked(Map<String, PendingWrite> batch, Map<String, Long> reads) {
+        LinkedHashMap<String, PendingWrite> merged = new LinkedHashMap<>(batch);
+        for (Map.Entry<String, PendingWrite> entry : pending.entrySet()) {
+            PendingWrite newer = entry.getValue();
+            PendingWrite older = merged.get(entry.getKey());
+            if (older != null) {
+                newer.article = merge(older.article, newer.article);
+                newer.insertIfMissing |= older.insertIfMissing;
+                for (Map.Entry<String, Long> keyword : older.keywords.entrySet()) {
+                    newer.keywords.merge(keyword.getKey(), keyword.getValue(), Math::max);
+                }
+            }
+            merged.put(entry.getKey(), newer);
+        }
+        pending = merged;
+        LinkedHashMap<String, Long> mergedReads = new LinkedHashMap<>(reads);
+        for (Map.Entry<String, Long> read : pendingReads.entrySet()) {
+            mergedReads.merge(read.getKey(), read.getValue(), Math::max);
+        }
+        pendingReads = mergedReads;
+    }
+    synchronized boolean isEmpty() {
+        return pending.isEmpty() && committing == null;
+    }
+    synchronized NewsArticle getPendingArticle(String url) {
+        PendingWrite write = findPending(url);
+        return write != null ? write.article : null;
+    }
+    synchronized boolean hasPendingKeyword(String keyword) {
+        return pendingKeywordTime(keyword) > 0;
+    }
+    synchronized long pendingKeywordTime(String keyword) {
+        long latest = latestKeywordTime(pending, keyword);
+        if (committing != null) {
+            latest = Math.max(latest, latestKeywordTime(committing, keyword));
+        }
+        return latest;
+    }
+    synchronized String getStats() {
+        return "pending=" + pending.size() + ", queued=" + queuedCount
+                + ", applied=" + appliedCount + ", flushes=" + flushCount;
+    }
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            flusher.execute(this::flush);
+        }
+    }
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+    @Override
+    public void onLowMemory() {
+        flusher.execute(this::flush);
+    }
+    private PendingWrite findPending(String url) {
+        PendingWrite write = pending.get(url);
+        if (write == null && committing != null) {
+            write = committing.get(url);
+        }
+        return write;
+    }
+    private static long latestKeywordTime(Map<String, PendingWrite> writes, String keyword) {
+        long latest = 0;
+        for (PendingWrite write : writes.values()) {
+            Long linkedAt = write.keywords.get(keyword);
+            if (linkedAt != null && linkedAt > latest) {
+                latest = linkedAt;
+            }
+        }
+        return latest;
+    }
+    // A later write replaces the metadata but must not drop a body an earlier write carried
+    private static NewsArticle merge(NewsArticle earlier, NewsArticle later) {
+        if (hasBody(later) || !hasBody(earlier)) {
+            return later;
+        }
+        return new NewsArticle(later.getTitle(), later.getAbstract(), later.getUrl(),
+                later.getSection(), later.getPublishedDate(), earlier.getFullBodyText());
+    }
+    private void releaseStatements() {
+        SQLiteStatement[] statements = {updateStatement, updateWithBodyStatement, insertStatement,
+                findIdStatement, linkKeywordStatement, indexBodyStatement, markReadStatement};
+        for (SQLiteStatement statement : statements) {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (RuntimeException ignored) {
+                }
+            }
+        }
+        updateStatement = null;
+        updateWithBodyStatement = null;
+        insertStatement = null;
+        findIdStatement = null;
+        linkKeywordStatement = null;
+        indexBodyStatement = null;
+        markReadStatement = null;
+    }
+    private void compileStatements(SQLiteDatabase db) {
+        if (updateStatement != null) {
+            return;
+        }
+        String metadata = DatabaseHelper.COLUMN_TITLE + " = ?, "
+                + DatabaseHelper.COLUMN_ABSTRACT + " = ?, "
+                + DatabaseHelper.COLUMN_SECTION + " = ?, "
+                + DatabaseHelper.COLUMN_PUBLISHED_DATE + " = ?, "
+                + DatabaseHelper.COLUMN_UPDATED_AT + " = ?";
+        updateStatement = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_NEWS
+                + " SET " + metadata
+                + " WHERE " + DatabaseHelper.COLUMN_URL + " = ?");
+        updateWithBodyStatement = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_NEWS
+                + " SET " + metadata + ", " + DatabaseHelper.COLUMN_BODY + " = ?"
+                + " WHERE " + DatabaseHelper.COLUMN_URL + " = ?");
+        insertStatement = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_NEWS + "("
+                + DatabaseHelper.COLUMN_TITLE + ", "
+                + DatabaseHelper.COLUMN_ABSTRACT + ", "
+                + DatabaseHelper.COLUMN_SECTION + ", "
+                + DatabaseHelper.COLUMN_PUBLISHED_DATE + ", "
+                + DatabaseHelper.COLUMN_UPDATED_AT + ", "
+                + DatabaseHelper.COLUMN_BODY + ", "
+                + DatabaseHelper.COLUMN_URL + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        findIdStatement = db.compileStatement("SELECT " + DatabaseHelper.COLUMN_ID
+                + " FROM " + DatabaseHelper.TABLE_NEWS
+                + " WHERE " + DatabaseHelper.COLUMN_URL + " = ?");
+        linkKeywordStatement = db.compileStatement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS + "("
+                + DatabaseHelper.COLUMN_KEYWORD + ", "
+                + DatabaseHelper.COLUMN_ARTICLE_ID + ", "
+                + DatabaseHelper.COLUMN_UPDATED_AT + ") VALUES (?, ?, ?)");
+        // Title and abstract reach the FTS table through triggers; the body is stored
+        // compressed, so its plain text is indexed here
+        indexBodyStatement = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_NEWS_FTS
+                + " SET " + DatabaseHelper.COLUMN_BODY + " = ?"
+                + " WHERE " + DatabaseHelper.COLUMN_DOCID + " = ?");
+        markReadStatement = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_NEWS
+                + " SET " + DatabaseHelper.COLUMN_LAST_READ_AT + " = ?"
+                + " WHERE " + DatabaseHelper.COLUMN_URL + " = ?");
+    }
+    // Updates the row in place (the body only when one is supplied), inserts it if the URL
+    // is new and the write allows it, then links it to every queued keyword
+    private boolean apply(PendingWrite write) {
+        NewsArticle article = write.article;
+        byte[] body = hasBody(article) ? TextCompressor.compress(article.getFullBodyText()) : null;
+        SQLiteStatement update = body != null ? updateWithBodyStatement : updateStatement;
+        update.clearBindings();
+        int index = bindMetadata(update, article, write.updatedAt);
+        if (body != null) {
+            update.bindBlob(index++, body);
+        }
+        update.bindString(index, article.getUrl());
+        long id;
+        if (update.executeUpdateDelete() > 0) {
+            id = findId(article.getUrl());
+        } else if (write.insertIfMissing) {
+            insertStatement.clearBindings();
+            index = bindMetadata(insertStatement, article, write.updatedAt);
+            if (body != null) {
+                insertStatement.bindBlob(index, body);
+            } else {
+                insertStatement.bindNull(index);
+            }
+            insertStatement.bindString(index + 1, article.getUrl());
+            id = insertStatement.executeInsert();
+        } else {
+            return false;
+        }
+        if (id == -1) {
+            return false;
+        }
+        if (body != null) {
+            indexBodyStatement.clearBindings();
+            indexBodyStatement.bindString(1, article.getFullBodyText());
+            indexBodyStatement.bindLong(2, id);
+            indexBodyStatement.executeUpdateDelete();
+        }
+        for (Map.Entry<String, Long> keyword : write.keywords.entrySet()) {
+            linkKeywordStatement.clearBindings();
+            linkKeywordStatement.bindString(1, keyword.getKey());
+            linkKeywordStatement.bindLong(2, id);
+            linkKeywordStatement.bindLong(3, keyword.getValue());
+            linkKeywordStatement.executeInsert();
+        }
+        return true;
+    }
+    private long findId(String url) {
+        findIdStatement.clearBindings();
+        findIdStatement.bindString(1, url);
+        try {
+            return findIdStatement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        }
+    }
+    private static int bindMetadata(SQLiteStatement statement, NewsArticle article, long updatedAt) {
+        bindNullable(statement, 1, article.getTitle());
+        bindNullable(statement, 2, article.getAbstract());
+        bindNullable(statement, 3, article.getSection());
+        bindNullable(statement, 4, article.getPublishedDate());
+        statement.bindLong(5, updatedAt);
+        return 6;
+    }
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+    private static boolean hasBody(NewsArticle article) {
+        return article.getFullBodyText() != null && !article.getFullBodyText().isEmpty();
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.aipodcast.database.dao;
+import android.content.Context;
+import android.util.Log;
+import com.example.aipodcast.model.NewsArticle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+/**
+ * In-memory LRU in front of a {@link NewsDao}. Articles are bounded by their estimated
+ * size in bytes (bodies dominate), and a small keyword index remembers which URLs a
+ * keyword search returned so repeated searches never touch SQLite.
+ */
+public class CachingNewsDao implements NewsDao {
+    private static final String TAG = "CachingNewsDao";
+    private static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_KEYWORDS = 32;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static CachingNewsDao sInstance;
+    private final NewsDao delegate;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> articles = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<String, List<String>> keywordIndex =
+            new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                    return size() > MAX_KEYWORDS;
+                }
+            };
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private static final class Entry {
+        final NewsArticle article;
+        final boolean bodyLoaded;
+        final int bytes;
+        Entry(NewsArticle article, boolean bodyLoaded) {
+            this.article = article;
+            this.bodyLoaded = bodyLoaded;
+            this.bytes = estimateBytes(article);
+        }
+    }
+    public static synchronized CachingNewsDao getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new CachingNewsDao(new SqliteNewsDao(context.getApplicationContext()), DEFAULT_MAX_BYTES);
+        }
+        return sInstance;
+    }
+    public CachingNewsDao(NewsDao delegate, long maxBytes) {
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+    }
+    @Override
+    public long insertArticle(NewsArticle article, String keyword) {
+        long id = delegate.insertArticle(article, keyword);
+        if (id != -1) {
+            synchronized (this) {
+                putArticle(article, hasBody(article));
+                addToKeywordIndex(keyword, Collections.singletonList(article));
+            }
+        }
+        return id;
+    }
+    @Override
+    public int insertArticles(List<NewsArticle> articles, String keyword) {
+        int count = delegate.insertArticles(articles, keyword);
+        if (count > 0) {
+            synchronized (this) {
+                for (NewsArticle article : articles) {
+                    putArticle(article, hasBody(article));
+                }
+                addToKeywordIndex(keyword, articles);
+            }
+        }
+        return count;
+    }
+    @Override
+    public List<NewsArticle> searchArticles(String keyword) {
+        synchronized (this) {
+            List<String> urls = keywordIndex.get(keyword);
+            if (urls != null) {
+                List<NewsArticle> result = new ArrayList<>(urls.size());
+                for (String url : urls) {
+                    Entry entry = articles.get(url);
+                    if (entry == null) {
+                        result = null;
+                        break;
+                    }
+                    result.add(entry.article);
+                }
+                if (result != null) {
+                    hits++;
+                    return result;
+                }
+            }
+            misses++;
+        }
+        List<NewsArticle> loaded = delegate.searchArticles(keyword);
+        synchronized (this) {
+            List<String> urls = new ArrayList<>(loaded.size());
+            for (NewsArticle article : loaded) {
+                urls.add(article.getUrl());
+                if (!articles.containsKey(article.getUrl())) {
+                    putArticle(article, false);
+                }
+            }
+            keywordIndex.put(keyword, urls);
+        }
+        return loaded;
+    }
+    @Override
+    public List<NewsArticle> searchArticlesFullText(String query, int limit) {
+        // Ranked ad-hoc queries are not worth indexing in memory
+        return delegate.searchArticlesFullText(query, limit);
+    }
+    @Override
+    public NewsArticle getArticleByUrl(String url) {
+        synchronized (this) {
+            Entry entry = articles.get(url);
+            if (entry != null) {
+                hits++;
+                return entry.article;
+            }
+            misses++;
+        }
+        NewsArticle article = delegate.getArticleByUrl(url);
+        if (article != null) {
+            synchronized (this) {
+                if (!articles.containsKey(url)) {
+                    putArticle(article, false);
+                }
+            }
+        }
+        return article;
+    }
+    @Override
+    public NewsArticle getArticleWithBody(String url) {
+        NewsArticle summary = null;
+        synchronized (this) {
+            Entry entry = articles.get(url);
+            if (entry != null && entry.bodyLoaded) {
+                hits++;
+                delegate.markArticlesRead(Collections.singletonList(url));
+                return entry.article;
+            }
+            if (entry != null) {
+                summary = entry.article;
+            }
+            misses++;
+        }
+        NewsArticle article;
+        if (summary != null) {
+            // A list row is already cached; only the body has to come from disk
+            article = new NewsArticle(summary.getTitle(), summary.getAbstract(), summary.getUrl(),
+                    summary.getSection(), summary.getPublishedDate(), delegate.getArticleBody(url));
+        } else {
+            article = delegate.getArticleWithBody(url);
+        }
+        if (article != null) {
+            synchronized (this) {
+                putArticle(article, true);
+            }
+        }
+        return article;
+    }
+    @Override
+    public String getArticleBody(String url) {
+        synchronized (this) {
+            Entry entry = articles.get(url);
+            if (entry != null && entry.bodyLoaded) {
+                hits++;
+                delegate.markArticlesRead(Collections.singletonList(url));
+                return entry.article.getFullBodyText();
+            }
+        }
+        return delegate.getArticleBody(url);
+    }
+    @Override
+    public int updateArticle(NewsArticle article) {
+        int rows = delegate.updateArticle(article);
+        synchronized (this) {
+            removeArticle(article.getUrl());
+            // The ordering of any keyword list holding this URL may have changed
+            Iterator<List<String>> lists = keywordIndex.values().iterator();
+            while (lists.hasNext()) {
+                if (lists.next().contains(article.getUrl())) {
+                    lists.remove();
+                }
+            }
+            if (rows > 0 && hasBody(article)) {
+                putArticle(article, true);
+            }
+        }
+        return rows;
+    }
+    @Override
+    public int deleteOldArticles(int keepCount) {
+        int rows = delegate.deleteOldArticles(keepCount);
+        if (rows > 0) {
+            clear();
+        }
+        return rows;
+    }
+    @Override
+    public int deleteArticlesByKeyword(String keyword) {
+        int rows = delegate.deleteArticlesByKeyword(keyword);
+        synchronized (this) {
+            List<String> urls = keywordIndex.remove(keyword);
+            if (urls != null) {
+                // Articles shared with other keywords survive in the database; dropping them
+                // here only makes those keywords reload their lists from disk
+                for (String url : urls) {
+                    removeArticle(url);
+                }
+            } else if (rows > 0) {
+                // Without an index entry we cannot tell which cached rows were deleted
+                articles.clear();
+                currentBytes = 0;
+            }
+        }
+        return rows;
+    }
+    @Override
+    public int deleteAllArticles() {
+        int rows = delegate.deleteAllArticles();
+        clear();
+        return rows;
+    }
+    @Override
+    public boolean hasCachedArticles(String keyword) {
+        synchronized (this) {
+            List<String> urls = keywordIndex.get(keyword);
+            if (urls != null) {
+                return !urls.isEmpty();
+            }
+        }
+        return delegate.hasCachedArticles(keyword);
+    }
+    @Override
+    public long getLastUpdateTime(String keyword) {
+        return delegate.getLastUpdateTime(keyword);
+    }
+    @Override
+    public void markArticlesRead(Collection<String> urls) {
+        delegate.markArticlesRead(urls);
+    }
+    @Override
+    public int enforceRetention(long maxBytes, long maxAgeMs) {
+        int rows = delegate.enforceRetention(maxBytes, maxAgeMs);
+        // Expired keyword links leave no trace in the row count, so always start over
+        clear();
+        return rows;
+    }
+    public synchronized void clear() {
+        articles.clear();
+        keywordIndex.clear();
+        currentBytes = 0;
+    }
+    public synchronized String getStats() {
+        return "articles=" + articles.size() + ", bytes=" + currentBytes + "/" + maxBytes
+                + ", keywords=" + keywordIndex.size() + ", hits=" + hits + ", misses=" + misses;
+    }
+    // Mirrors the article_keywords table: inserting under one keyword adds to that
+    // keyword's list only, and lists stay newest first
+    private void addToKeywordIndex(String keyword, List<NewsArticle> inserted) {
+        Set<String> insertedUrls = new HashSet<>();
+        for (NewsArticle article : inserted) {
+            insertedUrls.add(article.getUrl());
+        }
+        List<String> urls = keywordIndex.get(keyword);
+        if (urls == null) {
+            return;
+        }
+        for (String url : insertedUrls) {
+            if (!urls.contains(url)) {
+                urls.add(url);
+            }
+        }
+        for (String url : urls) {
+            if (!articles.containsKey(url)) {
+                // Cannot order a list whose articles were evicted; rebuild it from disk next time
+                keywordIndex.remove(keyword);
+                return;
+            }
+        }
+        urls.sort((u1, u2) -> {
+            String d1 = articles.get(u1).article.getPublishedDate();
+            String d2 = articles.get(u2).article.getPublishedDate();
+            if (d1 == null || d2 == null) {
+                return d1 == null ? (d2 == null ? 0 : 1) : -1;
+            }
+            return d2.compareTo(d1);
+        });
+    }
+    private void putArticle(NewsArticle article, boolean bodyLoaded) {
+        if (article == null || article.getUrl() == null) {
+            return;
+        }
+        Entry entry = new Entry(article, bodyLoaded);
+        if (entry.bytes > maxBytes) {
+            removeArticle(article.getUrl());
+            return;
+        }
+        Entry previous = articles.put(article.getUrl(), entry);
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += entry.bytes;
+        trimToSize();
+    }
+    private void removeArticle(String url) {
+        Entry removed = articles.remove(url);
+        if (removed != null) {
+            currentBytes -= removed.bytes;
+        }
+    }
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = articles.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            currentBytes -= eldest.getValue().bytes;
+            iterator.remove();
+            Log.d(TAG, "Evicted article from memory cache: " + eldest.getKey());
+        }
+    }
+    private static boolean hasBody(NewsArticle article) {
+        return article.getFullBodyText() != null && !article.getFullBodyText().isEmpty();
+    }
+    private static int estimateBytes(NewsArticle article) {
+        long chars = length(article.getTitle()) + length(article.getAbstract()) + length(article.getUrl())
+                + length(article.getSection()) + length(article.getPublishedDate())
+                + length(article.getFullBodyText());
+        return (int) Math.min(Integer.MAX_VALUE, chars * 2 + ENTRY_OVERHEAD_BYTES);
+    }
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
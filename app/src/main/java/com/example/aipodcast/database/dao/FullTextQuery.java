@@ -0,0 +1,64 @@
+package com.example.aipodcast.database.dao;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+/**
+ * Builds FTS4 MATCH expressions from free-text queries and scores rows with BM25
+ * computed from matchinfo(table, 'pcnalx'), since FTS4 has no built-in ranking.
+ */
+final class FullTextQuery {
+    static final String MATCHINFO_FORMAT = "pcnalx";
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TOKENS = 8;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private FullTextQuery() {
+    }
+    // Every token becomes a prefix term; only letters and digits survive, so user input
+    // can never inject FTS operators. Returns null when nothing searchable is left.
+    static String toMatchExpression(String query, boolean matchAny) {
+        if (query == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : TOKEN_SPLIT.split(query.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && terms.size() < MAX_TOKENS) {
+                terms.add(token + "*");
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return String.join(matchAny ? " OR " : " ", terms);
+    }
+    static double bm25(byte[] matchinfo, double[] columnWeights) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        long rows = buffer.getInt(8) & 0xffffffffL;
+        int averageOffset = 12;
+        int lengthOffset = averageOffset + columns * 4;
+        int hitsOffset = lengthOffset + columns * 4;
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                double weight = c < columnWeights.length ? columnWeights[c] : 1.0;
+                int base = hitsOffset + (3 * (p * columns + c)) * 4;
+                long termFrequency = buffer.getInt(base) & 0xffffffffL;
+                long documentFrequency = buffer.getInt(base + 8) & 0xffffffffL;
+                if (termFrequency == 0 || weight == 0) {
+                    continue;
+                }
+                double averageLength = Math.max(1, buffer.getInt(averageOffset + c * 4) & 0xffffffffL);
+                double length = buffer.getInt(lengthOffset + c * 4) & 0xffffffffL;
+                double idf = Math.log(1 + (rows - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                double norm = K1 * (1 - B + B * length / averageLength);
+                score += weight * idf * (termFrequency * (K1 + 1)) / (termFrequency + norm);
+            }
+        }
+        return score;
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.aipodcast.database.dao;
 import com.example.aipodcast.model.NewsArticle;
+import java.util.Collection;
 import java.util.List;
+// Writes may be applied asynchronously: insertArticle returns -1 only for rejected input,
+// and the insert/update counts are the writes accepted rather than rows changed.
 public interface NewsDao {
     long insertArticle(NewsArticle article, String keyword);
     int insertArticles(List<NewsArticle> articles, String keyword);
     List<NewsArticle> searchArticles(String keyword);
+    List<NewsArticle> searchArticlesFullText(String query, int limit);
     NewsArticle getArticleByUrl(String url);
+    NewsArticle getArticleWithBody(String url);
+    String getArticleBody(String url);
     int updateArticle(NewsArticle article);
     int deleteOldArticles(int keepCount);
     int deleteArticlesByKeyword(String keyword);
     int deleteAllArticles();
     boolean hasCachedArticles(String keyword);
     long getLastUpdateTime(String keyword);
+    void markArticlesRead(Collection<String> urls);
+    int enforceRetention(long maxBytes, long maxAgeMs);
 } 
\ No newline at end of file
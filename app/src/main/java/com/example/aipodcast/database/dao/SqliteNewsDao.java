@@ -1,83 +1,83 @@
 package com.example.aipodcast.database.dao;
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 import com.example.aipodcast.database.DatabaseHelper;
 import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.util.TextCompressor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 public class SqliteNewsDao implements NewsDao {
     private static final String TAG = "SqliteNewsDao";
+    // BM25 weights for the title, abstract and body columns of the FTS table
+    private static final double[] FULL_TEXT_COLUMN_WEIGHTS = {4.0, 2.0, 1.0};
+    private static final int EVICTION_BATCH_SIZE = 25;
+    // List queries never read the body column, so their memory does not depend on body size
+    private static final String[] SUMMARY_COLUMNS = {
+            DatabaseHelper.COLUMN_TITLE,
+            DatabaseHelper.COLUMN_ABSTRACT,
+            DatabaseHelper.COLUMN_URL,
+            DatabaseHelper.COLUMN_SECTION,
+            DatabaseHelper.COLUMN_PUBLISHED_DATE
+    };
+    private static final String[] SUMMARY_WITH_BODY_COLUMNS = withColumn(SUMMARY_COLUMNS, DatabaseHelper.COLUMN_BODY);
+    private static final String[] SUMMARY_WITH_ID_COLUMNS = withColumn(SUMMARY_COLUMNS, DatabaseHelper.COLUMN_ID);
+    private static final String SUMMARY_SELECT_JOINED = "n." + String.join(", n.", SUMMARY_COLUMNS);
+    private static final int MAX_EVICTION_ROUNDS = 200;
     private final DatabaseHelper dbHelper;
+    private final ArticleWriteQueue writeQueue;
     public SqliteNewsDao(Context context) {
         this.dbHelper = DatabaseHelper.getInstance(context);
+        this.writeQueue = new ArticleWriteQueue(context, dbHelper);
     }
     @Override
     public long insertArticle(NewsArticle article, String keyword) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        long id = -1;
-        try {
-            ContentValues values = createContentValues(article, keyword);
-            id = db.insertWithOnConflict(
-                    DatabaseHelper.TABLE_NEWS,
-                    null,
-                    values,
-                    SQLiteDatabase.CONFLICT_REPLACE);
-        } catch (Exception e) {
-            Log.e(TAG, "Error inserting article: " + e.getMessage());
+        if (article == null || article.getUrl() == null) {
+            return -1;
         }
-        return id;
+        writeQueue.enqueue(article, keyword, true);
+        return 0;
     }
     @Override
     public int insertArticles(List<NewsArticle> articles, String keyword) {
         if (articles == null || articles.isEmpty()) {
             return 0;
         }
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
         int count = 0;
-        try {
-            db.beginTransaction();
-            for (NewsArticle article : articles) {
-                ContentValues values = createContentValues(article, keyword);
-                long id = db.insertWithOnConflict(
-                        DatabaseHelper.TABLE_NEWS,
-                        null,
-                        values,
-                        SQLiteDatabase.CONFLICT_REPLACE);
-                if (id != -1) {
-                    count++;
-                }
+        for (NewsArticle article : articles) {
+            if (article != null && article.getUrl() != null) {
+                writeQueue.enqueue(article, keyword, true);
+                count++;
             }
-            db.setTransactionSuccessful();
-        } catch (Exception e) {
-            Log.e(TAG, "Error batch inserting articles: " + e.getMessage());
-        } finally {
-            db.endTransaction();
         }
         return count;
     }
     @Override
     public List<NewsArticle> searchArticles(String keyword) {
+        if (writeQueue.hasPendingKeyword(keyword)) {
+            writeQueue.flush();
+        }
         List<NewsArticle> articles = new ArrayList<>();
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        String selection = DatabaseHelper.COLUMN_KEYWORD + " = ?";
-        String[] selectionArgs = {keyword};
-        String orderBy = DatabaseHelper.COLUMN_PUBLISHED_DATE + " DESC";
+        String query = "SELECT " + SUMMARY_SELECT_JOINED + " FROM " + DatabaseHelper.TABLE_NEWS + " n"
+                + " JOIN " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS + " k"
+                + " ON k." + DatabaseHelper.COLUMN_ARTICLE_ID + " = n." + DatabaseHelper.COLUMN_ID
+                + " WHERE k." + DatabaseHelper.COLUMN_KEYWORD + " = ?"
+                + " ORDER BY n." + DatabaseHelper.COLUMN_PUBLISHED_DATE + " DESC";
         Cursor cursor = null;
         try {
-            cursor = db.query(
-                    DatabaseHelper.TABLE_NEWS,
-                    null,
-                    selection,
-                    selectionArgs,
-                    null,
-                    null,
-                    orderBy);
+            cursor = db.rawQuery(query, new String[]{keyword});
             if (cursor != null && cursor.moveToFirst()) {
+                SummaryColumns columns = new SummaryColumns(cursor);
                 do {
-                    articles.add(cursorToArticle(cursor));
+                    articles.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -90,7 +90,40 @@ public class SqliteNewsDao implements NewsDao {
         return articles;
     }
     @Override
+    public List<NewsArticle> searchArticlesFullText(String query, int limit) {
+        List<NewsArticle> articles = new ArrayList<>();
+        String allTerms = FullTextQuery.toMatchExpression(query, false);
+        if (allTerms == null || limit <= 0) {
+            return articles;
+        }
+        if (!writeQueue.isEmpty()) {
+            writeQueue.flush();
+        }
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> ids = rankFullTextMatches(db, allTerms, limit);
+            if (ids.isEmpty()) {
+                // Nothing matches every term; settle for rows matching any of them
+                String anyTerm = FullTextQuery.toMatchExpression(query, true);
+                if (!anyTerm.equals(allTerms)) {
+                    ids = rankFullTextMatches(db, anyTerm, limit);
+                }
+            }
+            articles = loadArticlesInOrder(db, ids);
+            Log.d(TAG, "Full-text search for '" + query + "' returned " + articles.size()
+                    + " articles in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            Log.e(TAG, "Error in full-text search: " + e.getMessage());
+        }
+        return articles;
+    }
+    @Override
     public NewsArticle getArticleByUrl(String url) {
+        NewsArticle pending = writeQueue.getPendingArticle(url);
+        if (pending != null) {
+            return pending;
+        }
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         NewsArticle article = null;
         String selection = DatabaseHelper.COLUMN_URL + " = ?";
@@ -99,7 +132,7 @@ public class SqliteNewsDao implements NewsDao {
         try {
             cursor = db.query(
                     DatabaseHelper.TABLE_NEWS,
-                    null,
+                    SUMMARY_COLUMNS,
                     selection,
                     selectionArgs,
                     null,
@@ -107,7 +140,7 @@ public class SqliteNewsDao implements NewsDao {
                     null,
                     "1");
             if (cursor != null && cursor.moveToFirst()) {
-                article = cursorToArticle(cursor);
+                article = new SummaryColumns(cursor).read(cursor);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error getting article by URL: " + e.getMessage());
@@ -119,30 +152,80 @@ public class SqliteNewsDao implements NewsDao {
         return article;
     }
     @Override
-    public int updateArticle(NewsArticle article) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        int rowsAffected = 0;
+    public NewsArticle getArticleWithBody(String url) {
+        NewsArticle pending = writeQueue.getPendingArticle(url);
+        if (pending != null && pending.getFullBodyText() != null && !pending.getFullBodyText().isEmpty()) {
+            writeQueue.markRead(Collections.singletonList(url));
+            return pending;
+        }
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        NewsArticle article = null;
+        String selection = DatabaseHelper.COLUMN_URL + " = ?";
+        String[] selectionArgs = {url};
+        Cursor cursor = null;
         try {
-            ContentValues values = new ContentValues();
-            values.put(DatabaseHelper.COLUMN_TITLE, article.getTitle());
-            values.put(DatabaseHelper.COLUMN_ABSTRACT, article.getAbstract());
-            values.put(DatabaseHelper.COLUMN_SECTION, article.getSection());
-            values.put(DatabaseHelper.COLUMN_PUBLISHED_DATE, article.getPublishedDate());
-            values.put(DatabaseHelper.COLUMN_UPDATED_AT, System.currentTimeMillis());
-            String whereClause = DatabaseHelper.COLUMN_URL + " = ?";
-            String[] whereArgs = {article.getUrl()};
-            rowsAffected = db.update(
+            cursor = db.query(
                     DatabaseHelper.TABLE_NEWS,
-                    values,
-                    whereClause,
-                    whereArgs);
+                    SUMMARY_WITH_BODY_COLUMNS,
+                    selection,
+                    selectionArgs,
+                    null,
+                    null,
+                    null,
+                    "1");
+            if (cursor != null && cursor.moveToFirst()) {
+                article = new SummaryColumns(cursor).read(cursor);
+                byte[] body = cursor.getBlob(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_BODY));
+                article.setFullBodyText(TextCompressor.decompress(body));
+                writeQueue.markRead(Collections.singletonList(url));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting article with body by URL: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return article;
+    }
+    @Override
+    public String getArticleBody(String url) {
+        NewsArticle pending = writeQueue.getPendingArticle(url);
+        if (pending != null && pending.getFullBodyText() != null && !pending.getFullBodyText().isEmpty()) {
+            writeQueue.markRead(Collections.singletonList(url));
+            return pending.getFullBodyText();
+        }
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String body = "";
+        try (Cursor cursor = db.query(
+                DatabaseHelper.TABLE_NEWS,
+                new String[]{DatabaseHelper.COLUMN_BODY},
+                DatabaseHelper.COLUMN_URL + " = ?",
+                new String[]{url},
+                null,
+                null,
+                null,
+                "1")) {
+            if (cursor.moveToFirst()) {
+                body = TextCompressor.decompress(cursor.getBlob(0));
+                writeQueue.markRead(Collections.singletonList(url));
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Error updating article: " + e.getMessage());
+            Log.e(TAG, "Error getting article body by URL: " + e.getMessage());
         }
-        return rowsAffected;
+        return body;
+    }
+    @Override
+    public int updateArticle(NewsArticle article) {
+        if (article == null || article.getUrl() == null) {
+            return 0;
+        }
+        writeQueue.enqueue(article, null, false);
+        return 1;
     }
     @Override
     public int deleteOldArticles(int keepCount) {
+        writeQueue.flush();
         SQLiteDatabase db = dbHelper.getWritableDatabase();
         long rowsDeleted = 0;
         try {
@@ -161,33 +244,56 @@ public class SqliteNewsDao implements NewsDao {
     }
     @Override
     public int deleteArticlesByKeyword(String keyword) {
+        writeQueue.flush();
         SQLiteDatabase db = dbHelper.getWritableDatabase();
         int rowsDeleted = 0;
         try {
-            String whereClause = DatabaseHelper.COLUMN_KEYWORD + " = ?";
-            String[] whereArgs = {keyword};
+            db.beginTransaction();
+            // Only articles that no other keyword still refers to are removed
+            String whereClause = DatabaseHelper.COLUMN_ID + " IN (SELECT " + DatabaseHelper.COLUMN_ARTICLE_ID
+                    + " FROM " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS
+                    + " WHERE " + DatabaseHelper.COLUMN_KEYWORD + " = ?)"
+                    + " AND " + DatabaseHelper.COLUMN_ID + " NOT IN (SELECT " + DatabaseHelper.COLUMN_ARTICLE_ID
+                    + " FROM " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS
+                    + " WHERE " + DatabaseHelper.COLUMN_KEYWORD + " != ?)";
             rowsDeleted = db.delete(
                     DatabaseHelper.TABLE_NEWS,
                     whereClause,
-                    whereArgs);
+                    new String[]{keyword, keyword});
+            db.delete(
+                    DatabaseHelper.TABLE_ARTICLE_KEYWORDS,
+                    DatabaseHelper.COLUMN_KEYWORD + " = ?",
+                    new String[]{keyword});
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Error deleting articles by keyword: " + e.getMessage());
+        } finally {
+            db.endTransaction();
         }
         return rowsDeleted;
     }
     @Override
     public int deleteAllArticles() {
+        writeQueue.flush();
         SQLiteDatabase db = dbHelper.getWritableDatabase();
         int rowsDeleted = 0;
         try {
+            db.beginTransaction();
+            db.delete(DatabaseHelper.TABLE_ARTICLE_KEYWORDS, null, null);
             rowsDeleted = db.delete(DatabaseHelper.TABLE_NEWS, null, null);
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Error deleting all articles: " + e.getMessage());
+        } finally {
+            db.endTransaction();
         }
         return rowsDeleted;
     }
     @Override
     public boolean hasCachedArticles(String keyword) {
+        if (writeQueue.hasPendingKeyword(keyword)) {
+            return true;
+        }
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         boolean hasArticles = false;
         String selection = DatabaseHelper.COLUMN_KEYWORD + " = ?";
@@ -195,7 +301,7 @@ public class SqliteNewsDao implements NewsDao {
         Cursor cursor = null;
         try {
             cursor = db.query(
-                    DatabaseHelper.TABLE_NEWS,
+                    DatabaseHelper.TABLE_ARTICLE_KEYWORDS,
                     new String[]{"COUNT(*)"},
                     selection,
                     selectionArgs,
@@ -220,18 +326,16 @@ public class SqliteNewsDao implements NewsDao {
         long lastUpdateTime = 0;
         String selection = DatabaseHelper.COLUMN_KEYWORD + " = ?";
         String[] selectionArgs = {keyword};
-        String orderBy = DatabaseHelper.COLUMN_UPDATED_AT + " DESC";
         Cursor cursor = null;
         try {
             cursor = db.query(
-                    DatabaseHelper.TABLE_NEWS,
-                    new String[]{DatabaseHelper.COLUMN_UPDATED_AT},
+                    DatabaseHelper.TABLE_ARTICLE_KEYWORDS,
+                    new String[]{"MAX(" + DatabaseHelper.COLUMN_UPDATED_AT + ")"},
                     selection,
                     selectionArgs,
                     null,
                     null,
-                    orderBy,
-                    "1");
+                    null);
             if (cursor != null && cursor.moveToFirst()) {
                 lastUpdateTime = cursor.getLong(0);
             }
@@ -242,25 +346,162 @@ public class SqliteNewsDao implements NewsDao {
                 cursor.close();
             }
         }
-        return lastUpdateTime;
+        return Math.max(lastUpdateTime, writeQueue.pendingKeywordTime(keyword));
+    }
+    @Override
+    public void markArticlesRead(Collection<String> urls) {
+        if (urls != null && !urls.isEmpty()) {
+            writeQueue.markRead(urls);
+        }
+    }
+    // Expires keyword links older than maxAgeMs, drops articles no keyword refers to that
+    // have not been read or refreshed since, then evicts the least recently read articles
+    // until the pages in use fit maxBytes. Freed pages are left for incremental vacuum.
+    @Override
+    public int enforceRetention(long maxBytes, long maxAgeMs) {
+        writeQueue.flush();
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        String cutoff = String.valueOf(System.currentTimeMillis() - maxAgeMs);
+        int expiredLinks = 0;
+        int evicted = 0;
+        try {
+            db.beginTransactionNonExclusive();
+            expiredLinks = db.delete(
+                    DatabaseHelper.TABLE_ARTICLE_KEYWORDS,
+                    DatabaseHelper.COLUMN_UPDATED_AT + " < ?",
+                    new String[]{cutoff});
+            String unreferenced = DatabaseHelper.COLUMN_ID + " NOT IN (SELECT " + DatabaseHelper.COLUMN_ARTICLE_ID
+                    + " FROM " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS + ")"
+                    + " AND " + DatabaseHelper.COLUMN_LAST_READ_AT + " < ?"
+                    + " AND (typeof(" + DatabaseHelper.COLUMN_UPDATED_AT + ") != 'integer'"
+                    + " OR " + DatabaseHelper.COLUMN_UPDATED_AT + " < ?)";
+            evicted = db.delete(DatabaseHelper.TABLE_NEWS, unreferenced, new String[]{cutoff, cutoff});
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error expiring old articles: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+        }
+        int overBudget = 0;
+        try {
+            String leastRecentlyRead = DatabaseHelper.COLUMN_ID + " IN (SELECT " + DatabaseHelper.COLUMN_ID
+                    + " FROM " + DatabaseHelper.TABLE_NEWS
+                    + " ORDER BY " + DatabaseHelper.COLUMN_LAST_READ_AT + " ASC, "
+                    + DatabaseHelper.COLUMN_PUBLISHED_DATE + " ASC"
+                    + " LIMIT " + EVICTION_BATCH_SIZE + ")";
+            for (int round = 0; round < MAX_EVICTION_ROUNDS && getUsedBytes(db) > maxBytes; round++) {
+                // One transaction per batch, so an article goes together with its keyword and FTS rows
+                int deleted;
+                db.beginTransactionNonExclusive();
+                try {
+                    deleted = db.delete(DatabaseHelper.TABLE_NEWS, leastRecentlyRead, null);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                if (deleted == 0) {
+                    break;
+                }
+                overBudget += deleted;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error evicting articles over budget: " + e.getMessage());
+        }
+        Log.i(TAG, "Retention expired " + expiredLinks + " keyword links and removed "
+                + evicted + " stale and " + overBudget + " least recently read articles");
+        return evicted + overBudget;
+    }
+    // Deleted rows only move pages to the freelist, so measure the pages still in use
+    private long getUsedBytes(SQLiteDatabase db) {
+        long pageSize = DatabaseUtils.longForQuery(db, "PRAGMA page_size", null);
+        long pageCount = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null);
+        long freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        return (pageCount - freePages) * pageSize;
+    }
+    private List<Long> rankFullTextMatches(SQLiteDatabase db, String matchExpression, int limit) {
+        List<Long> ids = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        String query = "SELECT " + DatabaseHelper.COLUMN_DOCID
+                + ", matchinfo(" + DatabaseHelper.TABLE_NEWS_FTS + ", '" + FullTextQuery.MATCHINFO_FORMAT + "')"
+                + " FROM " + DatabaseHelper.TABLE_NEWS_FTS
+                + " WHERE " + DatabaseHelper.TABLE_NEWS_FTS + " MATCH ?";
+        try (Cursor cursor = db.rawQuery(query, new String[]{matchExpression})) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+                scores.add(FullTextQuery.bm25(cursor.getBlob(1), FULL_TEXT_COLUMN_WEIGHTS));
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<Long> ranked = new ArrayList<>(Math.min(limit, order.size()));
+        for (int i = 0; i < order.size() && i < limit; i++) {
+            ranked.add(ids.get(order.get(i)));
+        }
+        return ranked;
     }
-    private ContentValues createContentValues(NewsArticle article, String keyword) {
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.COLUMN_TITLE, article.getTitle());
-        values.put(DatabaseHelper.COLUMN_ABSTRACT, article.getAbstract());
-        values.put(DatabaseHelper.COLUMN_URL, article.getUrl());
-        values.put(DatabaseHelper.COLUMN_SECTION, article.getSection());
-        values.put(DatabaseHelper.COLUMN_PUBLISHED_DATE, article.getPublishedDate());
-        values.put(DatabaseHelper.COLUMN_KEYWORD, keyword);
-        values.put(DatabaseHelper.COLUMN_UPDATED_AT, System.currentTimeMillis());
-        return values;
+    private List<NewsArticle> loadArticlesInOrder(SQLiteDatabase db, List<Long> ids) {
+        List<NewsArticle> articles = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return articles;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        String[] args = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+            args[i] = String.valueOf(ids.get(i));
+        }
+        Map<Long, NewsArticle> byId = new HashMap<>();
+        try (Cursor cursor = db.query(
+                DatabaseHelper.TABLE_NEWS,
+                SUMMARY_WITH_ID_COLUMNS,
+                DatabaseHelper.COLUMN_ID + " IN (" + placeholders + ")",
+                args,
+                null,
+                null,
+                null)) {
+            int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID);
+            SummaryColumns columns = new SummaryColumns(cursor);
+            while (cursor.moveToNext()) {
+                byId.put(cursor.getLong(idIndex), columns.read(cursor));
+            }
+        }
+        for (Long id : ids) {
+            NewsArticle article = byId.get(id);
+            if (article != null) {
+                articles.add(article);
+            }
+        }
+        return articles;
     }
-    private NewsArticle cursorToArticle(Cursor cursor) {
-        String title = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TITLE));
-        String abstract_ = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ABSTRACT));
-        String url = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_URL));
-        String section = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_SECTION));
-        String publishedDate = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_PUBLISHED_DATE));
-        return new NewsArticle(title, abstract_, url, section, publishedDate);
+    private static String[] withColumn(String[] columns, String extra) {
+        String[] result = Arrays.copyOf(columns, columns.length + 1);
+        result[columns.length] = extra;
+        return result;
+    }
+    // Column indices are resolved once per cursor instead of once per row
+    private static final class SummaryColumns {
+        private final int title;
+        private final int abstract_;
+        private final int url;
+        private final int section;
+        private final int publishedDate;
+        SummaryColumns(Cursor cursor) {
+            title = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TITLE);
+            abstract_ = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ABSTRACT);
+            url = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_URL);
+            section = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_SECTION);
+            publishedDate = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_PUBLISHED_DATE);
+        }
+        NewsArticle read(Cursor cursor) {
+            return new NewsArticle(
+                    cursor.getString(title),
+                    cursor.getString(abstract_),
+                    cursor.getString(url),
+                    cursor.getString(section),
+                    cursor.getString(publishedDate));
+        }
     }
 } 
\ No newline at end of file
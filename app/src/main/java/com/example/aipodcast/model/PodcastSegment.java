@@ -6,6 +6,10 @@ public class PodcastSegment {
     private NewsArticle sourceArticle;
     private int estimatedDuration; // in seconds
     private SegmentType type;
+    private String speaker;
+    // Span of this turn in the streamed transcript, end exclusive; -1 when not streamed
+    private int startOffset = -1;
+    private int endOffset = -1;
 
     // Standard speaking rate constants
     private static final float SLOW_WORDS_PER_SECOND = 2.0f;  // 120 wpm
@@ -128,6 +132,27 @@ public class PodcastSegment {
         this.type = type;
     }
 
+    public String getSpeaker() {
+        return speaker;
+    }
+
+    public void setSpeaker(String speaker) {
+        this.speaker = speaker;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public void setOffsets(int startOffset, int endOffset) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
     /**
      * Force recalculation of the estimated duration
      */
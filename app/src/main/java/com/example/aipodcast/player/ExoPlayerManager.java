@@ -152,6 +152,23 @@ public class ExoPlayerManager {
         player.setMediaItems(mediaQueue);
         player.prepare();
     }
+    // Appends to the current playlist without interrupting what is playing
+    public void addMediaFiles(List<File> files) {
+        List<MediaItem> items = new ArrayList<>();
+        for (File file : files) {
+            if (file.exists()) {
+                items.add(MediaItem.fromUri(Uri.fromFile(file)));
+            }
+        }
+        if (items.isEmpty() || player == null) {
+            return;
+        }
+        mediaQueue.addAll(items);
+        player.addMediaItems(items);
+        if (player.getPlaybackState() == Player.STATE_IDLE) {
+            player.prepare();
+        }
+    }
     public void play() {
         if (player != null) {
             player.setPlayWhenReady(true);
@@ -188,6 +205,14 @@ public class ExoPlayerManager {
             player.seekTo(position);
         }
     }
+    public void seekTo(int itemIndex, long position) {
+        if (player != null && itemIndex >= 0 && itemIndex < player.getMediaItemCount()) {
+            player.seekTo(itemIndex, position);
+        }
+    }
+    public int getCurrentItemIndex() {
+        return player != null ? player.getCurrentMediaItemIndex() : 0;
+    }
     public void setPlaybackSpeed(float speed) {
         if (player != null) {
             player.setPlaybackParameters(player.getPlaybackParameters().withSpeed(speed));
@@ -23,6 +23,9 @@ public class PodcastPlayerController {
         void onError(String errorMessage);
         void onSegmentChanged(int segmentIndex);
         void onPlaybackComplete();
+        // The playlist moved on to another file
+        default void onMediaItemChanged(int itemIndex) {
+        }
     }
     public PodcastPlayerController(Context context, PlayerCallback callback) {
         this.playerCallback = callback;
@@ -56,6 +59,9 @@ public class PodcastPlayerController {
             }
             @Override
             public void onMediaItemTransition(int index) {
+                if (playerCallback != null) {
+                    playerCallback.onMediaItemChanged(index);
+                }
             }
             @Override
             public void onPlaybackComplete() {
@@ -115,6 +121,20 @@ public class PodcastPlayerController {
             return false;
         }
     }
+    // Adds files to the end of the playlist started with playFiles, e.g. as they finish rendering
+    public void appendFiles(List<File> files) {
+        if (exoPlayerManager != null && files != null && !files.isEmpty()) {
+            exoPlayerManager.addMediaFiles(files);
+        }
+    }
+    public void seekTo(int itemIndex, long position) {
+        if (exoPlayerManager != null) {
+            exoPlayerManager.seekTo(itemIndex, position);
+        }
+    }
+    public int getCurrentItemIndex() {
+        return exoPlayerManager != null ? exoPlayerManager.getCurrentItemIndex() : 0;
+    }
     public boolean playPodcast(PodcastContent content) {
         this.podcastContent = content;
         return play();
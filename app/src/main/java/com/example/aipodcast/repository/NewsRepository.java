@@ -1,11 +1,21 @@
 package com.example.aipodcast.repository;
 import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.service.RefreshListener;
+import com.example.aipodcast.util.CancellationToken;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 public interface NewsRepository {
     CompletableFuture<List<NewsArticle>> searchArticles(String keyword);
     CompletableFuture<NewsArticle> getArticleDetails(String url);
+    default CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls) {
+        return getArticleDetailsBatch(urls, CancellationToken.NONE);
+    }
+    CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls, CancellationToken token);
     boolean hasCachedData(String keyword);
+    void addRefreshListener(RefreshListener listener);
+    void removeRefreshListener(RefreshListener listener);
     CompletableFuture<Void> clearCache(String keyword);
     CompletableFuture<Void> clearAllCache();
 } 
\ No newline at end of file
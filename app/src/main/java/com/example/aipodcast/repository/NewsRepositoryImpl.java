@@ -1,21 +1,29 @@
 package com.example.aipodcast.repository;
 import android.content.Context;
 import com.example.aipodcast.database.dao.NewsDao;
-import com.example.aipodcast.database.dao.SqliteNewsDao;
+import com.example.aipodcast.database.dao.CachingNewsDao;
 import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.service.NewsService;
+import com.example.aipodcast.service.NewsServiceWrapper;
+import com.example.aipodcast.service.RefreshListener;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.CancellationToken;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 public class NewsRepositoryImpl implements NewsRepository {
     private final NewsService newsService;
     private final NewsDao newsDao;
     private final Executor dbExecutor;
     public NewsRepositoryImpl(Context context, NewsService newsService) {
+        this(context, newsService, AppScheduler.getInstance());
+    }
+    public NewsRepositoryImpl(Context context, NewsService newsService, AppScheduler scheduler) {
         this.newsService = newsService;
-        this.newsDao = new SqliteNewsDao(context);
-        this.dbExecutor = Executors.newSingleThreadExecutor();
+        this.newsDao = CachingNewsDao.getInstance(context);
+        this.dbExecutor = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
     }
     @Override
     public CompletableFuture<List<NewsArticle>> searchArticles(String keyword) {
@@ -26,10 +34,27 @@ public class NewsRepositoryImpl implements NewsRepository {
         return newsService.getArticleDetails(url);
     }
     @Override
+    public CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls,
+                                                                             CancellationToken token) {
+        return newsService.getArticleDetailsBatch(urls, token);
+    }
+    @Override
     public boolean hasCachedData(String keyword) {
         return newsDao.hasCachedArticles(keyword);
     }
     @Override
+    public void addRefreshListener(RefreshListener listener) {
+        if (newsService instanceof NewsServiceWrapper) {
+            ((NewsServiceWrapper) newsService).addRefreshListener(listener);
+        }
+    }
+    @Override
+    public void removeRefreshListener(RefreshListener listener) {
+        if (newsService instanceof NewsServiceWrapper) {
+            ((NewsServiceWrapper) newsService).removeRefreshListener(listener);
+        }
+    }
+    @Override
     public CompletableFuture<Void> clearCache(String keyword) {
         return CompletableFuture.runAsync(() -> {
             newsDao.deleteArticlesByKeyword(keyword);
@@ -1,16 +1,29 @@
 package com.example.aipodcast.repository;
 import android.content.Context;
+import com.example.aipodcast.database.NewsRetentionManager;
+import com.example.aipodcast.database.dao.CachingNewsDao;
 import com.example.aipodcast.service.GuardianNewsService;
 import com.example.aipodcast.service.NewsService;
 import com.example.aipodcast.service.NewsServiceWrapper;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.HttpClientProvider;
 import com.example.aipodcast.BuildConfig;
 public class NewsRepositoryProvider {
+    private static final long SEARCH_CACHE_TTL_MS = 10 * 60 * 1000;
+    private static final long NEWS_DB_MAX_BYTES = 24L * 1024 * 1024;
+    private static final long NEWS_MAX_AGE_MS = 14L * 24 * 60 * 60 * 1000;
     private static NewsRepository sInstance;
     public static synchronized NewsRepository getRepository(Context context) {
         if (sInstance == null) {
-            NewsService baseNewsService = new GuardianNewsService(BuildConfig.GUARDIAN_API_KEY);
-            NewsService newsService = new NewsServiceWrapper(context.getApplicationContext(), baseNewsService);
-            sInstance = new NewsRepositoryImpl(context.getApplicationContext(), newsService);
+            AppScheduler scheduler = AppScheduler.getInstance();
+            NewsService baseNewsService = new GuardianNewsService(BuildConfig.GUARDIAN_API_KEY, scheduler,
+                    HttpClientProvider.getInstance().getCachingClient(context));
+            NewsServiceWrapper newsService = new NewsServiceWrapper(context.getApplicationContext(),
+                    baseNewsService, scheduler);
+            newsService.setStaleWhileRevalidateTtl(SEARCH_CACHE_TTL_MS);
+            sInstance = new NewsRepositoryImpl(context.getApplicationContext(), newsService, scheduler);
+            new NewsRetentionManager(context, CachingNewsDao.getInstance(context),
+                    NEWS_DB_MAX_BYTES, NEWS_MAX_AGE_MS, scheduler).schedulePeriodic();
         }
         return sInstance;
     }
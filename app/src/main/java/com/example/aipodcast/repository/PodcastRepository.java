@@ -5,6 +5,7 @@ import android.util.Log;
 import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.model.PodcastContent;
 import com.example.aipodcast.model.PodcastSegment;
+import com.example.aipodcast.util.AppScheduler;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -18,7 +19,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 public class PodcastRepository {
     private static final String TAG = "PodcastRepository";
     private static final String PREFS_NAME = "podcast_prefs";
@@ -34,15 +34,15 @@ public class PodcastRepository {
     private PodcastContent currentPodcast;
     public static synchronized PodcastRepository getInstance(Context context) {
         if (instance == null) {
-            instance = new PodcastRepository(context.getApplicationContext());
+            instance = new PodcastRepository(context.getApplicationContext(), AppScheduler.getInstance());
         }
         return instance;
     }
-    private PodcastRepository(Context context) {
+    private PodcastRepository(Context context, AppScheduler scheduler) {
         this.context = context;
         this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         this.gson = new GsonBuilder().create();
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
         File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
         if (!cacheDir.exists()) {
             cacheDir.mkdirs();
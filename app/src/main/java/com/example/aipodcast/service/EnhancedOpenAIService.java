@@ -3,14 +3,25 @@ import android.util.Log;
 import com.example.aipodcast.config.ApiConfig;
 import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.model.PodcastContent;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.AsyncRetryExecutor;
+import com.example.aipodcast.util.CancellationToken;
+import com.example.aipodcast.util.LlmResponseCache;
 import com.example.aipodcast.util.OpenAIHelper;
+import com.example.aipodcast.util.SseDeltaDecoder;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
@@ -19,7 +30,23 @@ public class EnhancedOpenAIService {
     private static final String API_URL = "https://api.openai.com/v1/chat/completions";
     private final String apiKey;
     private final OkHttpClient client;
-    private final ExecutorService executor;
+    private final AppScheduler scheduler;
+    private final Executor promptExecutor;
+    private LlmResponseCache responseCache;
+    private boolean bypassResponseCache = false;
+    // Hedging: launch the fallback model once the primary is slower to first byte than
+    // this percentile of its recent first-byte latencies
+    private static final long DEFAULT_HEDGE_DELAY_MS = 8000;
+    private static final int MIN_LATENCY_SAMPLES = 5;
+    private static final int MAX_LATENCY_SAMPLES = 50;
+    private static final int MIN_SCRIPT_CHARS = 200;
+    private boolean hedgingEnabled = true;
+    private double hedgePercentile = 0.95;
+    private final long[] firstByteLatencies = new long[MAX_LATENCY_SAMPLES];
+    private int latencySampleCount = 0;
+    private final AtomicInteger hedgedRequests = new AtomicInteger();
+    private final AtomicInteger hedgesLaunched = new AtomicInteger();
+    private final AtomicInteger hedgeWins = new AtomicInteger();
     public interface StreamingCallback {
         void onStart();
         void onContent(String content);
@@ -28,38 +55,65 @@ public class EnhancedOpenAIService {
         void onProgress(int progress, String progressMessage);
     }
     public EnhancedOpenAIService(String apiKey) {
+        this(apiKey, AppScheduler.getInstance());
+    }
+    public EnhancedOpenAIService(String apiKey, AppScheduler scheduler) {
         this.apiKey = apiKey;
         this.client = OpenAIHelper.buildOkHttpClient();
-        this.executor = Executors.newCachedThreadPool();
+        this.scheduler = scheduler;
+        this.promptExecutor = scheduler.executor(AppScheduler.Pool.CPU, AppScheduler.Priority.USER);
+    }
+    public void setResponseCache(LlmResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    // Skips cache reads but still stores fresh responses
+    public void setBypassResponseCache(boolean bypass) {
+        this.bypassResponseCache = bypass;
+    }
+    public void setHedgingEnabled(boolean enabled) {
+        this.hedgingEnabled = enabled;
+    }
+    public void setHedgePercentile(double percentile) {
+        this.hedgePercentile = Math.max(0.5, Math.min(0.99, percentile));
+    }
+    public String getHedgeStats() {
+        return "hedge launched " + hedgesLaunched.get() + "/" + hedgedRequests.get()
+                + " requests, won " + hedgeWins.get() + ", delay " + getHedgeDelayMs() + "ms";
     }
     public CompletableFuture<PodcastContent> generatePodcastContent(
             Set<NewsArticle> articles,
             List<String> topics,
             int durationMinutes,
             String podcastTitle) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String prompt = OpenAIHelper.buildPodcastPrompt(articles, topics, durationMinutes);
-                String requestBody = OpenAIHelper.buildRequestBody(prompt, null, 0.7f, false);
-                Request request = new Request.Builder()
-                        .url(API_URL)
-                        .addHeader("Authorization", "Bearer " + apiKey)
-                        .addHeader("Content-Type", "application/json")
-                        .post(RequestBody.create(requestBody, OpenAIHelper.JSON))
-                        .build();
-                String jsonResponse = OpenAIHelper.executeWithRetry(client, request);
-                String content = OpenAIHelper.extractContentFromResponse(jsonResponse);
-                PodcastContent podcastContent = new PodcastContent(podcastTitle, topics);
-                podcastContent.setAIGenerated(true);
-                podcastContent.setSourceText(prompt);
-                podcastContent.processAITranscript(content, OpenAIHelper.SPEAKER_MARKER);
-                return podcastContent;
-            } catch (Exception e) {
-                Log.e(TAG, "Error generating podcast content: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to generate podcast content: " + 
-                        OpenAIHelper.formatErrorMessage(e), e);
-            }
-        }, executor);
+        return generatePodcastContent(articles, topics, durationMinutes, podcastTitle, new CancellationToken());
+    }
+    // Cancelling the token, or the returned future, cancels the request in flight
+    public CompletableFuture<PodcastContent> generatePodcastContent(
+            Set<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            CancellationToken token) {
+        return token.bind(CompletableFuture.supplyAsync(() -> {
+                    token.throwIfCancelled();
+                    return OpenAIHelper.buildPodcastPrompt(articles, topics, durationMinutes);
+                }, promptExecutor)
+                .thenCompose(prompt -> token.bind(executeCompletionAsync(prompt, OpenAIHelper.MODEL_GPT_4, 0.7f,
+                                EnhancedOpenAIService::holdsScript))
+                        .thenApply(jsonResponse -> {
+                            String content = OpenAIHelper.extractContentFromResponse(jsonResponse);
+                            PodcastContent podcastContent = new PodcastContent(podcastTitle, topics);
+                            podcastContent.setAIGenerated(true);
+                            podcastContent.setSourceText(prompt);
+                            podcastContent.processAITranscript(content, OpenAIHelper.SPEAKER_MARKER);
+                            return podcastContent;
+                        }))
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    Log.e(TAG, "Error generating podcast content: " + cause.getMessage(), cause);
+                    throw new RuntimeException("Failed to generate podcast content: " + 
+                            OpenAIHelper.formatErrorMessage(cause), cause);
+                }));
     }
     public CompletableFuture<PodcastContent> generatePodcastContentStreaming(
             Set<NewsArticle> articles,
@@ -67,62 +121,44 @@ public class EnhancedOpenAIService {
             int durationMinutes,
             String podcastTitle,
             StreamingCallback callback) {
-        CompletableFuture<PodcastContent> future = new CompletableFuture<>();
-        executor.submit(() -> {
+        return generatePodcastContentStreaming(articles, topics, durationMinutes, podcastTitle, callback,
+                new CancellationToken());
+    }
+    /**
+     * Cancelling the token, or the returned future, cancels the API call and closes its
+     * stream, so the pool thread reading it is released; the callback hears nothing more.
+     */
+    public CompletableFuture<PodcastContent> generatePodcastContentStreaming(
+            Set<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            StreamingCallback callback,
+            CancellationToken token) {
+        CompletableFuture<PodcastContent> future = token.bind(new CompletableFuture<>());
+        // Holds a network thread for as long as the stream is open
+        scheduler.execute(AppScheduler.Pool.NETWORK, AppScheduler.Priority.USER, () -> {
             StringBuilder fullContent = new StringBuilder();
+            if (token.isCancelled()) {
+                return;
+            }
             try {
                 if (callback != null) {
                     callback.onStart();
                     callback.onProgress(5, "Preparing content generation...");
                 }
                 String prompt = OpenAIHelper.buildPodcastPrompt(articles, topics, durationMinutes);
-                String requestBody = OpenAIHelper.buildRequestBody(prompt, null, 0.7f, true);
-                Request request = new Request.Builder()
-                        .url(API_URL)
-                        .addHeader("Authorization", "Bearer " + apiKey)
-                        .addHeader("Content-Type", "application/json")
-                        .post(RequestBody.create(requestBody, OpenAIHelper.JSON))
-                        .build();
-                if (callback != null) {
-                    callback.onProgress(10, "Connecting to AI service...");
-                }
-                try (okhttp3.Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        String errorBody = response.body() != null ? response.body().string() : "No response body";
-                        throw new IOException("API request failed: " + response.code() + " - " + errorBody);
-                    }
-                    if (response.body() == null) {
-                        throw new IOException("Empty response body");
-                    }
-                    if (callback != null) {
-                        callback.onProgress(20, "Generating content...");
-                    }
-                    try (okhttp3.ResponseBody responseBody = response.body()) {
-                        okio.BufferedSource source = responseBody.source();
-                        String line;
-                        int progressCounter = 0;
-                        int progressPercentBase = 20;
-                        while ((line = source.readUtf8Line()) != null) {
-                            if (line.isEmpty()) continue;
-                            String content = OpenAIHelper.processStreamingChunk(line);
-                            if (content != null) {
-                                fullContent.append(content);
-                                progressCounter++;
-                                if (progressCounter % 10 == 0) {
-                                    int estimatedContentLength = durationMinutes * 150; 
-                                    int currentLength = fullContent.toString().split("\\s+").length;
-                                    int progress = progressPercentBase + 
-                                            (int)(Math.min(currentLength, estimatedContentLength) * 70.0 / estimatedContentLength);
-                                    if (callback != null) {
-                                        callback.onProgress(progress, "Generating content: " + progress + "%");
-                                        callback.onContent(content);
-                                    }
-                                    progressPercentBase = progress;
-                                } else if (callback != null) {
-                                    callback.onContent(content);
-                                }
-                            }
+                String cacheKey = LlmResponseCache.keyFor(
+                        LlmResponseCache.KIND_STREAM, OpenAIHelper.MODEL_GPT_4, 0.7f, prompt);
+                String cached = getCachedResponse(cacheKey);
+                try {
+                    if (cached != null) {
+                        Log.d(TAG, "Streaming response served from response cache");
+                        try (okio.Buffer replay = new okio.Buffer().writeUtf8(cached)) {
+                            readStream(replay, fullContent, durationMinutes, callback, null, token);
                         }
+                    } else {
+                        streamFromApi(prompt, cacheKey, fullContent, durationMinutes, callback, token);
                     }
                     String finalContent = fullContent.toString();
                     if (callback != null) {
@@ -138,6 +174,11 @@ public class EnhancedOpenAIService {
                     }
                     future.complete(podcastContent);
                 } catch (Exception e) {
+                    if (token.isCancelled()) {
+                        Log.d(TAG, "Streaming request cancelled after " + fullContent.length() + " chars");
+                        future.cancel(false);
+                        return;
+                    }
                     Log.e(TAG, "Error in streaming request: " + e.getMessage(), e);
                     future.completeExceptionally(e);
                     if (callback != null) {
@@ -159,33 +200,316 @@ public class EnhancedOpenAIService {
             List<String> topics,
             int durationMinutes,
             String podcastTitle) {
-        return generatePodcastContent(articles, topics, durationMinutes, podcastTitle)
-                .exceptionally(error -> {
+        return generateWithFallback(articles, topics, durationMinutes, podcastTitle, new CancellationToken());
+    }
+    public CompletableFuture<PodcastContent> generateWithFallback(
+            Set<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            CancellationToken token) {
+        if (hedgingEnabled) {
+            return new HedgedGeneration(articles, topics, durationMinutes, podcastTitle, token).start();
+        }
+        return token.bind(generatePodcastContent(articles, topics, durationMinutes, podcastTitle, token)
+                .handle((content, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(content);
+                    }
+                    if (token.isCancelled()) {
+                        throw new CancellationException("Generation cancelled");
+                    }
                     Log.w(TAG, "Primary generation failed, trying fallback model: " + error.getMessage());
-                    try {
-                        String prompt = buildSimplifiedPrompt(articles, topics, durationMinutes);
-                        String requestBody = OpenAIHelper.buildRequestBody(
-                                prompt, "gpt-3.5-turbo", 0.7f, false);
-                        Request request = new Request.Builder()
-                                .url(API_URL)
-                                .addHeader("Authorization", "Bearer " + apiKey)
-                                .addHeader("Content-Type", "application/json")
-                                .post(RequestBody.create(requestBody, OpenAIHelper.JSON))
-                                .build();
-                        String jsonResponse = OpenAIHelper.executeWithRetry(client, request);
-                        String content = OpenAIHelper.extractContentFromResponse(jsonResponse);
-                        PodcastContent podcastContent = new PodcastContent(podcastTitle, topics);
-                        podcastContent.setAIGenerated(true);
-                        podcastContent.setSourceText(prompt);
-                        content = addMarkersIfNeeded(content);
-                        podcastContent.processAITranscript(content, OpenAIHelper.SPEAKER_MARKER);
-                        return podcastContent;
-                    } catch (Exception e) {
-                        Log.e(TAG, "Fallback generation also failed: " + e.getMessage(), e);
-                        throw new RuntimeException("All generation attempts failed: " + 
-                                OpenAIHelper.formatErrorMessage(e), e);
+                    String prompt = buildSimplifiedPrompt(articles, topics, durationMinutes);
+                    return token.bind(executeCompletionAsync(prompt, OpenAIHelper.MODEL_GPT_3_5, 0.7f,
+                                    EnhancedOpenAIService::holdsScript))
+                            .thenApply(jsonResponse -> {
+                                String fallbackContent = addMarkersIfNeeded(
+                                        OpenAIHelper.extractContentFromResponse(jsonResponse));
+                                PodcastContent podcastContent = new PodcastContent(podcastTitle, topics);
+                                podcastContent.setAIGenerated(true);
+                                podcastContent.setSourceText(prompt);
+                                podcastContent.processAITranscript(fallbackContent, OpenAIHelper.SPEAKER_MARKER);
+                                return podcastContent;
+                            })
+                            .exceptionally(fallbackError -> {
+                                Throwable cause = unwrap(fallbackError);
+                                Log.e(TAG, "Fallback generation also failed: " + cause.getMessage(), cause);
+                                throw new RuntimeException("All generation attempts failed: " + 
+                                        OpenAIHelper.formatErrorMessage(cause), cause);
+                            });
+                })
+                .thenCompose(Function.identity()));
+    }
+    private String getCachedResponse(String key) {
+        if (responseCache == null || bypassResponseCache) {
+            return null;
+        }
+        return responseCache.get(key);
+    }
+    private CompletableFuture<String> executeCompletionAsync(String prompt, String model, float temperature,
+                                                             Predicate<String> isCacheable) {
+        return executeCompletionAsync(prompt, model, temperature, isCacheable, null);
+    }
+    // Only responses passing isCacheable are stored, so an empty or truncated reply is not replayed
+    private CompletableFuture<String> executeCompletionAsync(String prompt, String model, float temperature,
+                                                             Predicate<String> isCacheable,
+                                                             Runnable onResponseStarted) {
+        String cacheKey = LlmResponseCache.keyFor(LlmResponseCache.KIND_COMPLETION, model, temperature, prompt);
+        String cached = getCachedResponse(cacheKey);
+        if (cached != null) {
+            Log.d(TAG, "Completion served from response cache");
+            return CompletableFuture.completedFuture(cached);
+        }
+        String requestBody = OpenAIHelper.buildRequestBody(prompt, model, temperature, false);
+        Request request = new Request.Builder()
+                .url(API_URL)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(requestBody, OpenAIHelper.JSON))
+                .build();
+        // Completions have no side effects beyond their cost, so they are safe to repeat
+        CompletableFuture<String> call = AsyncRetryExecutor.getInstance()
+                .execute(client, request, true, onResponseStarted);
+        // The cache write hangs off the call rather than wrapping it: cancelling a dependent
+        // stage would leave the OkHttp call running, so callers must get the executor's future
+        if (responseCache != null) {
+            call.thenAccept(jsonResponse -> {
+                if (isCacheable.test(jsonResponse)) {
+                    responseCache.put(cacheKey, jsonResponse);
+                }
+            });
+        }
+        return call;
+    }
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    private void streamFromApi(String prompt, String cacheKey, StringBuilder fullContent,
+                               int durationMinutes, StreamingCallback callback,
+                               CancellationToken token) throws IOException {
+        token.throwIfCancelled();
+        String requestBody = OpenAIHelper.buildRequestBody(prompt, null, 0.7f, true);
+        Request request = new Request.Builder()
+                .url(API_URL)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(requestBody, OpenAIHelper.JSON))
+                .build();
+        if (callback != null) {
+            callback.onProgress(10, "Connecting to AI service...");
+        }
+        okhttp3.Call call = client.newCall(request);
+        try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+             okhttp3.Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No response body";
+                throw new IOException("API request failed: " + response.code() + " - " + errorBody);
+            }
+            if (response.body() == null) {
+                throw new IOException("Empty response body");
+            }
+            if (callback != null) {
+                callback.onProgress(20, "Generating content...");
+            }
+            StringBuilder recording = responseCache != null ? new StringBuilder() : null;
+            boolean finished;
+            try (okhttp3.ResponseBody responseBody = response.body()) {
+                finished = readStream(responseBody.source(), fullContent, durationMinutes, callback, recording, token);
+            }
+            if (recording != null && finished && fullContent.toString().trim().length() > 0) {
+                responseCache.put(cacheKey, recording.toString());
+            }
+        }
+    }
+    // Returns true once the [DONE] marker is seen; recording, if given, receives each data line
+    private boolean readStream(okio.BufferedSource source, StringBuilder fullContent, int durationMinutes,
+                               StreamingCallback callback, StringBuilder recording,
+                               CancellationToken token) throws IOException {
+        SseDeltaDecoder decoder = new SseDeltaDecoder(source, recording);
+        String content;
+        int progressCounter = 0;
+        int progressPercentBase = 20;
+        int wordCount = 0;
+        boolean inWord = false;
+        while ((content = decoder.nextDelta()) != null) {
+            token.throwIfCancelled();
+            fullContent.append(content);
+            // Count words as they arrive instead of re-splitting the whole transcript
+            for (int i = 0; i < content.length(); i++) {
+                boolean whitespace = Character.isWhitespace(content.charAt(i));
+                if (!whitespace && !inWord) {
+                    wordCount++;
+                }
+                inWord = !whitespace;
+            }
+            progressCounter++;
+            if (progressCounter % 10 == 0) {
+                int estimatedContentLength = durationMinutes * 150; 
+                int progress = progressPercentBase + 
+                        (int)(Math.min(wordCount, estimatedContentLength) * 70.0 / estimatedContentLength);
+                if (callback != null) {
+                    callback.onProgress(progress, "Generating content: " + progress + "%");
+                    callback.onContent(content);
+                }
+                progressPercentBase = progress;
+            } else if (callback != null) {
+                callback.onContent(content);
+            }
+        }
+        return decoder.isDone();
+    }
+    private long getHedgeDelayMs() {
+        synchronized (firstByteLatencies) {
+            int count = Math.min(latencySampleCount, MAX_LATENCY_SAMPLES);
+            if (count < MIN_LATENCY_SAMPLES) {
+                return DEFAULT_HEDGE_DELAY_MS;
+            }
+            long[] sorted = Arrays.copyOf(firstByteLatencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(hedgePercentile * count) - 1)];
+        }
+    }
+    private void recordFirstByteLatency(long latencyMs) {
+        synchronized (firstByteLatencies) {
+            firstByteLatencies[latencySampleCount % MAX_LATENCY_SAMPLES] = latencyMs;
+            latencySampleCount++;
+        }
+    }
+    private static boolean holdsScript(String jsonResponse) {
+        return extractScript(jsonResponse) != null;
+    }
+    // Null unless the response holds something long enough to be a podcast script
+    private static String extractScript(String jsonResponse) {
+        try {
+            String script = SseDeltaDecoder.readMessageContent(jsonResponse);
+            return script != null && script.trim().length() >= MIN_SCRIPT_CHARS ? script : null;
+        } catch (IOException e) {
+            Log.w(TAG, "Unreadable completion: " + e.getMessage());
+            return null;
+        }
+    }
+    /**
+     * One generateWithFallback call in hedging mode. The fallback model is launched when
+     * the primary has not started responding within the hedge delay, or as soon as the
+     * primary fails; the first valid script wins and the other request is cancelled.
+     */
+    private final class HedgedGeneration {
+        private final Set<NewsArticle> articles;
+        private final List<String> topics;
+        private final int durationMinutes;
+        private final String podcastTitle;
+        private final CancellationToken token;
+        private final CompletableFuture<PodcastContent> result = new CompletableFuture<>();
+        private volatile boolean primaryStarted = false;
+        private CompletableFuture<String> primary;
+        private CompletableFuture<String> fallback;
+        private boolean primaryFailed = false;
+        private boolean fallbackFailed = false;
+        private ScheduledFuture<?> hedgeTimer;
+        HedgedGeneration(Set<NewsArticle> articles, List<String> topics, int durationMinutes, String podcastTitle,
+                         CancellationToken token) {
+            this.articles = articles;
+            this.topics = topics;
+            this.durationMinutes = durationMinutes;
+            this.podcastTitle = podcastTitle;
+            this.token = token;
+        }
+        CompletableFuture<PodcastContent> start() {
+            hedgedRequests.incrementAndGet();
+            token.bind(result);
+            result.whenComplete((content, error) -> {
+                if (result.isCancelled()) {
+                    cancelAll();
+                }
+            });
+            promptExecutor.execute(() -> {
+                try {
+                    String prompt = OpenAIHelper.buildPodcastPrompt(articles, topics, durationMinutes);
+                    long startedAt = System.currentTimeMillis();
+                    synchronized (this) {
+                        if (result.isDone()) {
+                            return;
+                        }
+                        primary = executeCompletionAsync(prompt, OpenAIHelper.MODEL_GPT_4, 0.7f,
+                                EnhancedOpenAIService::holdsScript, () -> {
+                            primaryStarted = true;
+                            recordFirstByteLatency(System.currentTimeMillis() - startedAt);
+                        });
+                        if (!primary.isDone()) {
+                            long delayMs = getHedgeDelayMs();
+                            hedgeTimer = scheduler.schedule(() -> {
+                                if (!primaryStarted) {
+                                    launchFallback("no first byte after " + delayMs + "ms");
+                                }
+                            }, delayMs);
+                        }
                     }
-                });
+                    primary.whenComplete((json, error) -> onFinished(true, prompt, json, error));
+                } catch (Exception e) {
+                    onFinished(true, null, null, e);
+                }
+            });
+            return result;
+        }
+        private synchronized void launchFallback(String reason) {
+            if (fallback != null || result.isDone()) {
+                return;
+            }
+            Log.w(TAG, "Launching fallback model: " + reason);
+            hedgesLaunched.incrementAndGet();
+            String prompt = buildSimplifiedPrompt(articles, topics, durationMinutes);
+            fallback = executeCompletionAsync(prompt, OpenAIHelper.MODEL_GPT_3_5, 0.7f,
+                    EnhancedOpenAIService::holdsScript);
+            fallback.whenComplete((json, error) -> onFinished(false, prompt, json, error));
+        }
+        private synchronized void onFinished(boolean isPrimary, String prompt, String json, Throwable error) {
+            if (result.isDone()) {
+                return;
+            }
+            String script = error == null ? extractScript(json) : null;
+            if (script != null) {
+                if (!isPrimary) {
+                    script = addMarkersIfNeeded(script);
+                    hedgeWins.incrementAndGet();
+                }
+                PodcastContent podcastContent = new PodcastContent(podcastTitle, topics);
+                podcastContent.setAIGenerated(true);
+                podcastContent.setSourceText(prompt);
+                podcastContent.processAITranscript(script, OpenAIHelper.SPEAKER_MARKER);
+                result.complete(podcastContent);
+                Log.d(TAG, (isPrimary ? "Primary" : "Fallback") + " model won; " + getHedgeStats());
+                cancelAll();
+                return;
+            }
+            Throwable cause = error != null ? unwrap(error) : new IllegalStateException("Response held no script");
+            if (isPrimary) {
+                primaryFailed = true;
+                Log.w(TAG, "Primary generation failed: " + cause.getMessage());
+                if (fallback == null) {
+                    launchFallback("primary failed");
+                }
+            } else {
+                fallbackFailed = true;
+                Log.e(TAG, "Fallback generation failed: " + cause.getMessage(), cause);
+            }
+            if (primaryFailed && (fallbackFailed || fallback == null)) {
+                result.completeExceptionally(new RuntimeException("All generation attempts failed: " + 
+                        OpenAIHelper.formatErrorMessage(cause), cause));
+            }
+        }
+        // primary and fallback are the AsyncRetryExecutor futures themselves, so cancelling them cancels their calls
+        private synchronized void cancelAll() {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            if (primary != null) {
+                primary.cancel(true);
+            }
+            if (fallback != null) {
+                fallback.cancel(true);
+            }
+        }
     }
     private String buildSimplifiedPrompt(Set<NewsArticle> articles, List<String> topics, int durationMinutes) {
         StringBuilder prompt = new StringBuilder();
@@ -226,7 +550,4 @@ public class EnhancedOpenAIService {
         }
         return result.toString();
     }
-    public void shutdown() {
-        executor.shutdown();
-    }
 } 
\ No newline at end of file
@@ -4,24 +4,42 @@ import static androidx.constraintlayout.helper.widget.MotionEffect.TAG;
 import android.util.Log;
 
 import com.example.aipodcast.model.NewsArticle;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.ArticleTextNormalizer;
+import com.example.aipodcast.util.CancellationToken;
+import com.example.aipodcast.util.HttpClientProvider;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 public class GuardianNewsService implements NewsService {
     private static final String BASE_URL = "https://content.guardianapis.com/search";
+    private static final String WEB_URL_PREFIX = "https://www.theguardian.com/";
+    private static final String API_URL_PREFIX = "https://content.guardianapis.com/";
+    // The search endpoint caps page-size at 50, so larger batches are split
+    private static final int MAX_IDS_PER_REQUEST = 50;
     private final String apiKey;
     private final OkHttpClient client;
+    private final Executor networkExecutor;
     public GuardianNewsService(String apiKey) {
+        this(apiKey, AppScheduler.getInstance(), HttpClientProvider.getInstance().getClient());
+    }
+    // Pass HttpClientProvider's caching client to have unchanged responses revalidated instead of refetched
+    public GuardianNewsService(String apiKey, AppScheduler scheduler, OkHttpClient client) {
         this.apiKey = apiKey;
-        this.client = new OkHttpClient();
+        this.client = client;
+        this.networkExecutor = scheduler.executor(AppScheduler.Pool.NETWORK, AppScheduler.Priority.USER);
     }
     @Override
     public CompletableFuture<List<NewsArticle>> searchArticles(String keyword) {
@@ -41,26 +59,20 @@ public class GuardianNewsService implements NewsService {
                             + ", message: " + response.message()
                             + ", error body: " + errorBody);
                     }
-                    String responseData = response.body().string();
-                    JSONObject json = new JSONObject(responseData);
-                    if (json.has("response") && json.getJSONObject("response").has("status")) {
-                        String status = json.getJSONObject("response").getString("status");
-                        if (!"ok".equals(status)) {
-                            throw new IOException("API returned error status: " + status);
-                        }
+                    GuardianResponseParser.Payload payload = GuardianResponseParser.parse(response.body().charStream());
+                    if (payload.status != null && !"ok".equals(payload.status)) {
+                        throw new IOException("API returned error status: " + payload.status);
                     }
-                    JSONArray results = json.getJSONObject("response").getJSONArray("results");
-                    List<NewsArticle> articles = new ArrayList<>();
-                    for (int i = 0; i < results.length(); i++) {
-                        JSONObject result = results.getJSONObject(i);
+                    List<NewsArticle> articles = new ArrayList<>(payload.results.size());
+                    for (GuardianResponseParser.RawArticle result : payload.results) {
                         articles.add(parseArticle(result));
                     }
                     return articles;
                 }
-            } catch (IOException | JSONException e) {
+            } catch (IOException | RuntimeException e) {
                 throw new RuntimeException("Error searching articles: " + e.getMessage(), e);
             }
-        });
+        }, networkExecutor);
     }
     @Override
     public CompletableFuture<NewsArticle> getArticleDetails(String url) {
@@ -83,16 +95,12 @@ public class GuardianNewsService implements NewsService {
                         throw new IOException("Unexpected response " + response);
                     }
 
-                    String responseData = response.body().string();
-
-                    // Log full API response for debugging
-                    Log.d(TAG, "API Response preview (first 200 chars): " +
-                            responseData.substring(0, Math.min(200, responseData.length())));
-
-                    JSONObject json = new JSONObject(responseData);
-                    JSONObject content = json.getJSONObject("response").getJSONObject("content");
+                    GuardianResponseParser.Payload payload = GuardianResponseParser.parse(response.body().charStream());
+                    if (payload.content == null) {
+                        throw new IOException("Response did not contain article content");
+                    }
 
-                    NewsArticle article = extractFullArticleContent(content);
+                    NewsArticle article = extractFullArticleContent(payload.content);
 
                     // Verify we got substantial content
                     Log.d(TAG, "Extracted article: " + article.getTitle() +
@@ -101,65 +109,116 @@ public class GuardianNewsService implements NewsService {
 
                     return article;
                 }
-            } catch (IOException | JSONException e) {
+            } catch (IOException | RuntimeException e) {
                 Log.e(TAG, "Error fetching article details: " + e.getMessage());
                 throw new RuntimeException("Error fetching article details", e);
             }
-        });
+        }, networkExecutor);
     }
 
-    private NewsArticle extractFullArticleContent(JSONObject article) throws JSONException {
-        String title = article.getString("webTitle");
-        String url = article.getString("webUrl");
-        String section = article.getString("sectionName");
-        String publishedDate = article.getString("webPublicationDate");
-        String abstract_ = "No description available";
-        StringBuilder fullBodyTextBuilder = new StringBuilder();
-
-        try {
-            // Try to extract full article content - first from bodyText
-            if (article.has("fields")) {
-                JSONObject fields = article.getJSONObject("fields");
-                if (fields.has("bodyText")) {
-                    String bodyText = fields.getString("bodyText");
-                    fullBodyTextBuilder.append(bodyText);
-
-                    // Create a shorter abstract for display
-                    abstract_ = bodyText.length() > 200 ?
-                            bodyText.substring(0, 200) + "..." :
-                            bodyText;
-                }
+    @Override
+    public CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls,
+                                                                             CancellationToken token) {
+        Map<String, String> urlsById = new LinkedHashMap<>();
+        for (String url : urls) {
+            String id = toContentId(url);
+            if (id != null) {
+                urlsById.put(id, url);
             }
-
-            // Also try to extract from blocks if available
-            if (article.has("blocks")) {
-                JSONObject blocks = article.getJSONObject("blocks");
-                if (blocks.has("body")) {
-                    JSONArray bodyBlocks = blocks.getJSONArray("body");
-
-                    // Loop through all body blocks to extract text
-                    for (int i = 0; i < bodyBlocks.length(); i++) {
-                        JSONObject block = bodyBlocks.getJSONObject(i);
-                        if (block.has("bodyTextSummary")) {
-                            fullBodyTextBuilder.append("\n\n").append(block.getString("bodyTextSummary"));
-                        } else if (block.has("bodyText")) {
-                            fullBodyTextBuilder.append("\n\n").append(block.getString("bodyText"));
-                        } else if (block.has("body")) {
-                            fullBodyTextBuilder.append("\n\n").append(block.getString("body"));
-                        }
+        }
+        if (urlsById.isEmpty()) {
+            return CompletableFuture.completedFuture(new LinkedHashMap<>());
+        }
+        List<String> ids = new ArrayList<>(urlsById.keySet());
+        List<CompletableFuture<Map<String, NewsArticle>>> chunkFutures = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_REQUEST) {
+            List<String> chunk = ids.subList(start, Math.min(start + MAX_IDS_PER_REQUEST, ids.size()));
+            chunkFutures.add(fetchArticlesByIds(new ArrayList<>(chunk), urlsById, token));
+        }
+        return token.bind(CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, NewsArticle> results = new LinkedHashMap<>();
+                    for (CompletableFuture<Map<String, NewsArticle>> chunkFuture : chunkFutures) {
+                        results.putAll(chunkFuture.join());
+                    }
+                    Log.d(TAG, "Batch fetched " + results.size() + " of " + urlsById.size()
+                            + " articles in " + chunkFutures.size() + " request(s)");
+                    return results;
+                }));
+    }
+    private CompletableFuture<Map<String, NewsArticle>> fetchArticlesByIds(List<String> ids, Map<String, String> urlsById,
+                                                                           CancellationToken token) {
+        return CompletableFuture.supplyAsync(() -> {
+            token.throwIfCancelled();
+            try {
+                String apiUrl = BASE_URL + "?ids=" + URLEncoder.encode(String.join(",", ids), "UTF-8")
+                        + "&page-size=" + ids.size()
+                        + "&show-fields=bodyText"
+                        + "&show-blocks=body"
+                        + "&api-key=" + apiKey;
+                Request request = new Request.Builder()
+                        .url(apiUrl)
+                        .build();
+                Call call = client.newCall(request);
+                // Cancelling the call closes the socket, so the parser stops reading mid-body
+                try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+                     Response response = call.execute()) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Batch request failed with code " + response.code()
+                                + ", message: " + response.message());
+                    }
+                    GuardianResponseParser.Payload payload = GuardianResponseParser.parse(response.body().charStream());
+                    Map<String, NewsArticle> articles = new HashMap<>();
+                    for (GuardianResponseParser.RawArticle result : payload.results) {
+                        String requestedUrl = urlsById.get(result.id);
+                        NewsArticle article = extractFullArticleContent(result);
+                        articles.put(requestedUrl != null ? requestedUrl : article.getUrl(), article);
                     }
+                    return articles;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (token.isCancelled()) {
+                    throw new CancellationException("Batch fetch cancelled");
                 }
+                Log.e(TAG, "Error batch fetching article details: " + e.getMessage());
+                throw new RuntimeException("Error batch fetching article details", e);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting full content: " + e.getMessage(), e);
+        }, networkExecutor);
+    }
+    private static String toContentId(String url) {
+        if (url == null) {
+            return null;
+        }
+        if (url.startsWith(WEB_URL_PREFIX)) {
+            return url.substring(WEB_URL_PREFIX.length());
         }
+        if (url.startsWith(API_URL_PREFIX)) {
+            return url.substring(API_URL_PREFIX.length());
+        }
+        return null;
+    }
 
-        String fullBodyText = fullBodyTextBuilder.toString().trim();
+    private NewsArticle extractFullArticleContent(GuardianResponseParser.RawArticle article) {
+        String title = article.webTitle;
+        String url = article.webUrl;
+        String section = article.sectionName;
+        String publishedDate = article.webPublicationDate;
+        String abstract_ = "No description available";
+
+        // Blocks repeat most of fields.bodyText, so merge both into one deduplicated body
+        ArticleTextNormalizer.Result normalized =
+                ArticleTextNormalizer.normalize(article.bodyText, article.blockTexts);
+        String fullBodyText = normalized.text;
 
-        // If we couldn't get full text but have an abstract, use that
-        if (fullBodyText.isEmpty() && !abstract_.equals("No description available")) {
-            fullBodyText = abstract_;
+        if (!fullBodyText.isEmpty()) {
+            // Create a shorter abstract for display
+            abstract_ = fullBodyText.length() > 200 ?
+                    fullBodyText.substring(0, 200) + "..." :
+                    fullBodyText;
         }
+        Log.d(TAG, "Normalized article body - removed " + normalized.removedChars + " of "
+                + normalized.inputChars + " chars (" + normalized.duplicateSentences + " duplicate, "
+                + normalized.boilerplateSentences + " boilerplate sentences)");
 
         // Log the result
         Log.d(TAG, "Article extraction result - Title: " + title +
@@ -169,32 +228,29 @@ public class GuardianNewsService implements NewsService {
         // Always use the constructor with fullBodyText
         return new NewsArticle(title, abstract_, url, section, publishedDate, fullBodyText);
     }
-    private NewsArticle parseArticle(JSONObject article) throws JSONException {
-        String title = article.getString("webTitle");
-        String url = article.getString("webUrl");
-        String section = article.getString("sectionName");
-        String publishedDate = article.getString("webPublicationDate");
+    private NewsArticle parseArticle(GuardianResponseParser.RawArticle article) {
+        String title = article.webTitle;
+        String url = article.webUrl;
+        String section = article.sectionName;
+        String publishedDate = article.webPublicationDate;
         String abstract_ = "No description available";
         String fullBodyText = ""; // Store full body text
 
-        if (article.has("fields")) {
-            JSONObject fields = article.getJSONObject("fields");
-            if (fields.has("bodyText")) {
-                String bodyText = fields.getString("bodyText");
+        if (article.bodyText != null) {
+            String bodyText = ArticleTextNormalizer.normalize(article.bodyText, null).text;
 
-                // Store the FULL body text without truncation
-                fullBodyText = bodyText;
+            // Store the FULL body text without truncation
+            fullBodyText = bodyText;
 
-                // Create a shorter abstract for display only
-                abstract_ = bodyText.length() > 200 ?
-                        bodyText.substring(0, 200) + "..." :
-                        bodyText;
+            // Create a shorter abstract for display only
+            abstract_ = bodyText.length() > 200 ?
+                    bodyText.substring(0, 200) + "..." :
+                    bodyText;
 
-                // Log clear info about the content we're extracting
-                Log.d(TAG, "Article: " + title);
-                Log.d(TAG, "Abstract length: " + abstract_.length() + " chars");
-                Log.d(TAG, "Full text length: " + fullBodyText.length() + " chars");
-            }
+            // Log clear info about the content we're extracting
+            Log.d(TAG, "Article: " + title);
+            Log.d(TAG, "Abstract length: " + abstract_.length() + " chars");
+            Log.d(TAG, "Full text length: " + fullBodyText.length() + " chars");
         }
 
         // Always return an article with the fullBodyText field populated
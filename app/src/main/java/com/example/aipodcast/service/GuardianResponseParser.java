@@ -0,0 +1,169 @@
+package com.example.aipodcast.service;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Pull parser for Guardian Content API responses. Reads the payload token by token
+ * and keeps only the fields the app uses, so neither the raw body string nor a
+ * full JSON tree is ever held in memory.
+ */
+final class GuardianResponseParser {
+    static final class RawArticle {
+        String id;
+        String webTitle;
+        String webUrl;
+        String sectionName;
+        String webPublicationDate;
+        String bodyText;
+        final List<String> blockTexts = new ArrayList<>();
+    }
+    static final class Payload {
+        String status;
+        final List<RawArticle> results = new ArrayList<>();
+        RawArticle content;
+    }
+    private GuardianResponseParser() {
+    }
+    static Payload parse(Reader input) throws IOException {
+        Payload payload = new Payload();
+        try (JsonReader reader = new JsonReader(input)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    readResponse(reader, payload);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return payload;
+    }
+    private static void readResponse(JsonReader reader, Payload payload) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "status":
+                    payload.status = nextStringOrNull(reader);
+                    break;
+                case "results":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        payload.results.add(readArticle(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case "content":
+                    payload.content = readArticle(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+    private static RawArticle readArticle(JsonReader reader) throws IOException {
+        RawArticle article = new RawArticle();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    article.id = nextStringOrNull(reader);
+                    break;
+                case "webTitle":
+                    article.webTitle = nextStringOrNull(reader);
+                    break;
+                case "webUrl":
+                    article.webUrl = nextStringOrNull(reader);
+                    break;
+                case "sectionName":
+                    article.sectionName = nextStringOrNull(reader);
+                    break;
+                case "webPublicationDate":
+                    article.webPublicationDate = nextStringOrNull(reader);
+                    break;
+                case "fields":
+                    readFields(reader, article);
+                    break;
+                case "blocks":
+                    readBlocks(reader, article);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return article;
+    }
+    private static void readFields(JsonReader reader, RawArticle article) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("bodyText".equals(reader.nextName())) {
+                article.bodyText = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+    private static void readBlocks(JsonReader reader, RawArticle article) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("body".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String text = readBlockText(reader);
+                    if (text != null) {
+                        article.blockTexts.add(text);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+    // Same precedence as before: bodyTextSummary, then bodyText, then body
+    private static String readBlockText(JsonReader reader) throws IOException {
+        String summary = null;
+        String bodyText = null;
+        String body = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "bodyTextSummary":
+                    summary = nextStringOrNull(reader);
+                    break;
+                case "bodyText":
+                    bodyText = nextStringOrNull(reader);
+                    break;
+                case "body":
+                    body = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (summary != null) {
+            return summary;
+        }
+        return bodyText != null ? bodyText : body;
+    }
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
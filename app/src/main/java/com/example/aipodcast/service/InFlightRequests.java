@@ -0,0 +1,113 @@
+package com.example.aipodcast.service;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+/**
+ * Single-flight registry: concurrent calls for the same key share one underlying
+ * future instead of each starting its own request. Every caller gets its own dependent
+ * future, so cancelling a returned future leaves the shared work running. The work is
+ * still the first caller's loader, though: if that loader fails or is cancelled through
+ * its own token, every caller that joined the key fails with it.
+ */
+public class InFlightRequests<K, V> {
+    private static final String TAG = "InFlightRequests";
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    public InFlightRequests(String name) {
+        this.name = name;
+    }
+    public CompletableFuture<V> run(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> placeholder = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            long count = coalesced.incrementAndGet();
+            Log.d(TAG, name + ": joined in-flight request for " + key + " (" + count + " coalesced so far)");
+            return existing.thenApply(value -> value);
+        }
+        started.incrementAndGet();
+        placeholder.whenComplete((value, error) -> inFlight.remove(key, placeholder));
+        try {
+            loader.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    placeholder.completeExceptionally(error);
+                } else {
+                    placeholder.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            placeholder.completeExceptionally(e);
+        }
+        return placeholder.thenApply(value -> value);
+    }
+    /**
+     * Batch form of {@link #run}: keys that already have a request in flight join it, and
+     * the rest are registered and handed to batchLoader in one call. Keys batchLoader
+     * leaves out of its result complete with null. Returns one dependent future per key.
+     */
+    public Map<K, CompletableFuture<V>> runAll(Collection<K> keys,
+                                               Function<List<K>, CompletableFuture<Map<K, V>>> batchLoader) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (results.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> placeholder = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+            if (existing != null) {
+                long count = coalesced.incrementAndGet();
+                Log.d(TAG, name + ": batch joined in-flight request for " + key + " (" + count + " coalesced so far)");
+                results.put(key, existing.thenApply(value -> value));
+                continue;
+            }
+            started.incrementAndGet();
+            placeholder.whenComplete((value, error) -> inFlight.remove(key, placeholder));
+            owned.put(key, placeholder);
+            results.put(key, placeholder.thenApply(value -> value));
+        }
+        if (owned.isEmpty()) {
+            return results;
+        }
+        try {
+            batchLoader.apply(new ArrayList<>(owned.keySet())).whenComplete((values, error) -> {
+                for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                    if (error != null) {
+                        entry.getValue().completeExceptionally(error);
+                    } else {
+                        entry.getValue().complete(values != null ? values.get(entry.getKey()) : null);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            for (CompletableFuture<V> placeholder : owned.values()) {
+                placeholder.completeExceptionally(e);
+            }
+        }
+        return results;
+    }
+    public long getStartedCount() {
+        return started.get();
+    }
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+    @Override
+    public String toString() {
+        return name + "{started=" + started.get() + ", coalesced=" + coalesced.get()
+                + ", inFlight=" + inFlight.size() + "}";
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.aipodcast.service;
 import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.util.CancellationToken;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 public interface NewsService {
     CompletableFuture<List<NewsArticle>> searchArticles(String keyword);
     CompletableFuture<NewsArticle> getArticleDetails(String url);
+    default CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls) {
+        return getArticleDetailsBatch(urls, CancellationToken.NONE);
+    }
+    // Cancelling the token, or the returned future, cancels the requests still in flight
+    CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls, CancellationToken token);
 }
\ No newline at end of file
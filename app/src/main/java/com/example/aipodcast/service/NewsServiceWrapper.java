@@ -1,35 +1,138 @@
 package com.example.aipodcast.service;
 import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 import android.util.Log;
 import com.example.aipodcast.database.dao.NewsDao;
-import com.example.aipodcast.database.dao.SqliteNewsDao;
+import com.example.aipodcast.database.dao.CachingNewsDao;
 import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.CancellationToken;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 public class NewsServiceWrapper implements NewsService {
     private static final String TAG = "NewsServiceWrapper";
+    private static final int FULL_TEXT_RESULT_LIMIT = 50;
     private final NewsService newsService;
     private final NewsDao newsDao;
     private final Executor dbExecutor;
+    private final ConnectivityManager connectivityManager;
+    private final List<RefreshListener> refreshListeners = new CopyOnWriteArrayList<>();
+    private volatile long staleWhileRevalidateTtlMs = 0;
+    private final InFlightRequests<String, List<NewsArticle>> searchRequests = new InFlightRequests<>("search");
+    private final InFlightRequests<String, List<NewsArticle>> networkSearchRequests = new InFlightRequests<>("networkSearch");
+    private final InFlightRequests<String, NewsArticle> detailRequests = new InFlightRequests<>("details");
     public NewsServiceWrapper(Context context, NewsService newsService) {
+        this(context, newsService, AppScheduler.getInstance());
+    }
+    public NewsServiceWrapper(Context context, NewsService newsService, AppScheduler scheduler) {
         this.newsService = newsService;
-        this.newsDao = new SqliteNewsDao(context);
-        this.dbExecutor = Executors.newSingleThreadExecutor();
+        this.newsDao = CachingNewsDao.getInstance(context);
+        this.dbExecutor = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
+        this.connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+    public void setStaleWhileRevalidateTtl(long ttlMs) {
+        this.staleWhileRevalidateTtlMs = Math.max(0, ttlMs);
+    }
+    public void addRefreshListener(RefreshListener listener) {
+        if (listener != null && !refreshListeners.contains(listener)) {
+            refreshListeners.add(listener);
+        }
+    }
+    public void removeRefreshListener(RefreshListener listener) {
+        refreshListeners.remove(listener);
+    }
+    public long getCoalescedRequestCount() {
+        return searchRequests.getCoalescedCount()
+                + networkSearchRequests.getCoalescedCount()
+                + detailRequests.getCoalescedCount();
+    }
+    public String getRequestStats() {
+        return searchRequests + ", " + networkSearchRequests + ", " + detailRequests;
     }
     @Override
     public CompletableFuture<List<NewsArticle>> searchArticles(String keyword) {
+        return searchRequests.run(keyword, () -> {
+            if (!isNetworkAvailable()) {
+                return searchOffline(keyword);
+            }
+            if (staleWhileRevalidateTtlMs > 0) {
+                return searchStaleWhileRevalidate(keyword, staleWhileRevalidateTtlMs);
+            }
+            return searchCacheAndNetwork(keyword);
+        });
+    }
+    private CompletableFuture<List<NewsArticle>> fetchAndStore(String keyword) {
+        return networkSearchRequests.run(keyword, () -> newsService.searchArticles(keyword)
+                .thenApplyAsync(articles -> {
+                    if (articles != null && !articles.isEmpty()) {
+                        newsDao.insertArticles(articles, keyword);
+                    }
+                    return articles;
+                }, dbExecutor));
+    }
+    private CompletableFuture<List<NewsArticle>> searchStaleWhileRevalidate(String keyword, long ttlMs) {
+        return CompletableFuture.supplyAsync(() -> {
+            long age = System.currentTimeMillis() - newsDao.getLastUpdateTime(keyword);
+            if (age > ttlMs) {
+                return null;
+            }
+            List<NewsArticle> cached = newsDao.searchArticles(keyword);
+            return cached.isEmpty() ? null : cached;
+        }, dbExecutor).thenCompose(cached -> {
+            if (cached == null) {
+                return searchCacheAndNetwork(keyword);
+            }
+            Log.d(TAG, "Serving fresh cache for keyword: " + keyword + ", revalidating in background");
+            revalidate(keyword, cached);
+            return CompletableFuture.completedFuture(cached);
+        });
+    }
+    private void revalidate(String keyword, List<NewsArticle> cached) {
+        fetchAndStore(keyword)
+                .thenAccept(articles -> {
+                    if (articles == null || articles.isEmpty()) {
+                        return;
+                    }
+                    Set<String> cachedUrls = new HashSet<>();
+                    for (NewsArticle article : cached) {
+                        cachedUrls.add(article.getUrl());
+                    }
+                    List<NewsArticle> added = new ArrayList<>();
+                    for (NewsArticle article : articles) {
+                        if (!cachedUrls.contains(article.getUrl())) {
+                            added.add(article);
+                        }
+                    }
+                    if (added.isEmpty()) {
+                        Log.d(TAG, "Background refresh found no new articles for keyword: " + keyword);
+                        return;
+                    }
+                    Log.d(TAG, "Background refresh found " + added.size() + " new articles for keyword: " + keyword);
+                    for (RefreshListener listener : refreshListeners) {
+                        listener.onArticlesRefreshed(keyword, articles, added);
+                    }
+                })
+                .exceptionally(e -> {
+                    Log.e(TAG, "Background refresh failed for keyword: " + keyword + ": " + e.getMessage(), e);
+                    return null;
+                });
+    }
+    private CompletableFuture<List<NewsArticle>> searchCacheAndNetwork(String keyword) {
         CompletableFuture<List<NewsArticle>> cachedResults = CompletableFuture.supplyAsync(() ->
             newsDao.searchArticles(keyword), dbExecutor);
-        CompletableFuture<List<NewsArticle>> networkResults = newsService.searchArticles(keyword)
-            .thenApplyAsync(articles -> {
-                if (articles != null && !articles.isEmpty()) {
-                    newsDao.insertArticles(articles, keyword);
-                }
-                return articles;
-            }, dbExecutor)
+        CompletableFuture<List<NewsArticle>> networkResults = fetchAndStore(keyword)
             .exceptionally(e -> {
                 Log.e(TAG, "Network error while searching articles: " + e.getMessage(), e);
                 return null;
@@ -43,27 +146,137 @@ public class NewsServiceWrapper implements NewsService {
                 Log.d(TAG, "Using cached results for keyword: " + keyword);
                 return cached; 
             }
+            if (network == null) {
+                Log.w(TAG, "Network failed and no cache for keyword: " + keyword + ", trying full-text search");
+                return null;
+            }
             Log.w(TAG, "No results found (network or cache) for keyword: " + keyword);
             return new ArrayList<NewsArticle>(); 
-        }).exceptionally(e -> {
+        }).thenCompose(results -> results != null
+                ? CompletableFuture.completedFuture(results)
+                : CompletableFuture.supplyAsync(() -> searchFullText(keyword), dbExecutor)
+        ).exceptionally(e -> {
             Log.e(TAG, "Error searching articles: " + e.getMessage(), e);
             return new ArrayList<NewsArticle>(); 
         });
     }
+    private CompletableFuture<List<NewsArticle>> searchOffline(String keyword) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<NewsArticle> cached = newsDao.searchArticles(keyword);
+            if (!cached.isEmpty()) {
+                Log.d(TAG, "Offline, using cached results for keyword: " + keyword);
+                return cached;
+            }
+            return searchFullText(keyword);
+        }, dbExecutor);
+    }
+    private List<NewsArticle> searchFullText(String keyword) {
+        List<NewsArticle> matches = newsDao.searchArticlesFullText(keyword, FULL_TEXT_RESULT_LIMIT);
+        Log.d(TAG, "Full-text search over cached articles found " + matches.size() + " for: " + keyword);
+        return matches;
+    }
+    private boolean isNetworkAvailable() {
+        if (connectivityManager == null) return true;
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        return activeNetwork != null && activeNetwork.isConnectedOrConnecting();
+    }
     @Override
     public CompletableFuture<NewsArticle> getArticleDetails(String url) {
-        return CompletableFuture.supplyAsync(() -> newsDao.getArticleByUrl(url), dbExecutor)
+        return detailRequests.run(url, () -> loadArticleDetails(url));
+    }
+    private CompletableFuture<NewsArticle> loadArticleDetails(String url) {
+        return CompletableFuture.supplyAsync(() -> newsDao.getArticleWithBody(url), dbExecutor)
                 .thenCompose(cachedArticle -> {
-                    if (cachedArticle != null) {
+                    if (hasBody(cachedArticle)) {
+                        Log.d(TAG, "Using cached article body for: " + url);
                         return CompletableFuture.completedFuture(cachedArticle);
                     }
                     return newsService.getArticleDetails(url)
                             .thenApplyAsync(article -> {
                                 if (article != null) {
-                                    newsDao.insertArticle(article, url);
+                                    if (cachedArticle != null) {
+                                        newsDao.updateArticle(article);
+                                    } else {
+                                        // Stored without a keyword link: no search returned it yet
+                                        newsDao.insertArticle(article, null);
+                                    }
                                 }
                                 return article;
                             }, dbExecutor);
                 });
     }
+    /**
+     * Cached bodies are served from the database. The remaining URLs go through the same
+     * single-flight registry as getArticleDetails: URLs already being fetched, by a detail
+     * call or another batch, are joined, and only the rest are fetched in one batch call.
+     * Cancelling the token fails the URLs this batch fetches for anyone who joined them.
+     */
+    @Override
+    public CompletableFuture<Map<String, NewsArticle>> getArticleDetailsBatch(Collection<String> urls,
+                                                                             CancellationToken token) {
+        Map<String, NewsArticle> cached = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        Set<String> cachedWithoutBody = new HashSet<>();
+        return token.bind(CompletableFuture.runAsync(() -> {
+            for (String url : urls) {
+                token.throwIfCancelled();
+                NewsArticle cachedArticle = newsDao.getArticleWithBody(url);
+                if (hasBody(cachedArticle)) {
+                    cached.put(url, cachedArticle);
+                } else {
+                    misses.add(url);
+                    if (cachedArticle != null) {
+                        cachedWithoutBody.add(url);
+                    }
+                }
+            }
+            Log.d(TAG, "Batch details: " + cached.size() + " cache hits, " + misses.size() + " misses");
+        }, dbExecutor).thenCompose(ignored -> {
+            Map<String, CompletableFuture<NewsArticle>> pending = misses.isEmpty()
+                    ? new HashMap<>()
+                    : detailRequests.runAll(misses, owned -> fetchAndStoreBatch(owned, cachedWithoutBody, token));
+            return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+                    .handle((done, error) -> {
+                        if (token.isCancelled()) {
+                            throw new CancellationException("Batch fetch cancelled");
+                        }
+                        if (error != null) {
+                            Log.e(TAG, "Network error while batch fetching articles: " + error.getMessage(), error);
+                        }
+                        Map<String, NewsArticle> results = new LinkedHashMap<>();
+                        for (String url : urls) {
+                            NewsArticle article = cached.get(url);
+                            CompletableFuture<NewsArticle> fetch = pending.get(url);
+                            if (article == null && fetch != null && !fetch.isCompletedExceptionally()) {
+                                article = fetch.join();
+                            }
+                            if (article != null) {
+                                results.put(url, article);
+                            }
+                        }
+                        return results;
+                    });
+        }));
+    }
+    private CompletableFuture<Map<String, NewsArticle>> fetchAndStoreBatch(List<String> urls,
+                                                                          Set<String> cachedWithoutBody,
+                                                                          CancellationToken token) {
+        return newsService.getArticleDetailsBatch(urls, token)
+                .thenApplyAsync(fetched -> {
+                    for (Map.Entry<String, NewsArticle> entry : fetched.entrySet()) {
+                        NewsArticle article = entry.getValue();
+                        if (cachedWithoutBody.contains(entry.getKey())) {
+                            newsDao.updateArticle(article);
+                        } else {
+                            newsDao.insertArticle(article, null);
+                        }
+                    }
+                    return fetched;
+                }, dbExecutor);
+    }
+    private static boolean hasBody(NewsArticle article) {
+        return article != null
+                && article.getFullBodyText() != null
+                && !article.getFullBodyText().isEmpty();
+    }
 } 
\ No newline at end of file
@@ -4,6 +4,12 @@ import android.util.Log;
 import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.model.PodcastContent;
 import com.example.aipodcast.model.PodcastSegment;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.CancellationToken;
+import com.example.aipodcast.util.HttpClientProvider;
+import com.example.aipodcast.util.LlmResponseCache;
+import com.example.aipodcast.util.PromptBudget;
+import com.example.aipodcast.util.SseDeltaDecoder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -15,7 +21,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -29,19 +39,44 @@ public class OpenAIService {
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     private final String apiKey;
     private final OkHttpClient client;
+    private final OkHttpClient streamClient;
     private final Gson gson;
     private boolean useAIGeneration;
+    private LlmResponseCache responseCache;
+    private boolean bypassResponseCache = false;
 
     // Constants for word counts and timing
     private static final int WORDS_PER_MINUTE = 140;
     private static final int MIN_WORDS_PER_ARTICLE = 150;
     private static final int MAX_WORDS_PER_ARTICLE = 400;
 
+    // Map-reduce generation: per-article drafts run in parallel, a short stitch request
+    // writes the intro, transitions and conclusion
+    private static final int MAX_PARALLEL_ARTICLE_REQUESTS = 3;
+    private static final int STITCH_MAX_TOKENS = 800;
+    private final Executor mapReduceExecutor;
+    private final Executor networkExecutor;
+
+    /**
+     * Template segments used when a map-reduce request fails, so one bad article or a
+     * failed stitch pass only degrades its own part of the podcast.
+     */
+    public interface TemplateSegmentSource {
+        PodcastSegment createIntroduction();
+        PodcastSegment createNewsSegment(NewsArticle article, int index, int total, int targetWordCount);
+        PodcastSegment createTransition(int index, int total);
+        PodcastSegment createConclusion();
+    }
+
     public OpenAIService(String apiKey) {
         this(apiKey, true); // Default to conversational mode
     }
 
     public OpenAIService(String apiKey, boolean useAIGeneration) {
+        this(apiKey, useAIGeneration, AppScheduler.getInstance());
+    }
+
+    public OpenAIService(String apiKey, boolean useAIGeneration, AppScheduler scheduler) {
         this.apiKey = apiKey;
         this.useAIGeneration = useAIGeneration;
         Log.d(TAG, "Constructor called with useAIGeneration=" + useAIGeneration);
@@ -49,26 +84,69 @@ public class OpenAIService {
         HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
         logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
 
-        this.client = new OkHttpClient.Builder()
+        // Both share the app's connection pool, so the TLS connection to the API is reused
+        OkHttpClient shared = HttpClientProvider.getInstance().getClient();
+        this.client = shared.newBuilder()
                 .addInterceptor(logging)
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
                 .build();
 
+        HttpLoggingInterceptor headerLogging = new HttpLoggingInterceptor();
+        headerLogging.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+        headerLogging.redactHeader("Authorization");
+        this.streamClient = shared.newBuilder()
+                .addInterceptor(headerLogging)
+                .readTimeout(120, TimeUnit.SECONDS)
+                .connectTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .build();
+
         this.gson = new GsonBuilder().create();
+
+        this.networkExecutor = scheduler.executor(AppScheduler.Pool.NETWORK, AppScheduler.Priority.USER);
+        this.mapReduceExecutor = scheduler.limitedExecutor(AppScheduler.Pool.NETWORK, AppScheduler.Priority.USER,
+                MAX_PARALLEL_ARTICLE_REQUESTS);
     }
     public void useAIGeneration(boolean useAI) {
         this.useAIGeneration = useAI;
         Log.d(TAG, "useAIGeneration setter called with value=" + useAI);
     }
+    public void setResponseCache(LlmResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    /**
+     * When set, cached responses are ignored and every request goes to the API; fresh
+     * responses still replace the cached ones, so this doubles as "regenerate".
+     */
+    public void setBypassResponseCache(boolean bypass) {
+        this.bypassResponseCache = bypass;
+    }
+    private String getCachedResponse(String key) {
+        if (responseCache == null || bypassResponseCache) {
+            return null;
+        }
+        return responseCache.get(key);
+    }
     public CompletableFuture<PodcastContent> generatePodcastContent(
             Set<NewsArticle> articles,
             List<String> topics,
             int durationMinutes,
             String podcastTitle,
             boolean useConversation) {
-        return CompletableFuture.supplyAsync(() -> {
+        return generatePodcastContent(articles, topics, durationMinutes, podcastTitle, useConversation,
+                new CancellationToken());
+    }
+    // Cancelling the token, or the returned future, cancels the request in flight
+    public CompletableFuture<PodcastContent> generatePodcastContent(
+            Set<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            boolean useConversation,
+            CancellationToken token) {
+        return token.bind(CompletableFuture.supplyAsync(() -> {
             try {
                 Log.d(TAG, "generatePodcastContent called with useConversation=" + useConversation);
 
@@ -78,7 +156,7 @@ public class OpenAIService {
                 String prompt = buildConversationalPrompt(articles, topics, durationMinutes);
 
                 // Increase temperature for more creative/detailed responses
-                String jsonResponse = sendChatCompletionRequest(prompt, 0.8f);
+                String jsonResponse = sendChatCompletionRequest(prompt, 0.8f, 4000, token);
 
                 PodcastContent content = convertResponseToPodcastContent(
                         jsonResponse, topics, podcastTitle, durationMinutes);
@@ -90,10 +168,11 @@ public class OpenAIService {
 
                 return content;
             } catch (Exception e) {
+                token.throwIfCancelled();
                 Log.e(TAG, "Error generating podcast content: " + e.getMessage());
                 throw new RuntimeException("Failed to generate podcast content", e);
             }
-        });
+        }, networkExecutor));
     }
     // Add a validation method to check content quality
     private void validateContentQuality(PodcastContent content, Set<NewsArticle> articles) {
@@ -128,15 +207,31 @@ public class OpenAIService {
             int durationMinutes,
             String podcastTitle,
             StreamingResponseHandler responseHandler) {
-        CompletableFuture<PodcastContent> future = new CompletableFuture<>();
+        return generatePodcastContentStreaming(articles, topics, durationMinutes, podcastTitle, responseHandler,
+                new CancellationToken());
+    }
+    /**
+     * Cancelling the token, or the returned future, cancels the API call and closes its
+     * stream; no further turns or callbacks are delivered, apart from the cancellation
+     * itself completing the future.
+     */
+    public CompletableFuture<PodcastContent> generatePodcastContentStreaming(
+            Set<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            StreamingResponseHandler responseHandler,
+            CancellationToken token) {
+        CompletableFuture<PodcastContent> future = token.bind(new CompletableFuture<>());
 
         try {
             String prompt = buildConversationalPrompt(articles, topics, durationMinutes);
+            StreamedPodcastBuilder builder = new StreamedPodcastBuilder(podcastTitle, topics);
 
-            sendStreamingRequest(prompt, responseHandler)
+            sendStreamingRequest(prompt, responseHandler, builder::addTurn, token)
                     .thenApply(finalResponse -> {
-                        PodcastContent content = convertResponseToPodcastContent(
-                                finalResponse, topics, podcastTitle, durationMinutes);
+                        PodcastContent content = builder.build(finalResponse);
+                        content.forceSetTotalDuration(durationMinutes * 60);
                         future.complete(content);
                         return content;
                     })
@@ -152,6 +247,205 @@ public class OpenAIService {
 
         return future;
     }
+    /**
+     * Generates one short segment per article in parallel (at most
+     * MAX_PARALLEL_ARTICLE_REQUESTS at a time) plus a stitch request for the intro,
+     * transitions and conclusion, then assembles them in the given article order.
+     * Each request is small, so latency no longer grows with the whole selection and no
+     * single response risks running into max_tokens.
+     */
+    public CompletableFuture<PodcastContent> generatePodcastContentMapReduce(
+            List<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            TemplateSegmentSource templates) {
+        return generatePodcastContentMapReduce(articles, topics, durationMinutes, podcastTitle, templates,
+                new CancellationToken());
+    }
+    // Cancelling stops queued drafts from starting and cancels the requests in flight
+    public CompletableFuture<PodcastContent> generatePodcastContentMapReduce(
+            List<NewsArticle> articles,
+            List<String> topics,
+            int durationMinutes,
+            String podcastTitle,
+            TemplateSegmentSource templates,
+            CancellationToken token) {
+        int total = articles.size();
+        int wordsPerArticle = Math.max(MIN_WORDS_PER_ARTICLE, Math.min(MAX_WORDS_PER_ARTICLE,
+                durationMinutes * WORDS_PER_MINUTE / Math.max(1, total)));
+        long start = System.currentTimeMillis();
+        PromptBudget budget = new PromptBudget(durationMinutes, total);
+        // The stitch pass only needs titles and abstracts, so it runs alongside the drafts
+        CompletableFuture<StitchResponse> stitch = CompletableFuture
+                .supplyAsync(() -> requestStitch(articles, topics, durationMinutes, token), mapReduceExecutor)
+                .exceptionally(e -> {
+                    Log.w(TAG, "Stitch request failed, using template intro and transitions: " + e.getMessage());
+                    return null;
+                });
+        List<CompletableFuture<PodcastSegment>> drafts = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            NewsArticle article = articles.get(i);
+            int index = i + 1;
+            drafts.add(CompletableFuture
+                    .supplyAsync(() -> draftArticleSegment(article, index, total, wordsPerArticle, budget, token),
+                            mapReduceExecutor)
+                    .exceptionally(e -> {
+                        Log.w(TAG, "Draft for article " + index + " failed, using template: " + e.getMessage());
+                        return templates.createNewsSegment(article, index, total, wordsPerArticle);
+                    }));
+        }
+        return token.bind(CompletableFuture.allOf(drafts.toArray(new CompletableFuture[0]))
+                .thenCombine(stitch, (ignored, links) -> {
+                    token.throwIfCancelled();
+                    PodcastContent content = new PodcastContent(podcastTitle, topics);
+                    content.addSegment(links != null && hasText(links.intro)
+                            ? new PodcastSegment("Introduction", links.intro, PodcastSegment.SegmentType.INTRO)
+                            : templates.createIntroduction());
+                    for (int i = 0; i < total; i++) {
+                        content.addSegment(drafts.get(i).join());
+                        if (i < total - 1) {
+                            String transition = links != null && links.transitions != null
+                                    && i < links.transitions.size() ? links.transitions.get(i) : null;
+                            content.addSegment(hasText(transition)
+                                    ? new PodcastSegment("Transition", transition, PodcastSegment.SegmentType.TRANSITION)
+                                    : templates.createTransition(i, total));
+                        }
+                    }
+                    content.addSegment(links != null && hasText(links.conclusion)
+                            ? new PodcastSegment("Conclusion", links.conclusion, PodcastSegment.SegmentType.CONCLUSION)
+                            : templates.createConclusion());
+                    Log.d(TAG, "Map-reduce generation of " + total + " articles took "
+                            + (System.currentTimeMillis() - start) + "ms, prompt budget: " + budget);
+                    return content;
+                }));
+    }
+    private PodcastSegment draftArticleSegment(NewsArticle article, int index, int total, int targetWords,
+                                               PromptBudget budget, CancellationToken token) {
+        token.throwIfCancelled();
+        try {
+            String prompt = buildArticleSegmentPrompt(article, index, total, targetWords, budget);
+            // Roughly 1.5 tokens per spoken word, with headroom for markers
+            String jsonResponse = sendChatCompletionRequest(prompt, 0.8f, targetWords * 2 + 200, token,
+                    json -> !joinSpeakerTurns(messageContentOrEmpty(json)).isEmpty());
+            String script = extractMessageContent(jsonResponse);
+            String text = joinSpeakerTurns(script);
+            if (text.isEmpty()) {
+                throw new IllegalStateException("Empty draft");
+            }
+            return new PodcastSegment(article.getTitle(), text, article, PodcastSegment.SegmentType.NEWS_ARTICLE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to draft article " + index, e);
+        }
+    }
+    private String buildArticleSegmentPrompt(NewsArticle article, int index, int total, int targetWords,
+                                             PromptBudget budget) {
+        StringBuilder prompt = new StringBuilder();
+        if (useAIGeneration) {
+            prompt.append("Write one segment of a conversational news podcast between two hosts (ALEX and JORDAN). ");
+            prompt.append("Start each speaking turn with '§ALEX§' or '§JORDAN§'.\n");
+        } else {
+            prompt.append("Write one segment of a news podcast read by a single host. ");
+            prompt.append("Start each paragraph with '§HOST§'.\n");
+        }
+        prompt.append("This is story ").append(index).append(" of ").append(total).append(". ");
+        prompt.append("Discuss ONLY the article below in about ").append(targetWords).append(" words. ");
+        prompt.append("Do not greet the audience, introduce the show, or sign off; those are written separately.\n\n");
+        prompt.append("Title: ").append(article.getTitle()).append("\n");
+        if (article.getSection() != null && !article.getSection().equals("Unknown")) {
+            prompt.append("Section: ").append(article.getSection()).append("\n");
+        }
+        prompt.append("Abstract: ").append(article.getAbstract()).append("\n");
+        if (article.getFullBodyText() != null && !article.getFullBodyText().isEmpty()) {
+            prompt.append("Full Content: ").append(budgetedBody(article, budget)).append("\n");
+        }
+        return prompt.toString();
+    }
+    private StitchResponse requestStitch(List<NewsArticle> articles, List<String> topics, int durationMinutes,
+                                         CancellationToken token) {
+        token.throwIfCancelled();
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are writing the connecting lines of a ").append(durationMinutes)
+                .append(" minute news podcast. The stories are discussed separately, in this order:\n\n");
+        for (int i = 0; i < articles.size(); i++) {
+            NewsArticle article = articles.get(i);
+            prompt.append(i + 1).append(". ").append(article.getTitle()).append(" - ")
+                    .append(article.getAbstract()).append("\n");
+        }
+        if (topics != null && !topics.isEmpty()) {
+            prompt.append("\nTopics: ").append(String.join(", ", topics)).append("\n");
+        }
+        prompt.append("\nReturn ONLY a JSON object with these keys:\n");
+        prompt.append("\"intro\": a short spoken welcome that previews the stories,\n");
+        prompt.append("\"transitions\": an array of exactly ").append(Math.max(0, articles.size() - 1))
+                .append(" one-sentence transitions, where item k leads from story k+1 to story k+2,\n");
+        prompt.append("\"conclusion\": a short spoken sign-off.\n");
+        prompt.append("Use plain spoken sentences without speaker markers.");
+        try {
+            String content = extractMessageContent(sendChatCompletionRequest(prompt.toString(), 0.7f,
+                    STITCH_MAX_TOKENS, token, json -> {
+                        String text = messageContentOrEmpty(json);
+                        int open = text.indexOf('{');
+                        return open >= 0 && text.lastIndexOf('}') > open;
+                    }));
+            int open = content.indexOf('{');
+            int close = content.lastIndexOf('}');
+            if (open < 0 || close <= open) {
+                throw new IllegalStateException("Stitch response is not JSON");
+            }
+            return gson.fromJson(content.substring(open, close + 1), StitchResponse.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Stitch request failed", e);
+        }
+    }
+    // Content of the first choice, or "" if the response has none or cannot be read
+    private String messageContentOrEmpty(String jsonResponse) {
+        try {
+            return extractMessageContent(jsonResponse);
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+    private boolean hasMessageContent(String jsonResponse) {
+        return !messageContentOrEmpty(jsonResponse).trim().isEmpty();
+    }
+    private String extractMessageContent(String jsonResponse) {
+        OpenAIResponse response = gson.fromJson(jsonResponse, OpenAIResponse.class);
+        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
+            throw new IllegalStateException("No choices in response");
+        }
+        String content = response.getChoices().get(0).getMessage().getContent();
+        return content != null ? content : "";
+    }
+    // Rewrites a marked-up script as "SPEAKER: text" paragraphs (plain paragraphs for one host)
+    private String joinSpeakerTurns(String script) {
+        StringBuilder text = new StringBuilder();
+        SpeakerTurnTokenizer tokenizer = new SpeakerTurnTokenizer(new SpeakerTurnTokenizer.Listener() {
+            @Override
+            public void onTurnStart(String speaker, int offset) {
+            }
+            @Override
+            public void onTurnComplete(PodcastSegment turn) {
+                if (text.length() > 0) {
+                    text.append("\n\n");
+                }
+                if (useAIGeneration && turn.getSpeaker() != null) {
+                    text.append(turn.getSpeaker()).append(": ");
+                }
+                text.append(turn.getText());
+            }
+        });
+        tokenizer.append(script);
+        tokenizer.finish();
+        return text.toString();
+    }
+    private static String budgetedBody(NewsArticle article, PromptBudget budget) {
+        int reserved = PromptBudget.estimateTokens(article.getTitle()) + PromptBudget.estimateTokens(article.getAbstract());
+        return budget.fit(article.getFullBodyText(), reserved);
+    }
+    private static boolean hasText(String text) {
+        return text != null && !text.trim().isEmpty();
+    }
     private String buildConversationalPrompt(Set<NewsArticle> articles, List<String> topics, int durationMinutes) {
         StringBuilder prompt = new StringBuilder();
 
@@ -198,6 +492,7 @@ public class OpenAIService {
 
         // Articles to discuss
         prompt.append("NEWS ARTICLES TO DISCUSS:\n\n");
+        PromptBudget budget = new PromptBudget(durationMinutes, articles.size());
 
         List<NewsArticle> articlesList = new ArrayList<>(articles);
         for (int i = 0; i < articlesList.size(); i++) {
@@ -212,9 +507,9 @@ public class OpenAIService {
 
             prompt.append("Abstract: ").append(article.getAbstract()).append("\n");
 
-            // Add the full article content when available
+            // Add the full article content when available, compressed to its share of the budget
             if (article.getFullBodyText() != null && !article.getFullBodyText().isEmpty()) {
-                prompt.append("Full Content: ").append(article.getFullBodyText()).append("\n");
+                prompt.append("Full Content: ").append(budgetedBody(article, budget)).append("\n");
             }
 
             prompt.append("\n");
@@ -236,6 +531,7 @@ public class OpenAIService {
 
         prompt.append("\nREMEMBER: Create a script that thoroughly discusses each article using the full content provided.");
 
+        Log.d(TAG, "Prompt budget: " + budget + ", prompt ~" + PromptBudget.estimateTokens(prompt.toString()) + " tokens");
         return prompt.toString();
     }
     /**
@@ -274,6 +570,21 @@ public class OpenAIService {
         return false;
     }
     private String sendChatCompletionRequest(String prompt, float temperature) throws java.io.IOException {
+        // Add higher max tokens to ensure complete responses
+        return sendChatCompletionRequest(prompt, temperature, 4000);
+    }
+    private String sendChatCompletionRequest(String prompt, float temperature, int maxTokens) throws java.io.IOException {
+        return sendChatCompletionRequest(prompt, temperature, maxTokens, CancellationToken.NONE);
+    }
+    private String sendChatCompletionRequest(String prompt, float temperature, int maxTokens,
+                                             CancellationToken token) throws java.io.IOException {
+        return sendChatCompletionRequest(prompt, temperature, maxTokens, token, this::hasMessageContent);
+    }
+    // Only responses passing isCacheable are stored, so an empty or truncated reply is not replayed
+    private String sendChatCompletionRequest(String prompt, float temperature, int maxTokens,
+                                             CancellationToken token, Predicate<String> isCacheable)
+            throws java.io.IOException {
+        token.throwIfCancelled();
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("model", MODEL);
 
@@ -285,8 +596,15 @@ public class OpenAIService {
 
         requestBody.add("messages", messages);
         requestBody.addProperty("temperature", temperature);
-        // Add higher max tokens to ensure complete responses
-        requestBody.addProperty("max_tokens", 4000);
+        requestBody.addProperty("max_tokens", maxTokens);
+
+        String cacheKey = LlmResponseCache.keyFor(
+                LlmResponseCache.KIND_COMPLETION + ":" + maxTokens, MODEL, temperature, prompt);
+        String cached = getCachedResponse(cacheKey);
+        if (cached != null) {
+            Log.d(TAG, "Completion served from response cache");
+            return cached;
+        }
 
         RequestBody body = RequestBody.create(requestBody.toString(), JSON);
         Request request = new Request.Builder()
@@ -296,11 +614,17 @@ public class OpenAIService {
                 .post(body)
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
+        Call call = client.newCall(request);
+        try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+             Response response = call.execute()) {
             if (!response.isSuccessful()) {
                 throw new java.io.IOException("API request failed: " + response.code() + " " + response.message());
             }
-            return response.body() != null ? response.body().string() : "";
+            String responseBody = response.body() != null ? response.body().string() : "";
+            if (responseCache != null && isCacheable.test(responseBody)) {
+                responseCache.put(cacheKey, responseBody);
+            }
+            return responseBody;
         }
     }
 
@@ -308,118 +632,153 @@ public class OpenAIService {
     private String sendChatCompletionRequest(String prompt) throws java.io.IOException {
         return sendChatCompletionRequest(prompt, 0.7f);
     }
-    private CompletableFuture<String> sendStreamingRequest(String prompt, StreamingResponseHandler responseHandler) {
-        CompletableFuture<String> future = new CompletableFuture<>();
+    private CompletableFuture<String> sendStreamingRequest(String prompt, StreamingResponseHandler responseHandler,
+                                                          Consumer<PodcastSegment> turnConsumer,
+                                                          CancellationToken token) {
+        CompletableFuture<String> future = token.bind(new CompletableFuture<>());
         final StringBuilder completeResponse = new StringBuilder();
-        responseHandler.onContentReceived("Starting generation...");
-        Log.d(TAG, "Starting streaming request to OpenAI API...");
-        Thread streamingThread = new Thread(() -> {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.HEADERS);
-            OkHttpClient streamClient = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .readTimeout(120, TimeUnit.SECONDS)
-                    .connectTimeout(60, TimeUnit.SECONDS)
-                    .writeTimeout(60, TimeUnit.SECONDS)
-                    .build();
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", MODEL);
-            requestBody.addProperty("stream", true);
-            requestBody.addProperty("temperature", 0.7);
-            JsonArray messages = new JsonArray();
-            JsonObject message = new JsonObject();
-            message.addProperty("role", "user");
-            message.addProperty("content", prompt);
-            messages.add(message);
-            requestBody.add("messages", messages);
-            Log.d(TAG, "API Request Body: " + requestBody.toString());
-            RequestBody body = RequestBody.create(requestBody.toString(), JSON);
-            Request request = new Request.Builder()
-                    .url(API_URL)
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .post(body)
-                    .build();
-            try (Response response = streamClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "No response body";
-                    Log.e(TAG, "API request failed: " + response.code() + " " + response.message() + " - " + errorBody);
-                    throw new IOException("API request failed: " + response.code() + " " + response.message());
+        final SpeakerTurnTokenizer tokenizer = new SpeakerTurnTokenizer(new SpeakerTurnTokenizer.Listener() {
+            private String lastSpeaker;
+            @Override
+            public void onTurnStart(String speaker, int offset) {
+                responseHandler.onSegmentBoundary(speaker, offset);
+                if (!speaker.equals(lastSpeaker)) {
+                    lastSpeaker = speaker;
+                    responseHandler.onSpeakerChange(speaker);
+                    Log.d(TAG, "Speaker changed to: " + speaker);
                 }
-                if (response.body() == null) {
-                    Log.e(TAG, "Empty response body from API");
-                    throw new IOException("Empty response body");
+            }
+            @Override
+            public void onTurnComplete(PodcastSegment turn) {
+                // Nothing downstream (TTS in particular) gets new turns once cancelled
+                if (token.isCancelled()) {
+                    return;
                 }
-                Log.d(TAG, "API response received, processing stream...");
-                responseHandler.onContentReceived("API connected, processing response...");
-                try (okio.BufferedSource source = response.body().source()) {
-                    String currentLine;
-                    String currentSpeaker = null;
-                    int lineCount = 0;
-                    String fullTranscript = "";
-                    while ((currentLine = source.readUtf8Line()) != null) {
-                        lineCount++;
-                        if (lineCount % 10 == 0) {
-                            Log.d(TAG, "Processed " + lineCount + " lines from stream");
-                        }
-                        if (currentLine.isEmpty()) continue;
-                        Log.d(TAG, "Stream line: " + currentLine);
-                        if (currentLine.startsWith("data: ")) {
-                            currentLine = currentLine.substring(6);
-                        }
-                        if (currentLine.equals("[DONE]")) {
-                            Log.d(TAG, "Received stream [DONE] marker");
-                            continue;
-                        }
-                        try {
-                            JsonObject chunk = gson.fromJson(currentLine, JsonObject.class);
-                            if (chunk.has("choices")) {
-                                JsonArray choices = chunk.getAsJsonArray("choices");
-                                if (choices.size() > 0) {
-                                    JsonObject choice = choices.get(0).getAsJsonObject();
-                                    if (choice.has("delta")) {
-                                        JsonObject delta = choice.getAsJsonObject("delta");
-                                        if (delta.has("content")) {
-                                            String content = delta.get("content").getAsString();
-                                            completeResponse.append(content);
-                                            String currentFullText = completeResponse.toString();
-                                            boolean containsHostMarker = content.contains("§HOST§");
-                                            responseHandler.onFullTranscriptUpdate(currentFullText);
-                                            if (containsHostMarker) {
-                                                String newSpeaker = "HOST";
-                                                if (!newSpeaker.equals(currentSpeaker)) {
-                                                    currentSpeaker = newSpeaker;
-                                                    responseHandler.onSpeakerChange(currentSpeaker);
-                                                    Log.d(TAG, "Speaker changed to: " + currentSpeaker);
-                                                }
-                                            }
-                                            if (currentSpeaker != null) {
-                                                responseHandler.onTokenReceived(currentSpeaker, content);
-                                            } else {
-                                                responseHandler.onContentReceived(content);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error parsing streaming response: " + e.getMessage(), e);
-                        }
+                // Dropped here rather than in the builder, so a filler turn is neither
+                // stored in the content nor spoken by pipelined playback
+                if (containsGenericFiller(turn.getText())) {
+                    Log.d(TAG, "Removed filler turn: " + turn.getText());
+                    return;
+                }
+                responseHandler.onSpeakerComplete(turn.getSpeaker(), turn.getText());
+                responseHandler.onSegmentComplete(turn);
+                turnConsumer.accept(turn);
+            }
+        });
+        responseHandler.onContentReceived("Starting generation...");
+        Log.d(TAG, "Starting streaming request to OpenAI API...");
+        // Holds a network thread for as long as the stream is open
+        networkExecutor.execute(() -> {
+            try {
+                String cacheKey = LlmResponseCache.keyFor(LlmResponseCache.KIND_STREAM, MODEL, 0.7f, prompt);
+                String cached = getCachedResponse(cacheKey);
+                if (cached != null) {
+                    // Replay the recorded SSE lines through the same path as a live stream
+                    Log.d(TAG, "Streaming response served from response cache");
+                    try (okio.Buffer replay = new okio.Buffer().writeUtf8(cached)) {
+                        readStream(replay, responseHandler, completeResponse, tokenizer, null, token);
+                    }
+                } else {
+                    StringBuilder recording = responseCache != null ? new StringBuilder() : null;
+                    boolean finished = streamFromApi(prompt, responseHandler, completeResponse, tokenizer,
+                            recording, token);
+                    // A stream cut off before [DONE], or one that said nothing, is not worth replaying
+                    if (recording != null && finished && completeResponse.toString().trim().length() > 0) {
+                        responseCache.put(cacheKey, recording.toString());
                     }
                 }
+                token.throwIfCancelled();
+                tokenizer.finish();
                 String finalResponse = completeResponse.toString();
                 responseHandler.onComplete(finalResponse);
                 future.complete(finalResponse);
                 Log.d(TAG, "Streaming completed successfully");
             } catch (Exception e) {
+                if (token.isCancelled()) {
+                    Log.d(TAG, "Streaming request cancelled after " + completeResponse.length() + " chars");
+                    future.cancel(false);
+                    return;
+                }
                 Log.e(TAG, "Error in streaming request: " + e.getMessage(), e);
                 responseHandler.onError("Streaming error: " + e.getMessage());
                 future.completeExceptionally(e);
             }
         });
-        streamingThread.start();
         return future;
     }
+    private boolean streamFromApi(String prompt, StreamingResponseHandler responseHandler,
+                                  StringBuilder completeResponse, SpeakerTurnTokenizer tokenizer,
+                                  StringBuilder recording, CancellationToken token) throws IOException {
+        token.throwIfCancelled();
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", MODEL);
+        requestBody.addProperty("stream", true);
+        requestBody.addProperty("temperature", 0.7);
+        JsonArray messages = new JsonArray();
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "user");
+        message.addProperty("content", prompt);
+        messages.add(message);
+        requestBody.add("messages", messages);
+        Log.d(TAG, "API Request Body: " + requestBody.toString());
+        RequestBody body = RequestBody.create(requestBody.toString(), JSON);
+        Request request = new Request.Builder()
+                .url(API_URL)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(body)
+                .build();
+        Call call = streamClient.newCall(request);
+        // Cancelling the call closes the socket, which ends the blocking read below
+        try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+             Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No response body";
+                Log.e(TAG, "API request failed: " + response.code() + " " + response.message() + " - " + errorBody);
+                throw new IOException("API request failed: " + response.code() + " " + response.message());
+            }
+            if (response.body() == null) {
+                Log.e(TAG, "Empty response body from API");
+                throw new IOException("Empty response body");
+            }
+            Log.d(TAG, "API response received, processing stream...");
+            responseHandler.onContentReceived("API connected, processing response...");
+            try (okio.BufferedSource source = response.body().source()) {
+                return readStream(source, responseHandler, completeResponse, tokenizer, recording, token);
+            }
+        }
+    }
+    // Returns true once the [DONE] marker is seen; recording, if given, receives each data line
+    private boolean readStream(okio.BufferedSource source, StreamingResponseHandler responseHandler,
+                               StringBuilder completeResponse, SpeakerTurnTokenizer tokenizer,
+                               StringBuilder recording, CancellationToken token) throws IOException {
+        long snapshotIntervalMs = responseHandler.getFullTranscriptIntervalMs();
+        long lastSnapshotAt = 0;
+        SseDeltaDecoder decoder = new SseDeltaDecoder(source, recording);
+        String content;
+        while ((content = decoder.nextDelta()) != null) {
+            token.throwIfCancelled();
+            int offset = completeResponse.length();
+            completeResponse.append(content);
+            responseHandler.onTranscriptDelta(offset, content);
+            tokenizer.append(content);
+            String currentSpeaker = tokenizer.getCurrentSpeaker();
+            if (snapshotIntervalMs > 0) {
+                long now = System.currentTimeMillis();
+                if (now - lastSnapshotAt >= snapshotIntervalMs) {
+                    lastSnapshotAt = now;
+                    responseHandler.onFullTranscriptUpdate(completeResponse.toString());
+                }
+            }
+            if (currentSpeaker != null) {
+                responseHandler.onTokenReceived(currentSpeaker, content);
+            } else {
+                responseHandler.onContentReceived(content);
+            }
+        }
+        Log.d(TAG, "Processed " + decoder.getChunkCount() + " stream chunks, done=" + decoder.isDone());
+        return decoder.isDone();
+    }
     private PodcastContent convertResponseToPodcastContent(
             String jsonResponse,
             List<String> topics,
@@ -866,6 +1225,11 @@ public class OpenAIService {
             }
         }
     }
+    private static class StitchResponse {
+        private String intro;
+        private List<String> transitions;
+        private String conclusion;
+    }
     private static class PodcastResponseContent {
         private String intro;
         private List<PodcastSegmentContent> segments;
@@ -880,6 +1244,70 @@ public class OpenAIService {
             return conclusion;
         }
     }
+    /**
+     * Assembles PodcastContent one speaker turn at a time while the script streams in,
+     * using the same intro/discussion/conclusion rules as the batch parsers. Turns are
+     * copied before they are labelled, since the same turn objects go to playback.
+     */
+    private class StreamedPodcastBuilder {
+        private final String podcastTitle;
+        private final List<String> topics;
+        private final PodcastContent content;
+        private final int introTurns;
+        private int turnCount = 0;
+        private boolean inConclusion = false;
+        StreamedPodcastBuilder(String podcastTitle, List<String> topics) {
+            this.podcastTitle = podcastTitle;
+            this.topics = topics;
+            this.content = new PodcastContent(podcastTitle, topics);
+            // Two hosts greet each other first; a single host opens with one paragraph
+            this.introTurns = useAIGeneration ? 3 : 1;
+        }
+        void addTurn(PodcastSegment streamedTurn) {
+            String text = streamedTurn.getText();
+            PodcastSegment turn = new PodcastSegment(streamedTurn.getTitle(), text, streamedTurn.getType());
+            turn.setSpeaker(streamedTurn.getSpeaker());
+            turn.setOffsets(streamedTurn.getStartOffset(), streamedTurn.getEndOffset());
+            int index = turnCount++;
+            String lower = text.toLowerCase();
+            if (lower.contains("thank you for listening") || lower.contains("that's all for today")
+                    || lower.contains("until next time") || lower.contains("signing off")) {
+                inConclusion = true;
+            }
+            if (index < introTurns) {
+                turn.setType(PodcastSegment.SegmentType.INTRO);
+                turn.setTitle("Introduction");
+            } else if (inConclusion) {
+                turn.setType(PodcastSegment.SegmentType.CONCLUSION);
+                turn.setTitle("Conclusion");
+            } else {
+                turn.setTitle(useAIGeneration ? "Discussion" : generateSegmentTitle(text));
+            }
+            if (useAIGeneration && turn.getSpeaker() != null) {
+                turn.setText(turn.getSpeaker() + ": " + text);
+            } else {
+                turn.recalculateDuration();
+            }
+            content.addSegment(turn);
+        }
+        PodcastContent build(String transcript) {
+            List<PodcastSegment> segments = content.getSegments();
+            if (segments.isEmpty()) {
+                Log.w(TAG, "No speaker turns in streamed response, using fallback content");
+                return createFallbackPodcastContent(transcript, topics, podcastTitle);
+            }
+            PodcastSegment last = segments.get(segments.size() - 1);
+            if (!useAIGeneration && segments.size() > 2
+                    && last.getType() == PodcastSegment.SegmentType.NEWS_ARTICLE) {
+                // Single-host scripts close with their last paragraph
+                last.setType(PodcastSegment.SegmentType.CONCLUSION);
+                last.setTitle("Conclusion");
+                last.recalculateDuration();
+            }
+            content.setTranscriptText(transcript);
+            return content;
+        }
+    }
     private static class PodcastSegmentContent {
         private String title;
         private String content;
@@ -890,6 +1318,11 @@ public class OpenAIService {
             return content;
         }
     }
+    /**
+     * Receives a streamed transcript as append-only deltas: the transcript so far is
+     * exactly the concatenation of every {@link #onTranscriptDelta} in order, so callers
+     * never need the whole text until {@link #onComplete}.
+     */
     public interface StreamingResponseHandler {
         void onContentReceived(String content);
         void onSpeakerChange(String speaker);
@@ -897,7 +1330,22 @@ public class OpenAIService {
         void onSpeakerComplete(String speaker, String completeText);
         void onComplete(String fullResponse);
         void onError(String error);
-        void onFullTranscriptUpdate(String fullTranscript);
+        // offset is the transcript length before appended was added
+        default void onTranscriptDelta(int offset, String appended) {
+        }
+        // A §speaker§ marker starts at offset in the transcript
+        default void onSegmentBoundary(String speaker, int offset) {
+        }
+        // A speaker turn ended; called in order, before onComplete for the last turn
+        default void onSegmentComplete(PodcastSegment segment) {
+        }
+        // Opt-in snapshot of the whole transcript, at most once per getFullTranscriptIntervalMs()
+        default void onFullTranscriptUpdate(String fullTranscript) {
+        }
+        // Snapshots copy the whole transcript; 0 (the default) disables them
+        default long getFullTranscriptIntervalMs() {
+            return 0;
+        }
     }
     private void processSpeakerChange(String content, String currentSpeaker,
                                      StringBuilder currentSpeakerBuffer,
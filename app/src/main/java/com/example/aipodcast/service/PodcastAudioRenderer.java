@@ -0,0 +1,596 @@
+package com.example.aipodcast.service;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+import com.example.aipodcast.model.AudioSegment;
+import com.example.aipodcast.model.PodcastContent;
+import com.example.aipodcast.model.PodcastSegment;
+import com.example.aipodcast.player.PodcastPlayerController;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.PodcastCacheManager;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+/**
+ * Plays a podcast from audio files rendered with TextToSpeech.synthesizeToFile instead of
+ * live speech. The script is split into parts of a few sentences, and parts are rendered
+ * in a bounded window ahead of the one playing. Finished parts are stored with
+ * PodcastCacheManager and appended to PodcastPlayerController's playlist, so playback
+ * starts after the first short part. Durations are read from the rendered files, which
+ * makes seeking exact; speed changes go to ExoPlayer without re-synthesis, and a replay
+ * plays the cached files. All state is confined to the main thread.
+ */
+public class PodcastAudioRenderer {
+    private static final String TAG = "PodcastAudioRenderer";
+    private static final String WORK_DIR = "podcast_render";
+    private static final String EXTENSION = "wav";
+    // A short first part gets audio playing after one quick synthesis
+    static final int FIRST_PART_CHARS = 300;
+    static final int MAX_PART_CHARS = 1500;
+    // How many parts past the one playing are rendered in advance
+    static final int RUN_AHEAD_PARTS = 4;
+    // Requests queued on the engine at once, so it moves from one part to the next
+    // without waiting on the cache write in between
+    private static final int MAX_IN_FLIGHT = 2;
+    private static final int WORDS_PER_MINUTE = 150;
+    public interface Listener {
+        void onPlaybackStateChanged(boolean playing);
+        // Playback is waiting for a part that is not rendered yet, or has resumed
+        void onBuffering(boolean buffering);
+        void onPlaybackComplete();
+        // Rendering or playback failed; callers fall back to live speech
+        void onError(String message);
+    }
+    private enum PartState { PENDING, RENDERING, READY, FAILED }
+    private static final class Part {
+        final String text;
+        final String cacheId;
+        PartState state = PartState.PENDING;
+        File file;
+        // Estimated from the word count until the part is rendered
+        long durationMs;
+        Part(String text, String cacheId, long durationMs) {
+            this.text = text;
+            this.cacheId = cacheId;
+            this.durationMs = durationMs;
+        }
+    }
+    private static final class RenderedFile {
+        final File file;
+        final long durationMs;
+        RenderedFile(File file, long durationMs) {
+            this.file = file;
+            this.durationMs = durationMs;
+        }
+    }
+    private final Context context;
+    private final PodcastCacheManager cacheManager;
+    private final Executor diskExecutor;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final PodcastPlayerController player;
+    private final TextToSpeech tts;
+    private final CompletableFuture<Void> workDirCleared;
+    private boolean ttsReady = false;
+    private boolean released = false;
+    private PodcastContent content;
+    private String podcastId;
+    private float playbackSpeed = 1.0f;
+    private final List<Part> parts = new ArrayList<>();
+    // The playlist holds the consecutive parts from anchorPart up to playlistEnd, minus
+    // failed ones; itemParts maps each playlist item to its part
+    private final List<Integer> itemParts = new ArrayList<>();
+    private int anchorPart = 0;
+    private int playlistEnd = 0;
+    private long anchorOffsetMs = 0;
+    private int playheadPart = 0;
+    private int inFlight = 0;
+    // Bumped on every start, so engine and cache callbacks for an earlier podcast are dropped
+    private int generation = 0;
+    private boolean playlistStarted = false;
+    private boolean waitingForParts = false;
+    private boolean wantPlaying = false;
+    public PodcastAudioRenderer(Context context, Listener listener) {
+        this(context, PodcastCacheManager.getInstance(context), AppScheduler.getInstance(), listener);
+    }
+    public PodcastAudioRenderer(Context context, PodcastCacheManager cacheManager, AppScheduler scheduler,
+                                Listener listener) {
+        this.context = context.getApplicationContext();
+        this.cacheManager = cacheManager;
+        this.diskExecutor = scheduler.executor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
+        this.listener = listener;
+        this.player = new PodcastPlayerController(context, new PlayerEvents());
+        this.tts = new TextToSpeech(this.context, status -> mainHandler.post(() -> onTtsInitialized(status)));
+        // Anything left here was interrupted by an earlier session; rendering waits for this
+        this.workDirCleared = CompletableFuture.runAsync(() -> {
+            File[] leftovers = getWorkDir().listFiles();
+            if (leftovers != null) {
+                for (File file : leftovers) {
+                    file.delete();
+                }
+            }
+        }, diskExecutor);
+    }
+    private void onTtsInitialized(int status) {
+        if (released) {
+            return;
+        }
+        if (status != TextToSpeech.SUCCESS || tts.setLanguage(Locale.US) < TextToSpeech.LANG_AVAILABLE) {
+            listener.onError("Text-to-speech engine is not available for rendering");
+            return;
+        }
+        // Rendered at normal rate and pitch; playback speed is applied by the player
+        tts.setSpeechRate(1.0f);
+        tts.setPitch(1.0f);
+        tts.setOnUtteranceProgressListener(new RenderProgress());
+        workDirCleared.whenComplete((ignored, error) -> mainHandler.post(() -> {
+            ttsReady = true;
+            pump();
+        }));
+    }
+    /**
+     * Starts rendering content and plays it from the beginning once the first part is
+     * ready. Replaces whatever was rendering or playing before.
+     */
+    public void start(PodcastContent content, float speed) {
+        if (released) {
+            return;
+        }
+        generation++;
+        if (ttsReady) {
+            tts.stop();
+        }
+        this.content = content;
+        this.podcastId = content.getId() != null && !content.getId().isEmpty()
+                ? content.getId() : Integer.toHexString(content.getFullText().hashCode());
+        this.playbackSpeed = speed;
+        inFlight = 0;
+        splitIntoParts(content);
+        if (parts.isEmpty()) {
+            listener.onError("Podcast has no text to render");
+            return;
+        }
+        wantPlaying = true;
+        Log.d(TAG, "Rendering podcast " + podcastId + " as " + parts.size() + " parts");
+        restartAt(0, 0);
+    }
+    public boolean isActiveFor(PodcastContent content) {
+        return !released && content != null && this.content == content && !parts.isEmpty();
+    }
+    public void play() {
+        wantPlaying = true;
+        if (playlistStarted && !waitingForParts) {
+            player.play();
+        }
+    }
+    public void pause() {
+        wantPlaying = false;
+        player.pause();
+    }
+    public boolean isPlaying() {
+        return player.isPlaying();
+    }
+    public void setPlaybackSpeed(float speed) {
+        playbackSpeed = speed;
+        player.setPlaybackSpeed(speed);
+    }
+    // Total length: measured for rendered parts, estimated for the rest
+    public long getDurationMs() {
+        return startOfPart(parts.size());
+    }
+    public long getPositionMs() {
+        if (!playlistStarted) {
+            return startOfPart(anchorPart) + anchorOffsetMs;
+        }
+        int item = player.getCurrentItemIndex();
+        if (waitingForParts || item >= itemParts.size()) {
+            return startOfPart(playheadPart);
+        }
+        return startOfPart(itemParts.get(item)) + player.getCurrentPosition();
+    }
+    public void seekTo(long positionMs) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        int target = parts.size() - 1;
+        long start = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            long duration = parts.get(i).durationMs;
+            if (positionMs < start + duration || i == parts.size() - 1) {
+                target = i;
+                break;
+            }
+            start += duration;
+        }
+        long offset = Math.max(0, Math.min(positionMs - start, parts.get(target).durationMs));
+        int item = itemParts.indexOf(target);
+        if (playlistStarted && item >= 0) {
+            if (waitingForParts) {
+                waitingForParts = false;
+                listener.onBuffering(false);
+                if (wantPlaying) {
+                    player.play();
+                }
+            }
+            player.seekTo(item, offset);
+            playheadPart = target;
+            pump();
+            return;
+        }
+        // Outside the playlist: start a new one at the target once it is rendered
+        restartAt(target, offset);
+    }
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        generation++;
+        mainHandler.removeCallbacksAndMessages(null);
+        tts.stop();
+        tts.shutdown();
+        player.release();
+    }
+    private void restartAt(int target, long offsetMs) {
+        playlistStarted = false;
+        waitingForParts = false;
+        itemParts.clear();
+        player.stop();
+        anchorPart = target;
+        playlistEnd = target;
+        anchorOffsetMs = offsetMs;
+        playheadPart = target;
+        listener.onBuffering(true);
+        extendPlaylist();
+        pump();
+    }
+    private void splitIntoParts(PodcastContent content) {
+        parts.clear();
+        // Same preference as PodcastContent.getFullText: AI transcripts are in audio segments
+        List<String> texts = new ArrayList<>();
+        if (!content.getAudioSegments().isEmpty()) {
+            for (AudioSegment segment : content.getAudioSegments()) {
+                texts.add(segment.getText());
+            }
+        } else {
+            for (PodcastSegment segment : content.getSegments()) {
+                texts.add(segment.getText());
+            }
+        }
+        for (String chunk : splitIntoChunks(texts)) {
+            String cacheId = "r" + parts.size() + "_" + Integer.toHexString(chunk.hashCode());
+            parts.add(new Part(chunk, cacheId, estimateDurationMs(chunk)));
+        }
+    }
+    // Part texts in order; only the very first part is capped at FIRST_PART_CHARS
+    static List<String> splitIntoChunks(List<String> texts) {
+        List<String> chunks = new ArrayList<>();
+        for (String text : texts) {
+            String cleaned = SimplifiedTTSHelper.cleanTextForTTS(text);
+            if (cleaned == null || cleaned.isEmpty()) {
+                continue;
+            }
+            chunks.addAll(splitAtSentences(cleaned, chunks.isEmpty() ? FIRST_PART_CHARS : MAX_PART_CHARS));
+        }
+        return chunks;
+    }
+    // Runs of whole sentences of at most maxChars; only the first run uses firstMaxChars
+    static List<String> splitAtSentences(String text, int firstMaxChars) {
+        List<String> chunks = new ArrayList<>();
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.US);
+        sentences.setText(text);
+        StringBuilder current = new StringBuilder();
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end);
+            int limit = chunks.isEmpty() ? firstMaxChars : MAX_PART_CHARS;
+            if (current.length() > 0 && current.length() + sentence.length() > limit) {
+                chunks.add(current.toString().trim());
+                current.setLength(0);
+                limit = MAX_PART_CHARS;
+            }
+            // A sentence longer than a whole part is cut at word boundaries
+            while (sentence.length() > limit) {
+                int cut = sentence.lastIndexOf(' ', limit);
+                if (cut <= 0) {
+                    cut = limit;
+                }
+                chunks.add(sentence.substring(0, cut).trim());
+                sentence = sentence.substring(cut);
+                limit = MAX_PART_CHARS;
+            }
+            current.append(sentence);
+        }
+        if (current.toString().trim().length() > 0) {
+            chunks.add(current.toString().trim());
+        }
+        return chunks;
+    }
+    private static long estimateDurationMs(String text) {
+        int words = text.split("\\s+").length;
+        return Math.max(1000, words * 60000L / WORDS_PER_MINUTE);
+    }
+    private long startOfPart(int index) {
+        long start = 0;
+        for (int i = 0; i < index && i < parts.size(); i++) {
+            start += parts.get(i).durationMs;
+        }
+        return start;
+    }
+    // Starts rendering the unrendered parts in the window ahead of the playhead
+    private void pump() {
+        if (!ttsReady || released || parts.isEmpty()) {
+            return;
+        }
+        int last = lastPartToRender(playheadPart, parts.size());
+        for (int i = playheadPart; i <= last && inFlight < MAX_IN_FLIGHT; i++) {
+            if (parts.get(i).state == PartState.PENDING) {
+                render(i);
+            }
+        }
+    }
+    // The window is the playing part plus RUN_AHEAD_PARTS, clipped to the end of the script
+    static int lastPartToRender(int playheadPart, int partCount) {
+        return Math.min(partCount - 1, playheadPart + RUN_AHEAD_PARTS);
+    }
+    private void render(int index) {
+        Part part = parts.get(index);
+        part.state = PartState.RENDERING;
+        inFlight++;
+        int renderGeneration = generation;
+        cacheManager.getAudioFilePath(podcastId, part.cacheId, EXTENSION)
+                .thenApplyAsync(path -> path != null ? measure(new File(path)) : null, diskExecutor)
+                .whenComplete((cached, error) -> mainHandler.post(() -> {
+                    if (renderGeneration != generation) {
+                        return;
+                    }
+                    if (cached != null) {
+                        onPartReady(index, cached);
+                    } else {
+                        synthesize(index);
+                    }
+                }));
+    }
+    private void synthesize(int index) {
+        Part part = parts.get(index);
+        File target = new File(getWorkDir(), podcastId + "_" + part.cacheId + "." + EXTENSION);
+        int result = tts.synthesizeToFile(part.text, null, target, generation + ":" + index);
+        if (result != TextToSpeech.SUCCESS) {
+            onPartFailed(index, "synthesizeToFile returned " + result);
+        }
+    }
+    private void onSynthesized(int renderGeneration, int index) {
+        if (renderGeneration != generation) {
+            return;
+        }
+        Part part = parts.get(index);
+        File rendered = new File(getWorkDir(), podcastId + "_" + part.cacheId + "." + EXTENSION);
+        CompletableFuture<RenderedFile> stored = cacheManager.cacheAudioFile(rendered, podcastId, part.cacheId)
+                .thenApplyAsync(path -> measure(new File(path)), diskExecutor);
+        stored.whenComplete((file, error) -> mainHandler.post(() -> {
+            if (renderGeneration != generation) {
+                return;
+            }
+            if (error != null || file == null) {
+                onPartFailed(index, error != null ? error.getMessage() : "empty audio file");
+            } else {
+                onPartReady(index, file);
+            }
+        }));
+    }
+    private void onPartReady(int index, RenderedFile rendered) {
+        inFlight--;
+        Part part = parts.get(index);
+        part.state = PartState.READY;
+        part.file = rendered.file;
+        if (rendered.durationMs > 0) {
+            part.durationMs = rendered.durationMs;
+        }
+        extendPlaylist();
+        pump();
+    }
+    private void onPartFailed(int index, String reason) {
+        inFlight--;
+        Log.w(TAG, "Rendering part " + index + " failed, skipping it: " + reason);
+        Part part = parts.get(index);
+        part.state = PartState.FAILED;
+        part.durationMs = 0;
+        boolean anyRendered = false;
+        for (Part other : parts) {
+            anyRendered |= other.state != PartState.FAILED;
+        }
+        if (!anyRendered) {
+            listener.onError("Could not render any part of the podcast");
+            return;
+        }
+        extendPlaylist();
+        pump();
+    }
+    // Hands newly contiguous parts to the player, starting playback with the first ones
+    private void extendPlaylist() {
+        List<File> added = new ArrayList<>();
+        int firstNewItem = itemParts.size();
+        while (playlistEnd < parts.size()) {
+            Part part = parts.get(playlistEnd);
+            if (part.state == PartState.READY) {
+                added.add(part.file);
+                itemParts.add(playlistEnd);
+            } else if (part.state != PartState.FAILED) {
+                break;
+            }
+            playlistEnd++;
+        }
+        if (added.isEmpty()) {
+            if (waitingForParts && playlistEnd >= parts.size()) {
+                // Everything left failed to render
+                waitingForParts = false;
+                listener.onBuffering(false);
+                listener.onPlaybackComplete();
+            }
+            return;
+        }
+        if (!playlistStarted) {
+            playlistStarted = true;
+            player.playFiles(added);
+            player.setPlaybackSpeed(playbackSpeed);
+            if (anchorOffsetMs > 0 && itemParts.get(0) == anchorPart) {
+                player.seekTo(0, anchorOffsetMs);
+            }
+            if (!wantPlaying) {
+                player.pause();
+            }
+            listener.onBuffering(false);
+        } else {
+            player.appendFiles(added);
+            if (waitingForParts) {
+                waitingForParts = false;
+                player.seekTo(firstNewItem, 0);
+                if (wantPlaying) {
+                    player.play();
+                }
+                listener.onBuffering(false);
+            }
+        }
+    }
+    private File getWorkDir() {
+        File dir = new File(context.getCacheDir(), WORK_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+    // Null for a missing or empty file, which is treated as not rendered
+    private static RenderedFile measure(File file) {
+        if (!file.exists() || file.length() == 0) {
+            return null;
+        }
+        return new RenderedFile(file, readWavDurationMs(file));
+    }
+    // Duration of a RIFF/WAVE file from its fmt and data chunks; -1 if it is not one
+    static long readWavDurationMs(File file) {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] header = new byte[12];
+            in.readFully(header);
+            if (!"RIFF".equals(new String(header, 0, 4, StandardCharsets.US_ASCII))
+                    || !"WAVE".equals(new String(header, 8, 4, StandardCharsets.US_ASCII))) {
+                return -1;
+            }
+            long byteRate = 0;
+            byte[] chunkHeader = new byte[8];
+            while (in.getFilePointer() + chunkHeader.length <= in.length()) {
+                in.readFully(chunkHeader);
+                String id = new String(chunkHeader, 0, 4, StandardCharsets.US_ASCII);
+                long size = readIntLittleEndian(chunkHeader, 4) & 0xffffffffL;
+                long remaining = in.length() - in.getFilePointer();
+                if ("fmt ".equals(id) && size >= 16) {
+                    byte[] format = new byte[16];
+                    in.readFully(format);
+                    byteRate = readIntLittleEndian(format, 8) & 0xffffffffL;
+                    in.seek(in.getFilePointer() + size - 16 + (size & 1));
+                } else if ("data".equals(id)) {
+                    // Engines that write the header before the audio may leave the size unset
+                    long dataBytes = size == 0 || size == 0xffffffffL ? remaining : Math.min(size, remaining);
+                    return byteRate > 0 ? dataBytes * 1000 / byteRate : -1;
+                } else {
+                    in.seek(in.getFilePointer() + size + (size & 1));
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read WAV header of " + file.getName() + ": " + e.getMessage());
+        }
+        return -1;
+    }
+    private static int readIntLittleEndian(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+    }
+    // Engine callbacks arrive on a binder thread; everything is handled on the main thread
+    private final class RenderProgress extends UtteranceProgressListener {
+        @Override
+        public void onStart(String utteranceId) {
+        }
+        @Override
+        public void onDone(String utteranceId) {
+            int[] id = parseUtteranceId(utteranceId);
+            if (id != null) {
+                mainHandler.post(() -> onSynthesized(id[0], id[1]));
+            }
+        }
+        @Override
+        public void onError(String utteranceId) {
+            onError(utteranceId, TextToSpeech.ERROR);
+        }
+        @Override
+        public void onError(String utteranceId, int errorCode) {
+            int[] id = parseUtteranceId(utteranceId);
+            if (id != null) {
+                mainHandler.post(() -> {
+                    if (id[0] == generation) {
+                        onPartFailed(id[1], "engine error " + errorCode);
+                    }
+                });
+            }
+        }
+        private int[] parseUtteranceId(String utteranceId) {
+            int colon = utteranceId != null ? utteranceId.indexOf(':') : -1;
+            if (colon < 0) {
+                return null;
+            }
+            try {
+                return new int[] {
+                        Integer.parseInt(utteranceId.substring(0, colon)),
+                        Integer.parseInt(utteranceId.substring(colon + 1))
+                };
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+    private final class PlayerEvents implements PodcastPlayerController.PlayerCallback {
+        @Override
+        public void onPlaybackStateChanged(boolean isPlaying) {
+            if (playlistStarted) {
+                listener.onPlaybackStateChanged(isPlaying);
+            }
+        }
+        @Override
+        public void onProgress(long position, long duration, int segmentIndex) {
+        }
+        @Override
+        public void onError(String errorMessage) {
+            listener.onError(errorMessage);
+        }
+        @Override
+        public void onSegmentChanged(int segmentIndex) {
+        }
+        @Override
+        public void onMediaItemChanged(int itemIndex) {
+            if (itemIndex >= 0 && itemIndex < itemParts.size()) {
+                playheadPart = itemParts.get(itemIndex);
+                pump();
+            }
+        }
+        @Override
+        public void onPlaybackComplete() {
+            if (playlistEnd < parts.size()) {
+                // Playback caught up with rendering
+                waitingForParts = true;
+                playheadPart = playlistEnd;
+                listener.onBuffering(true);
+                pump();
+            } else {
+                listener.onPlaybackComplete();
+            }
+        }
+    }
+}
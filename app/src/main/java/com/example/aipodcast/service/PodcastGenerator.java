@@ -6,6 +6,9 @@ import com.example.aipodcast.model.NewsArticle;
 import com.example.aipodcast.model.PodcastContent;
 import com.example.aipodcast.model.PodcastSegment;
 import com.example.aipodcast.model.PodcastSegment.SegmentType;
+import com.example.aipodcast.util.AppScheduler;
+import com.example.aipodcast.util.CancellationToken;
+import com.example.aipodcast.util.LlmResponseCache;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -20,8 +23,31 @@ public class PodcastGenerator {
     private List<String> topics;
     private boolean useAI;
     private OpenAIService openAIService;
+    private boolean useMapReduce;
+    private LlmResponseCache responseCache;
+    private boolean bypassResponseCache;
     private static final int WORDS_PER_MINUTE = 140; // Average speaking rate
 
+    // Per-article fallbacks for map-reduce generation
+    private final OpenAIService.TemplateSegmentSource templateSegments = new OpenAIService.TemplateSegmentSource() {
+        @Override
+        public PodcastSegment createIntroduction() {
+            return PodcastGenerator.this.createIntroduction();
+        }
+        @Override
+        public PodcastSegment createNewsSegment(NewsArticle article, int index, int total, int targetWordCount) {
+            return PodcastGenerator.this.createNewsSegment(article, index, total, targetWordCount);
+        }
+        @Override
+        public PodcastSegment createTransition(int index, int total) {
+            return PodcastGenerator.this.createTransition(index, total);
+        }
+        @Override
+        public PodcastSegment createConclusion() {
+            return PodcastGenerator.this.createConclusion();
+        }
+    };
+
     public PodcastGenerator(Set<NewsArticle> articles, int duration, List<String> topics) {
         this.selectedArticles = articles;
         this.targetDuration = duration;
@@ -45,18 +71,47 @@ public class PodcastGenerator {
         } else if (this.useAI) {
             Log.d(TAG, "Creating new OpenAIService with useAIGeneration: " + true);
             this.openAIService = new OpenAIService(ApiConfig.OPENAI_API_KEY, true);
+            applyResponseCache();
+        }
+    }
+
+    public void setResponseCache(LlmResponseCache responseCache, boolean bypass) {
+        this.responseCache = responseCache;
+        this.bypassResponseCache = bypass;
+        applyResponseCache();
+    }
+
+    private void applyResponseCache() {
+        if (this.openAIService != null) {
+            this.openAIService.setResponseCache(responseCache);
+            this.openAIService.setBypassResponseCache(bypassResponseCache);
         }
     }
 
+    // Off by default: map-reduce costs one request per article plus a stitch pass
+    public void setUseMapReduce(boolean useMapReduce) {
+        this.useMapReduce = useMapReduce;
+    }
+
     // In PodcastGenerator class
     public CompletableFuture<PodcastContent> generateContentAsync() {
+        return generateContentAsync(new CancellationToken());
+    }
+
+    // Cancelling the token, or the returned future, cancels the AI requests and skips the template fallback
+    public CompletableFuture<PodcastContent> generateContentAsync(CancellationToken token) {
+        // One request per article only pays off once there is more than one article
+        if (useAI && openAIService != null && useMapReduce
+                && selectedArticles != null && selectedArticles.size() > 1) {
+            return token.bind(generateMapReduceAsync(token));
+        }
         if (useAI && openAIService != null) {
             String title = createPodcastTitle();
 
             Log.d(TAG, "useAI flag is set to: " + useAI);
             Log.d(TAG, "Generating AI podcast with target duration: " + targetDuration + " minutes");
 
-            return openAIService.generatePodcastContent(selectedArticles, topics, targetDuration, title, useAI)
+            return token.bind(openAIService.generatePodcastContent(selectedArticles, topics, targetDuration, title, useAI, token)
                     .thenApply(content -> {
                         // Force the duration to match our target
                         int targetSeconds = targetDuration * 60;
@@ -74,11 +129,12 @@ public class PodcastGenerator {
                         return content;
                     })
                     .exceptionally(e -> {
+                        token.throwIfCancelled();
                         Log.e(TAG, "Error generating AI content: " + e.getMessage() + ". Falling back to template.");
                         PodcastContent templateContent = generateContent();
                         templateContent.forceSetTotalDuration(targetDuration * 60);
                         return templateContent;
-                    });
+                    }));
         } else {
             Log.d(TAG, "Generating template podcast with target duration: " + targetDuration + " minutes");
             return CompletableFuture.supplyAsync(() -> {
@@ -88,10 +144,30 @@ public class PodcastGenerator {
                 content.forceSetTotalDuration(targetSeconds);
                 Log.d(TAG, "Forced podcast duration to " + targetSeconds + " seconds");
                 return content;
-            });
+            }, AppScheduler.getInstance().executor(AppScheduler.Pool.CPU, AppScheduler.Priority.USER));
         }
     }
 
+    private CompletableFuture<PodcastContent> generateMapReduceAsync(CancellationToken token) {
+        String title = createPodcastTitle();
+        List<NewsArticle> sortedArticles = sortArticles(new ArrayList<>(selectedArticles));
+        Log.d(TAG, "Generating map-reduce AI podcast for " + sortedArticles.size() + " articles");
+
+        return openAIService.generatePodcastContentMapReduce(sortedArticles, topics, targetDuration, title, templateSegments, token)
+                .thenApply(content -> {
+                    // Failed articles already fell back to templates, so no sufficiency check here
+                    forceTargetDuration(content);
+                    return content;
+                })
+                .exceptionally(e -> {
+                    token.throwIfCancelled();
+                    Log.e(TAG, "Error in map-reduce generation: " + e.getMessage() + ". Falling back to template.");
+                    PodcastContent templateContent = generateContent();
+                    templateContent.forceSetTotalDuration(targetDuration * 60);
+                    return templateContent;
+                });
+    }
+
     // Helper method to check if content is sufficient
     private boolean isContentSufficient(PodcastContent content) {
         if (content == null || content.getSegments().isEmpty()) {
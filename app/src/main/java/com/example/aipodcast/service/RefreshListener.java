@@ -0,0 +1,7 @@
+package com.example.aipodcast.service;
+import com.example.aipodcast.model.NewsArticle;
+import java.util.List;
+// Told when a stale-while-revalidate refresh finds articles the cache did not have yet
+public interface RefreshListener {
+    void onArticlesRefreshed(String keyword, List<NewsArticle> articles, List<NewsArticle> added);
+}
@@ -9,11 +9,15 @@ import android.util.Log;
 import com.example.aipodcast.model.PodcastContent;
 import com.example.aipodcast.model.PodcastSegment;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 public class SimplifiedTTSHelper {
     private static final String TAG = "SimplifiedTTSHelper";
     private TextToSpeech tts;
@@ -39,7 +43,25 @@ public class SimplifiedTTSHelper {
 
     // Word count and speaking rate constants
     private static final float DEFAULT_WORDS_PER_SECOND = 2.33f;
-    private String cleanTextForTTS(String text) {
+
+    // Pipelined playback: speaker turns are spoken while the script is still streaming.
+    // Only a couple of utterances sit in the engine queue at a time so stop() stays cheap,
+    // and after an underrun playback waits for a few sentences instead of stuttering turn by turn
+    private static final int STREAM_MAX_QUEUED_UTTERANCES = 2;
+    private static final int STREAM_REBUFFER_CHARS = 400;
+    private static final String STREAM_UTTERANCE_PREFIX = "STREAM_";
+    private boolean isStreamingPlayback = false;
+    private boolean isStreamFinished = false;
+    private boolean isStreamBuffering = false;
+    private boolean isStreamPaused = false;
+    private final ArrayDeque<String> streamPending = new ArrayDeque<>();
+    private final Map<String, String> streamInFlight = new ConcurrentHashMap<>();
+    private int streamPendingChars = 0;
+    private int streamUtteranceCount = 0;
+    private int streamPlayedDuration = 0;
+    private long streamStartTime = 0;
+    private volatile long timeToFirstAudioMs = -1;
+    static String cleanTextForTTS(String text) {
         if (text == null || text.isEmpty()) {
             return text;
         }
@@ -59,6 +81,9 @@ public class SimplifiedTTSHelper {
         void onProgress(int currentPosition, int totalDuration, int segmentIndex);
         void onComplete();
         void onError(String message);
+        // Pipelined playback ran out of script and is waiting for the stream, or resumed
+        default void onBuffering(boolean buffering) {
+        }
     }
     public interface WordTrackingCallback {
         void onWordSpoken(String word, int indexInSpeech);
@@ -118,13 +143,18 @@ public class SimplifiedTTSHelper {
             public void onStart(String utteranceId) {
                 Log.d(TAG, "TTS started speaking utterance: " + utteranceId);
                 wordIndex = 0;
+                if (isStreamUtterance(utteranceId)) {
+                    handler.post(() -> onStreamUtteranceStart(utteranceId));
+                }
             }
 
             @Override
             public void onDone(String utteranceId) {
                 Log.d(TAG, "TTS finished speaking utterance: " + utteranceId);
 
-                if (isChunkedPlayback && currentChunks != null &&
+                if (isStreamUtterance(utteranceId)) {
+                    handler.post(() -> onStreamUtteranceDone(utteranceId));
+                } else if (isChunkedPlayback && currentChunks != null &&
                         currentChunkIndex < currentChunks.size() - 1) {
                     // Move to next chunk
                     currentChunkIndex++;
@@ -143,6 +173,11 @@ public class SimplifiedTTSHelper {
                     handler.post(() -> progressCallback.onError(errorMsg));
                 }
 
+                if (isStreamUtterance(utteranceId)) {
+                    handler.post(() -> onStreamUtteranceDone(utteranceId));
+                    return;
+                }
+
                 // Try to continue with next chunk if in chunked mode
                 if (isChunkedPlayback && currentChunks != null &&
                         currentChunkIndex < currentChunks.size() - 1) {
@@ -155,8 +190,13 @@ public class SimplifiedTTSHelper {
             public void onRangeStart(String utteranceId, int start, int end, int frame) {
                 if (wordTrackingCallback != null) {
                     try {
-                        String text = isChunkedPlayback && currentChunks != null ?
-                                currentChunks.get(currentChunkIndex) : ttsText;
+                        String text;
+                        if (isStreamUtterance(utteranceId)) {
+                            text = streamInFlight.get(utteranceId);
+                        } else {
+                            text = isChunkedPlayback && currentChunks != null ?
+                                    currentChunks.get(currentChunkIndex) : ttsText;
+                        }
 
                         if (text != null && start >= 0 && end > start && end <= text.length()) {
                             String word = text.substring(start, end);
@@ -289,10 +329,10 @@ public class SimplifiedTTSHelper {
         Runnable progressUpdater = new Runnable() {
             @Override
             public void run() {
-                if (tts != null && (tts.isSpeaking() || isChunkedPlayback) && !isTtsSeeking) {
+                if (tts != null && (tts.isSpeaking() || isChunkedPlayback || isStreamingPlayback) && !isTtsSeeking) {
                     updateProgress();
                     handler.postDelayed(this, 250); // Update 4 times per second
-                } else if (!tts.isSpeaking() && !isTtsSeeking && !isChunkedPlayback) {
+                } else if (!tts.isSpeaking() && !isTtsSeeking && !isChunkedPlayback && !isStreamingPlayback) {
                     if (progressCallback != null) {
                         handler.post(() -> progressCallback.onComplete());
                     }
@@ -308,7 +348,9 @@ public class SimplifiedTTSHelper {
             int totalDuration = ttsTotalDuration;
 
             // Calculate current position
-            if (isChunkedPlayback && currentChunks != null && currentChunks.size() > 0) {
+            if (isStreamingPlayback) {
+                currentPosition = getStreamingPosition();
+            } else if (isChunkedPlayback && currentChunks != null && currentChunks.size() > 0) {
                 // For chunked playback, scale based on chunk position
                 long elapsedTime = System.currentTimeMillis() - ttsStartTime;
 
@@ -556,6 +598,193 @@ public class SimplifiedTTSHelper {
         ttsTotalDuration = estimatedTotalDuration;
         ttsText = String.join("", chunks); 
     }
+    /**
+     * Starts pipelined playback: call before the script starts streaming, then hand each
+     * finished speaker turn to {@link #enqueueSegment} and call
+     * {@link #finishStreamingPlayback} once the stream ends.
+     */
+    public boolean startStreamingPlayback() {
+        if (!isInitialized) {
+            Log.e(TAG, "TTS not initialized");
+            return false;
+        }
+        stop();
+        isStreamingPlayback = true;
+        segments = new ArrayList<>();
+        ttsText = null;
+        ttsTotalDuration = 0;
+        timeToFirstAudioMs = -1;
+        streamStartTime = System.currentTimeMillis();
+        return true;
+    }
+    // Safe to call from any thread; turns are spoken in the order they are enqueued
+    public void enqueueSegment(PodcastSegment segment) {
+        handler.post(() -> {
+            if (!isStreamingPlayback || segment == null) {
+                return;
+            }
+            String text = cleanTextForTTS(segment.getText());
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            segments.add(segment);
+            for (String chunk : splitTextIntoChunks(text, OPTIMAL_CHUNK_SIZE)) {
+                streamPending.add(chunk);
+                streamPendingChars += chunk.length();
+                ttsTotalDuration += estimateTTSDuration(chunk);
+            }
+            submitStreamChunks();
+        });
+    }
+    public void finishStreamingPlayback() {
+        handler.post(() -> {
+            if (!isStreamingPlayback) {
+                return;
+            }
+            isStreamFinished = true;
+            submitStreamChunks();
+        });
+    }
+    public boolean isStreamingPlayback() {
+        return isStreamingPlayback;
+    }
+    public boolean isStreamingPlaybackPaused() {
+        return isStreamingPlayback && isStreamPaused;
+    }
+    /**
+     * Pauses pipelined playback without ending it: turns keep being accepted while paused,
+     * and the utterances the engine had queued are put back at the head of the pending
+     * queue. The engine cannot resume mid-utterance, so the interrupted chunk restarts.
+     * Call on the main thread.
+     */
+    public void pauseStreamingPlayback() {
+        if (!isStreamingPlayback || isStreamPaused) {
+            return;
+        }
+        isStreamPaused = true;
+        if (tts != null && isInitialized) {
+            tts.stop();
+        }
+        List<String> interrupted = new ArrayList<>(streamInFlight.keySet());
+        Collections.sort(interrupted, (a, b) -> Integer.compare(streamUtteranceNumber(a), streamUtteranceNumber(b)));
+        for (int i = interrupted.size() - 1; i >= 0; i--) {
+            String chunk = streamInFlight.remove(interrupted.get(i));
+            if (chunk != null) {
+                streamPending.addFirst(chunk);
+                streamPendingChars += chunk.length();
+            }
+        }
+        Log.d(TAG, "Pipelined playback paused, " + streamPending.size() + " chunks pending");
+    }
+    // Call on the main thread
+    public boolean resumeStreamingPlayback() {
+        if (!isStreamingPlayback || !isStreamPaused) {
+            return false;
+        }
+        isStreamPaused = false;
+        Log.d(TAG, "Pipelined playback resumed");
+        submitStreamChunks();
+        return true;
+    }
+    // Milliseconds from startStreamingPlayback() to the first spoken word, or -1
+    public long getTimeToFirstAudioMs() {
+        return timeToFirstAudioMs;
+    }
+    private void submitStreamChunks() {
+        if (isStreamPaused) {
+            return;
+        }
+        if (isStreamBuffering) {
+            if (streamPendingChars < STREAM_REBUFFER_CHARS && !isStreamFinished) {
+                return;
+            }
+            isStreamBuffering = false;
+            notifyBuffering(false);
+        }
+        while (streamInFlight.size() < STREAM_MAX_QUEUED_UTTERANCES && !streamPending.isEmpty()) {
+            String chunk = streamPending.poll();
+            streamPendingChars -= chunk.length();
+            String utteranceId = STREAM_UTTERANCE_PREFIX + streamUtteranceCount++;
+            streamInFlight.put(utteranceId, chunk);
+            int result;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                result = tts.speak(chunk, TextToSpeech.QUEUE_ADD, null, utteranceId);
+            } else {
+                HashMap<String, String> params = new HashMap<>();
+                params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, utteranceId);
+                result = tts.speak(chunk, TextToSpeech.QUEUE_ADD, params);
+            }
+            if (result != TextToSpeech.SUCCESS) {
+                Log.e(TAG, "TTS speak() failed for streamed chunk with error code: " + result);
+                streamInFlight.remove(utteranceId);
+            }
+        }
+        if (!streamInFlight.isEmpty() || !streamPending.isEmpty()) {
+            return;
+        }
+        if (isStreamFinished) {
+            Log.d(TAG, "Pipelined playback finished after " + streamUtteranceCount + " utterances");
+            resetStreamingState();
+            if (progressCallback != null) {
+                progressCallback.onComplete();
+            }
+        } else if (timeToFirstAudioMs >= 0) {
+            Log.d(TAG, "Pipelined playback caught up with the stream, buffering");
+            isStreamBuffering = true;
+            notifyBuffering(true);
+        }
+    }
+    private void onStreamUtteranceStart(String utteranceId) {
+        if (!isStreamingPlayback) {
+            return;
+        }
+        ttsStartTime = System.currentTimeMillis();
+        if (timeToFirstAudioMs < 0) {
+            timeToFirstAudioMs = ttsStartTime - streamStartTime;
+            Log.i(TAG, "Time to first audio: " + timeToFirstAudioMs + "ms");
+            startTTSProgressUpdates("");
+        }
+    }
+    private void onStreamUtteranceDone(String utteranceId) {
+        String chunk = streamInFlight.remove(utteranceId);
+        if (!isStreamingPlayback) {
+            return;
+        }
+        if (chunk != null) {
+            streamPlayedDuration += estimateTTSDuration(chunk);
+        }
+        ttsStartTime = System.currentTimeMillis();
+        submitStreamChunks();
+    }
+    private int getStreamingPosition() {
+        int position = streamPlayedDuration;
+        if (!isStreamBuffering && !streamInFlight.isEmpty()) {
+            position += (int) ((System.currentTimeMillis() - ttsStartTime) * currentSpeechRate);
+        }
+        return Math.min(position, ttsTotalDuration);
+    }
+    private void notifyBuffering(boolean buffering) {
+        if (progressCallback != null) {
+            progressCallback.onBuffering(buffering);
+        }
+    }
+    private static boolean isStreamUtterance(String utteranceId) {
+        return utteranceId != null && utteranceId.startsWith(STREAM_UTTERANCE_PREFIX);
+    }
+    private static int streamUtteranceNumber(String utteranceId) {
+        return Integer.parseInt(utteranceId.substring(STREAM_UTTERANCE_PREFIX.length()));
+    }
+    private void resetStreamingState() {
+        isStreamingPlayback = false;
+        isStreamFinished = false;
+        isStreamBuffering = false;
+        isStreamPaused = false;
+        streamPending.clear();
+        streamInFlight.clear();
+        streamPendingChars = 0;
+        streamUtteranceCount = 0;
+        streamPlayedDuration = 0;
+    }
     public boolean playAudio(File audioFile) {
         if (audioFile == null || !audioFile.exists()) {
             Log.e(TAG, "Audio file is null or does not exist");
@@ -629,6 +858,7 @@ public class SimplifiedTTSHelper {
         isChunkedPlayback = false;
         currentChunks = null;
         currentChunkIndex = 0;
+        resetStreamingState();
         if (mediaPlayer != null) {
             try {
                 if (mediaPlayer.isPlaying()) {
@@ -684,6 +914,10 @@ public class SimplifiedTTSHelper {
         return false;
     }
     public void seekTo(int position) {
+        if (isStreamingPlayback) {
+            Log.w(TAG, "Seeking is not available while the script is still streaming");
+            return;
+        }
         if (mediaPlayer != null) {
             try {
                 mediaPlayer.seekTo(position);
@@ -1056,6 +1290,8 @@ public class SimplifiedTTSHelper {
             } catch (Exception e) {
                 Log.e(TAG, "Error getting position from MediaPlayer: " + e.getMessage());
             }
+        } else if (isStreamingPlayback) {
+            return getStreamingPosition();
         } else if (tts != null && (tts.isSpeaking() || isChunkedPlayback) && ttsTotalDuration > 0) {
             long currentTime = System.currentTimeMillis();
             long elapsedTime = currentTime - ttsStartTime;
@@ -1140,7 +1376,7 @@ public class SimplifiedTTSHelper {
         if (mediaPlayer != null) {
             return mediaPlayer.isPlaying();
         } else if (tts != null && isInitialized) {
-            return tts.isSpeaking() || isChunkedPlayback;
+            return tts.isSpeaking() || isChunkedPlayback || isStreamingPlayback;
         }
         return false;
     }
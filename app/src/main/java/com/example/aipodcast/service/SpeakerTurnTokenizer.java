@@ -0,0 +1,100 @@
+package com.example.aipodcast.service;
+import com.example.aipodcast.model.PodcastSegment;
+/**
+ * Splits a streamed script into speaker turns as the deltas arrive. A marker is §NAME§
+ * with NAME made of upper-case letters, digits or '_'; it may be split across any number
+ * of deltas. Each turn is reported as soon as the next marker (or the end of the stream)
+ * closes it, so nothing has to re-scan the finished transcript. Text before the first
+ * marker becomes a turn without a speaker. Not thread-safe.
+ */
+class SpeakerTurnTokenizer {
+    private static final char MARKER = '§';
+    private static final int MAX_NAME_LENGTH = 24;
+    interface Listener {
+        // A marker for speaker starts at offset
+        void onTurnStart(String speaker, int offset);
+        // Segment text is trimmed; its offsets cover the raw turn after the marker
+        void onTurnComplete(PodcastSegment turn);
+    }
+    private final Listener listener;
+    private final StringBuilder turnText = new StringBuilder();
+    private final StringBuilder markerName = new StringBuilder();
+    private boolean inMarker = false;
+    private int markerStart = -1;
+    private String currentSpeaker = null;
+    private int turnStart = 0;
+    private int length = 0;
+    SpeakerTurnTokenizer(Listener listener) {
+        this.listener = listener;
+    }
+    void append(String delta) {
+        if (delta == null) {
+            return;
+        }
+        int pos = 0;
+        int end = delta.length();
+        while (pos < end) {
+            if (!inMarker) {
+                int open = delta.indexOf(MARKER, pos);
+                int textEnd = open < 0 ? end : open;
+                turnText.append(delta, pos, textEnd);
+                if (open < 0) {
+                    break;
+                }
+                inMarker = true;
+                markerStart = length + open;
+                markerName.setLength(0);
+                pos = open + 1;
+                continue;
+            }
+            char c = delta.charAt(pos);
+            if (c == MARKER) {
+                if (markerName.length() > 0) {
+                    startTurn(markerName.toString(), length + pos + 1);
+                    inMarker = false;
+                } else {
+                    // "§§": keep the first as text and let the second open a marker
+                    turnText.append(MARKER);
+                    markerStart = length + pos;
+                }
+            } else if (isNameChar(c) && markerName.length() < MAX_NAME_LENGTH) {
+                markerName.append(c);
+            } else {
+                turnText.append(MARKER).append(markerName).append(c);
+                inMarker = false;
+            }
+            pos++;
+        }
+        length += end;
+    }
+    void finish() {
+        if (inMarker) {
+            turnText.append(MARKER).append(markerName);
+            inMarker = false;
+        }
+        completeTurn(length);
+    }
+    String getCurrentSpeaker() {
+        return currentSpeaker;
+    }
+    private void startTurn(String speaker, int textStart) {
+        completeTurn(markerStart);
+        listener.onTurnStart(speaker, markerStart);
+        currentSpeaker = speaker;
+        turnStart = textStart;
+    }
+    private void completeTurn(int turnEnd) {
+        String text = turnText.toString().trim();
+        turnText.setLength(0);
+        if (text.isEmpty()) {
+            return;
+        }
+        PodcastSegment turn = new PodcastSegment(currentSpeaker, text, PodcastSegment.SegmentType.NEWS_ARTICLE);
+        turn.setSpeaker(currentSpeaker);
+        turn.setOffsets(turnStart, turnEnd);
+        listener.onTurnComplete(turn);
+    }
+    private static boolean isNameChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.aipodcast.ui;
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
+/**
+ * Turns streamed transcript deltas into styled text that can be appended to a TextView,
+ * so each token costs work proportional to the token instead of the whole transcript.
+ * Speaker markers (§NAME§) become a bold "HOST: " label on a new paragraph; a marker
+ * split across deltas is held back until its closing § arrives. Not thread-safe: feed
+ * it from the thread that owns the view.
+ */
+public class TranscriptDeltaFormatter {
+    private static final char MARKER = '§';
+    private static final int MAX_MARKER_LENGTH = 24;
+    private static final int LABEL_COLOR = 0xFF6200EE;
+    private static final String LABEL = "HOST: ";
+    private final StringBuilder carry = new StringBuilder();
+    private boolean hasOutput = false;
+    // Where the scanned text goes; split from the span building so the marker handling
+    // can be tested without Android
+    interface Sink {
+        void text(CharSequence text, int start, int end);
+        // A speaker marker; newParagraph is false only at the very start of the transcript
+        void label(boolean newParagraph);
+    }
+    public CharSequence append(String delta) {
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        append(delta, new SpanSink(out));
+        return out;
+    }
+    // Text held back waiting for a marker to close; call when the stream ends
+    public CharSequence flush() {
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        flush(new SpanSink(out));
+        return out;
+    }
+    public void reset() {
+        carry.setLength(0);
+        hasOutput = false;
+    }
+    void append(String delta, Sink out) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        String text;
+        if (carry.length() > 0) {
+            text = carry.append(delta).toString();
+            carry.setLength(0);
+        } else {
+            text = delta;
+        }
+        int pos = 0;
+        while (pos < text.length()) {
+            int open = text.indexOf(MARKER, pos);
+            if (open < 0) {
+                appendPlain(out, text, pos, text.length());
+                break;
+            }
+            appendPlain(out, text, pos, open);
+            int close = text.indexOf(MARKER, open + 1);
+            if (close < 0) {
+                if (text.length() - open <= MAX_MARKER_LENGTH) {
+                    carry.append(text, open, text.length());
+                } else {
+                    appendPlain(out, text, open, text.length());
+                }
+                break;
+            }
+            if (close - open > MAX_MARKER_LENGTH) {
+                // A stray § in the prose, not a marker
+                appendPlain(out, text, open, open + 1);
+                pos = open + 1;
+                continue;
+            }
+            appendLabel(out);
+            pos = close + 1;
+        }
+    }
+    void flush(Sink out) {
+        if (carry.length() > 0) {
+            appendPlain(out, carry, 0, carry.length());
+            carry.setLength(0);
+        }
+    }
+    private void appendPlain(Sink out, CharSequence text, int start, int end) {
+        if (end > start) {
+            out.text(text, start, end);
+            hasOutput = true;
+        }
+    }
+    private void appendLabel(Sink out) {
+        out.label(hasOutput);
+        hasOutput = true;
+    }
+    private static final class SpanSink implements Sink {
+        private final SpannableStringBuilder out;
+        SpanSink(SpannableStringBuilder out) {
+            this.out = out;
+        }
+        @Override
+        public void text(CharSequence text, int start, int end) {
+            out.append(text, start, end);
+        }
+        @Override
+        public void label(boolean newParagraph) {
+            if (newParagraph) {
+                out.append("\n\n");
+            }
+            int start = out.length();
+            out.append(LABEL);
+            out.setSpan(new ForegroundColorSpan(LABEL_COLOR), start, out.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            out.setSpan(new StyleSpan(Typeface.BOLD), start, out.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.aipodcast.util;
+import android.os.Process;
+import android.util.Log;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * App-wide thread pools for background work, so services stop creating executors of their
+ * own. There is one bounded pool per kind of work: NETWORK for blocking HTTP calls and
+ * streams, DISK for database and file access, CPU for prompt building and parsing. Each
+ * pool drains its queue by priority (user-facing work, then prefetch, then maintenance)
+ * and FIFO within a priority, and records queue depth and queue wait per priority.
+ *
+ * Components that relied on a single-thread executor for ordering take a
+ * {@link #serialExecutor serial view} instead, which keeps their order without owning a
+ * thread. Threads time out when idle and run at background priority.
+ */
+public final class AppScheduler {
+    private static final String TAG = "AppScheduler";
+    public enum Pool { NETWORK, DISK, CPU }
+    // Declaration order is run order
+    public enum Priority { USER, PREFETCH, MAINTENANCE }
+    // Enough for a streamed script, a few map-reduce drafts and an article fetch at once
+    private static final int NETWORK_THREADS = 6;
+    private static final int DISK_THREADS = 2;
+    private static final int CPU_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static AppScheduler instance;
+    private final Map<Pool, PoolState> pools = new EnumMap<>(Pool.class);
+    private final ScheduledExecutorService timer;
+    private final AtomicLong sequence = new AtomicLong();
+    private AppScheduler() {
+        pools.put(Pool.NETWORK, new PoolState("network", NETWORK_THREADS));
+        pools.put(Pool.DISK, new PoolState("disk", DISK_THREADS));
+        pools.put(Pool.CPU, new PoolState("cpu", CPU_THREADS));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "app-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    public static synchronized AppScheduler getInstance() {
+        if (instance == null) {
+            instance = new AppScheduler();
+        }
+        return instance;
+    }
+    public void execute(Pool pool, Priority priority, Runnable task) {
+        PoolState state = pools.get(pool);
+        state.executor.execute(new PrioritizedTask(task, priority, sequence.getAndIncrement(), state));
+    }
+    // For CompletableFuture.*Async and other APIs that take an Executor
+    public Executor executor(Pool pool, Priority priority) {
+        return task -> execute(pool, priority, task);
+    }
+    /**
+     * An executor that runs at most maxConcurrent of its tasks at a time on pool, in
+     * submission order. Every call returns an independent view.
+     */
+    public Executor limitedExecutor(Pool pool, Priority priority, int maxConcurrent) {
+        return new LimitedExecutor(executor(pool, priority), maxConcurrent);
+    }
+    // One task at a time, in submission order, like a single-thread executor
+    public Executor serialExecutor(Pool pool, Priority priority) {
+        return limitedExecutor(pool, priority, 1);
+    }
+    /**
+     * Runs task on the shared timer thread after delayMs. Only for work that does not
+     * block, such as enqueueing an async call; anything else belongs in a pool.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timer.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+    // Queues task on pool after delayMs; cancelling before then drops it
+    public ScheduledFuture<?> schedule(Pool pool, Priority priority, Runnable task, long delayMs) {
+        return timer.schedule(() -> execute(pool, priority, task), delayMs, TimeUnit.MILLISECONDS);
+    }
+    public int getQueueDepth(Pool pool) {
+        int depth = 0;
+        for (LaneStats lane : pools.get(pool).lanes) {
+            depth += lane.queued.get();
+        }
+        return depth;
+    }
+    public int getQueueDepth(Pool pool, Priority priority) {
+        return pools.get(pool).lanes[priority.ordinal()].queued.get();
+    }
+    // Mean time tasks of this priority spent queued before a thread picked them up
+    public long getAverageWaitMs(Pool pool, Priority priority) {
+        LaneStats lane = pools.get(pool).lanes[priority.ordinal()];
+        long started = lane.started.get();
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(lane.totalWaitNanos.get() / started);
+    }
+    public long getMaxWaitMs(Pool pool, Priority priority) {
+        return TimeUnit.NANOSECONDS.toMillis(pools.get(pool).lanes[priority.ordinal()].maxWaitNanos.get());
+    }
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        for (Pool pool : Pool.values()) {
+            PoolState state = pools.get(pool);
+            if (stats.length() > 0) {
+                stats.append("; ");
+            }
+            stats.append(state.name).append(" (").append(state.executor.getActiveCount()).append('/')
+                    .append(state.executor.getMaximumPoolSize()).append(" busy)");
+            for (Priority priority : Priority.values()) {
+                LaneStats lane = state.lanes[priority.ordinal()];
+                stats.append(priority == Priority.USER ? ": " : ", ").append(priority.name().toLowerCase())
+                        .append(' ').append(lane.queued.get()).append(" queued, waited ")
+                        .append(getAverageWaitMs(pool, priority)).append("ms avg/")
+                        .append(getMaxWaitMs(pool, priority)).append("ms max over ")
+                        .append(lane.started.get()).append(" tasks");
+            }
+        }
+        return stats.toString();
+    }
+    private static final class PoolState {
+        final String name;
+        final ThreadPoolExecutor executor;
+        final LaneStats[] lanes = new LaneStats[Priority.values().length];
+        PoolState(String name, int threads) {
+            this.name = name;
+            AtomicInteger threadCount = new AtomicInteger();
+            // The queue is unbounded, so the pool never grows past its core size
+            this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(() -> {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }, "app-" + name + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new LaneStats();
+            }
+        }
+    }
+    private static final class LaneStats {
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Runnable task;
+        private final Priority priority;
+        private final long sequence;
+        private final LaneStats lane;
+        private final long enqueuedAt = System.nanoTime();
+        PrioritizedTask(Runnable task, Priority priority, long sequence, PoolState pool) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.lane = pool.lanes[priority.ordinal()];
+            lane.queued.incrementAndGet();
+        }
+        @Override
+        public void run() {
+            long waited = System.nanoTime() - enqueuedAt;
+            lane.queued.decrementAndGet();
+            lane.started.incrementAndGet();
+            lane.totalWaitNanos.addAndGet(waited);
+            lane.maxWaitNanos.accumulateAndGet(waited, Math::max);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Uncaught exception in " + priority + " task: " + e.getMessage(), e);
+            }
+        }
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+    /**
+     * Hands tasks to the pool no more than maxConcurrent at a time. Each finished task
+     * queues the next one rather than running it in place, so a long backlog here still
+     * takes its turn behind higher priorities in the pool.
+     */
+    private static final class LimitedExecutor implements Executor {
+        private final Executor target;
+        private final int maxConcurrent;
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private int running = 0;
+        LimitedExecutor(Executor target, int maxConcurrent) {
+            this.target = target;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+        }
+        @Override
+        public void execute(Runnable task) {
+            synchronized (pending) {
+                if (running >= maxConcurrent) {
+                    pending.addLast(task);
+                    return;
+                }
+                running++;
+            }
+            target.execute(() -> runThenContinue(task));
+        }
+        private void runThenContinue(Runnable task) {
+            try {
+                task.run();
+            } finally {
+                Runnable next;
+                synchronized (pending) {
+                    next = pending.pollFirst();
+                    if (next == null) {
+                        running--;
+                    }
+                }
+                if (next != null) {
+                    target.execute(() -> runThenContinue(next));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.aipodcast.util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+/**
+ * Builds one canonical article body from the Guardian bodyText field and the body blocks.
+ * Blocks usually repeat the field text, so every sentence is hashed and a sentence an
+ * earlier source already had is dropped. Repeats within one source are kept, since quotes
+ * and refrains legitimately recur in an article. Promo, byline and photo-credit lines are
+ * dropped along the way.
+ */
+public final class ArticleTextNormalizer {
+    private static final Pattern PARAGRAPH_SPLIT = Pattern.compile("\\n+");
+    static final Pattern SENTENCE_SPLIT = Pattern.compile("(?<=[.!?][\"'\u201D\u2019]?)\\s+(?=[\"'\u201C\u2018]?[A-Z0-9])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern BOILERPLATE = Pattern.compile(
+            "^(sign up (to|for) .*"
+                    + "|(photograph|photo|photography|illustration|composite|video)\\s*:\\s*\\S.*"
+                    + "|supported by\\b.*"
+                    + "|read more\\b.*"
+                    + "|related:.*"
+                    + "|follow .{1,60} on (twitter|x|instagram|facebook|bluesky)\\b.*"
+                    + "|this article (was|has been) amended\\b.*"
+                    + "|newsletter promotion.*"
+                    + "|after newsletter promotion.*"
+                    + "|skip past newsletter promotion.*"
+                    + "|privacy notice:.*)$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BYLINE = Pattern.compile(
+            "^By( [A-Z][\\p{L}'\\-]+){1,4}( and( [A-Z][\\p{L}'\\-]+){1,4})?$");
+    // Promo and credit lines are short; anything longer is treated as article prose
+    private static final int MAX_BOILERPLATE_LENGTH = 200;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    public static final class Paragraph {
+        public final int start;
+        public final int end;
+        Paragraph(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+    public static final class Result {
+        public final String text;
+        public final List<Paragraph> paragraphs;
+        public final int inputChars;
+        public final int removedChars;
+        public final int duplicateSentences;
+        public final int boilerplateSentences;
+        Result(String text, List<Paragraph> paragraphs, int inputChars,
+               int duplicateSentences, int boilerplateSentences) {
+            this.text = text;
+            this.paragraphs = Collections.unmodifiableList(paragraphs);
+            this.inputChars = inputChars;
+            this.removedChars = Math.max(0, inputChars - text.length());
+            this.duplicateSentences = duplicateSentences;
+            this.boilerplateSentences = boilerplateSentences;
+        }
+    }
+    private ArticleTextNormalizer() {
+    }
+    // The blocks are one source: they are deduplicated against the field text, not each other
+    public static Result normalize(String fieldBodyText, List<String> blockTexts) {
+        List<String> sources = new ArrayList<>();
+        if (fieldBodyText != null) {
+            sources.add(fieldBodyText);
+        }
+        if (blockTexts != null && !blockTexts.isEmpty()) {
+            StringBuilder blocks = new StringBuilder();
+            for (String block : blockTexts) {
+                if (block == null || block.isEmpty()) {
+                    continue;
+                }
+                if (blocks.length() > 0) {
+                    blocks.append("\n\n");
+                }
+                blocks.append(block);
+            }
+            sources.add(blocks.toString());
+        }
+        return normalize(sources);
+    }
+    // Drops sentences an earlier source already had; repeats within a source are kept
+    public static Result normalize(List<String> sources) {
+        StringBuilder out = new StringBuilder();
+        List<Paragraph> paragraphs = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        Set<Long> seenInSource = new HashSet<>();
+        int inputChars = 0;
+        int duplicates = 0;
+        int boilerplate = 0;
+        for (String source : sources) {
+            if (source == null || source.isEmpty()) {
+                continue;
+            }
+            inputChars += source.length() + (inputChars > 0 ? 2 : 0);
+            seen.addAll(seenInSource);
+            seenInSource.clear();
+            for (String rawParagraph : PARAGRAPH_SPLIT.split(source)) {
+                String paragraph = rawParagraph.trim();
+                if (paragraph.isEmpty()) {
+                    continue;
+                }
+                StringBuilder kept = new StringBuilder();
+                for (String rawSentence : SENTENCE_SPLIT.split(paragraph)) {
+                    String sentence = WHITESPACE.matcher(rawSentence.trim()).replaceAll(" ");
+                    if (sentence.isEmpty()) {
+                        continue;
+                    }
+                    if (isBoilerplate(sentence)) {
+                        boilerplate++;
+                        continue;
+                    }
+                    long fingerprint = fingerprint(sentence);
+                    if (seen.contains(fingerprint)) {
+                        duplicates++;
+                        continue;
+                    }
+                    seenInSource.add(fingerprint);
+                    if (kept.length() > 0) {
+                        kept.append(' ');
+                    }
+                    kept.append(sentence);
+                }
+                if (kept.length() == 0) {
+                    continue;
+                }
+                if (out.length() > 0) {
+                    out.append("\n\n");
+                }
+                int start = out.length();
+                out.append(kept);
+                paragraphs.add(new Paragraph(start, out.length()));
+            }
+        }
+        return new Result(out.toString(), paragraphs, inputChars, duplicates, boilerplate);
+    }
+    private static boolean isBoilerplate(String sentence) {
+        if (sentence.length() > MAX_BOILERPLATE_LENGTH) {
+            return false;
+        }
+        return BOILERPLATE.matcher(sentence).matches() || BYLINE.matcher(sentence).matches();
+    }
+    // 64-bit FNV-1a over letters and digits only, so spacing, case and punctuation
+    // differences between the field text and the block text still collide
+    private static long fingerprint(String sentence) {
+        long hash = FNV_OFFSET;
+        String lower = sentence.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash ^= c;
+                hash *= FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.aipodcast.util;
+import android.util.Log;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+/**
+ * Runs OpenAI calls with retries without parking a thread while it waits. Calls go out
+ * through OkHttp's async dispatcher and retries are scheduled on the app's timer thread.
+ * The delay is exponential backoff with full jitter, raised to whatever the server asks
+ * for in retry-after-ms, Retry-After or x-ratelimit-reset-*. All requests share a retry
+ * budget per time window so a rate-limit storm cannot multiply itself.
+ *
+ * Retries are classified by what the failure says about the request: a refused
+ * connection, 429 or 503 means it was never processed and is always retried; a timeout
+ * or other 5xx may have been processed, so it is only retried for idempotent requests.
+ */
+public final class AsyncRetryExecutor {
+    private static final String TAG = "AsyncRetryExecutor";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_DELAY_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 16000;
+    // A server asking for a longer wait than this fails the call instead
+    private static final long MAX_SERVER_DELAY_MS = 60000;
+    private static final int RETRY_BUDGET = 10;
+    private static final long RETRY_BUDGET_WINDOW_MS = 60000;
+    private static AsyncRetryExecutor instance;
+    private final AppScheduler scheduler;
+    private final ArrayDeque<Long> recentRetries = new ArrayDeque<>();
+    // Package-private so tests get their own retry budget
+    AsyncRetryExecutor(AppScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    public static synchronized AsyncRetryExecutor getInstance() {
+        if (instance == null) {
+            instance = new AsyncRetryExecutor(AppScheduler.getInstance());
+        }
+        return instance;
+    }
+    /**
+     * Executes request and completes with the response body. idempotent marks requests
+     * that are safe to repeat even if the server may already have processed them; chat
+     * completions only cost tokens, so callers pass true for those. Cancelling the
+     * returned future cancels the call in flight and any pending retry.
+     */
+    public CompletableFuture<String> execute(OkHttpClient client, Request request, boolean idempotent) {
+        return execute(client, request, idempotent, null);
+    }
+    // onResponseStarted runs on OkHttp's thread once a successful response's headers arrive
+    public CompletableFuture<String> execute(OkHttpClient client, Request request, boolean idempotent,
+                                             Runnable onResponseStarted) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        AtomicReference<Call> currentCall = new AtomicReference<>();
+        future.whenComplete((body, error) -> {
+            Call call = currentCall.get();
+            if (future.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        attempt(client, request, idempotent, onResponseStarted, 1, future, currentCall);
+        return future;
+    }
+    private void attempt(OkHttpClient client, Request request, boolean idempotent, Runnable onResponseStarted,
+                         int attempt, CompletableFuture<String> future, AtomicReference<Call> currentCall) {
+        if (future.isDone()) {
+            return;
+        }
+        Call call = client.newCall(request);
+        currentCall.set(call);
+        if (future.isDone()) {
+            // Cancelled between the check above and publishing the call
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    if (r.isSuccessful() && onResponseStarted != null) {
+                        onResponseStarted.run();
+                    }
+                    String body = r.body() != null ? r.body().string() : "";
+                    if (r.isSuccessful()) {
+                        future.complete(body);
+                        return;
+                    }
+                    int code = r.code();
+                    RuntimeException error = new RuntimeException("API request failed: " + code + " - " + body);
+                    if (!isRetryable(code, idempotent)) {
+                        Log.e(TAG, "API request failed with code " + code + ": " + body);
+                        future.completeExceptionally(error);
+                        return;
+                    }
+                    retry(client, request, idempotent, onResponseStarted, attempt, future, currentCall,
+                            error, serverDelayMs(r));
+                } catch (IOException e) {
+                    onFailure(call, e);
+                }
+            }
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (future.isDone()) {
+                    return;
+                }
+                Log.e(TAG, "Error executing API request: " + e.getMessage());
+                if (!isRetryable(e, idempotent)) {
+                    future.completeExceptionally(new RuntimeException(
+                            "API request failed: " + e.getMessage(), e));
+                    return;
+                }
+                retry(client, request, idempotent, onResponseStarted, attempt, future, currentCall, e, -1);
+            }
+        });
+    }
+    private void retry(OkHttpClient client, Request request, boolean idempotent, Runnable onResponseStarted,
+                       int attempt, CompletableFuture<String> future, AtomicReference<Call> currentCall,
+                       Exception error, long serverDelayMs) {
+        if (attempt >= MAX_ATTEMPTS) {
+            future.completeExceptionally(new RuntimeException(
+                    "Failed after " + MAX_ATTEMPTS + " attempts: " + error.getMessage(), error));
+            return;
+        }
+        if (serverDelayMs > MAX_SERVER_DELAY_MS) {
+            future.completeExceptionally(new RuntimeException("Server asked to retry in "
+                    + serverDelayMs + "ms: " + error.getMessage(), error));
+            return;
+        }
+        if (!acquireRetryBudget()) {
+            Log.w(TAG, "Retry budget exhausted, not retrying");
+            future.completeExceptionally(new RuntimeException(
+                    "Retry budget exhausted: " + error.getMessage(), error));
+            return;
+        }
+        long delayMs = Math.max(backoffMs(attempt), serverDelayMs);
+        Log.w(TAG, "Retrying in " + delayMs + "ms (" + (attempt + 1) + "/" + MAX_ATTEMPTS + ")");
+        // Enqueueing the next attempt does not block, so it runs on the timer thread itself
+        scheduler.schedule(() -> attempt(client, request, idempotent, onResponseStarted, attempt + 1,
+                future, currentCall), delayMs);
+    }
+    static boolean isRetryable(int code, boolean idempotent) {
+        if (code == 429 || code == 503) {
+            return true;
+        }
+        return idempotent && (code == 408 || code == 500 || code == 502 || code == 504);
+    }
+    static boolean isRetryable(IOException e, boolean idempotent) {
+        if (e instanceof ConnectException || e instanceof UnknownHostException
+                || e instanceof NoRouteToHostException) {
+            return true;
+        }
+        // Canceled calls surface as a plain IOException("Canceled"); never retry those
+        if ("Canceled".equals(e.getMessage())) {
+            return false;
+        }
+        // Anything else may have reached the server, e.g. a read timeout
+        return idempotent;
+    }
+    // Full jitter: uniform in [0, min(cap, base * 2^(attempt - 1))]
+    private static long backoffMs(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+    private synchronized boolean acquireRetryBudget() {
+        long now = System.currentTimeMillis();
+        while (!recentRetries.isEmpty() && now - recentRetries.peekFirst() > RETRY_BUDGET_WINDOW_MS) {
+            recentRetries.pollFirst();
+        }
+        if (recentRetries.size() >= RETRY_BUDGET) {
+            return false;
+        }
+        recentRetries.addLast(now);
+        return true;
+    }
+    // How long the server asked us to wait, or -1 if it did not say
+    static long serverDelayMs(Response response) {
+        String retryAfterMs = response.header("retry-after-ms");
+        if (retryAfterMs != null) {
+            try {
+                return (long) Double.parseDouble(retryAfterMs.trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                Date date = response.headers().getDate("Retry-After");
+                if (date != null) {
+                    return Math.max(0, date.getTime() - System.currentTimeMillis());
+                }
+            }
+        }
+        long delay = -1;
+        if ("0".equals(response.header("x-ratelimit-remaining-requests"))) {
+            delay = Math.max(delay, parseDuration(response.header("x-ratelimit-reset-requests")));
+        }
+        if ("0".equals(response.header("x-ratelimit-remaining-tokens"))) {
+            delay = Math.max(delay, parseDuration(response.header("x-ratelimit-reset-tokens")));
+        }
+        return delay;
+    }
+    // Parses durations like "20ms", "1.5s" or "6m0s" into milliseconds; -1 if unparseable
+    static long parseDuration(String value) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        double total = 0;
+        int pos = 0;
+        int length = value.length();
+        while (pos < length) {
+            int numberStart = pos;
+            while (pos < length && (Character.isDigit(value.charAt(pos)) || value.charAt(pos) == '.')) {
+                pos++;
+            }
+            int unitStart = pos;
+            while (pos < length && Character.isLetter(value.charAt(pos))) {
+                pos++;
+            }
+            if (numberStart == unitStart || unitStart == pos) {
+                return -1;
+            }
+            double number;
+            try {
+                number = Double.parseDouble(value.substring(numberStart, unitStart));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            switch (value.substring(unitStart, pos)) {
+                case "h":
+                    total += number * 3600000;
+                    break;
+                case "m":
+                    total += number * 60000;
+                    break;
+                case "s":
+                    total += number * 1000;
+                    break;
+                case "ms":
+                    total += number;
+                    break;
+                default:
+                    return -1;
+            }
+        }
+        return (long) Math.ceil(total);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.aipodcast.util;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+/**
+ * Cooperative cancellation shared by every stage of one pipeline (article fetch, script
+ * generation, playback scheduling). Stages register what has to be undone, typically
+ * cancelling an OkHttp Call, and check {@link #isCancelled()} between units of work.
+ * Cancelling is idempotent and callbacks run once, on the cancelling thread.
+ */
+public final class CancellationToken {
+    private static final String TAG = "CancellationToken";
+    // For callers that have nothing to cancel; cancel() and onCancel() are no-ops
+    public static final CancellationToken NONE = new CancellationToken(false);
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+    private static final Registration NO_REGISTRATION = () -> { };
+    private final boolean cancellable;
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private volatile boolean cancelled = false;
+    public CancellationToken() {
+        this(true);
+    }
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (callbacks) {
+            if (!cancellable || cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable callback : toRun) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Cancellation callback failed: " + e.getMessage());
+            }
+        }
+    }
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled");
+        }
+    }
+    /**
+     * Runs action when the token is cancelled, or right away if it already is. Close the
+     * returned registration once the action is no longer needed, e.g. when the call it
+     * would cancel has finished.
+     */
+    public Registration onCancel(Runnable action) {
+        if (!cancellable) {
+            return NO_REGISTRATION;
+        }
+        synchronized (callbacks) {
+            if (!cancelled) {
+                callbacks.add(action);
+                return () -> {
+                    synchronized (callbacks) {
+                        callbacks.remove(action);
+                    }
+                };
+            }
+        }
+        action.run();
+        return NO_REGISTRATION;
+    }
+    /**
+     * Ties future to this token both ways: cancelling the future cancels the token, and
+     * cancelling the token cancels the future. Returns future for chaining.
+     */
+    public <T> CompletableFuture<T> bind(CompletableFuture<T> future) {
+        if (!cancellable) {
+            return future;
+        }
+        Registration registration = onCancel(() -> future.cancel(false));
+        future.whenComplete((value, error) -> {
+            registration.close();
+            if (future.isCancelled()) {
+                cancel();
+            }
+        });
+        return future;
+    }
+}
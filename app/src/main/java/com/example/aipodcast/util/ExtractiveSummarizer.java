@@ -0,0 +1,174 @@
+package com.example.aipodcast.util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+/**
+ * Shrinks an article body to a token budget by keeping its most central sentences, scored
+ * by TF-IDF cosine similarity to the rest of the article. The lead sentences are always
+ * kept and quotes are preferred over other sentences, since both carry most of what a
+ * script needs; the kept sentences stay in their original order and paragraphs.
+ */
+public final class ExtractiveSummarizer {
+    private static final Pattern PARAGRAPH_SPLIT = Pattern.compile("\\n+");
+    private static final Pattern WORD_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern QUOTE = Pattern.compile("[\"“”][^\"“”]{12,}[\"“”]");
+    private static final int LEAD_SENTENCES = 2;
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "the", "and", "for", "that", "with", "was", "were", "are", "has", "have", "had", "his",
+            "her", "its", "their", "they", "this", "from", "but", "not", "been", "which", "who",
+            "would", "will", "said", "says", "about", "into", "than", "also", "more", "after",
+            "there", "when", "what", "one", "all", "can", "could", "our", "out", "she", "him"));
+    public static final class Result {
+        public final String text;
+        public final int originalTokens;
+        public final int summaryTokens;
+        public final int sentencesKept;
+        public final int sentencesTotal;
+        Result(String text, int originalTokens, int summaryTokens, int sentencesKept, int sentencesTotal) {
+            this.text = text;
+            this.originalTokens = originalTokens;
+            this.summaryTokens = summaryTokens;
+            this.sentencesKept = sentencesKept;
+            this.sentencesTotal = sentencesTotal;
+        }
+    }
+    private static final class Sentence {
+        final String text;
+        final int paragraph;
+        final int position;
+        final int tokens;
+        final int tier;
+        Map<String, Double> weights;
+        double score;
+        Sentence(String text, int paragraph, int position, int tier) {
+            this.text = text;
+            this.paragraph = paragraph;
+            this.position = position;
+            this.tokens = PromptBudget.estimateTokens(text) + 1;
+            this.tier = tier;
+        }
+    }
+    private ExtractiveSummarizer() {
+    }
+    public static Result summarize(String text, int maxTokens) {
+        int originalTokens = PromptBudget.estimateTokens(text);
+        if (text == null || originalTokens <= maxTokens) {
+            return new Result(text, originalTokens, originalTokens, -1, -1);
+        }
+        List<Sentence> sentences = split(text);
+        score(sentences);
+        List<Sentence> ranked = new ArrayList<>(sentences);
+        Collections.sort(ranked, (a, b) -> a.tier != b.tier
+                ? Integer.compare(a.tier, b.tier)
+                : Double.compare(b.score, a.score));
+        boolean[] keep = new boolean[sentences.size()];
+        int used = 0;
+        for (Sentence sentence : ranked) {
+            // Smaller sentences further down the ranking can still fill the remaining budget
+            if (used + sentence.tokens <= maxTokens) {
+                keep[sentence.position] = true;
+                used += sentence.tokens;
+            }
+        }
+        StringBuilder out = new StringBuilder();
+        int kept = 0;
+        int lastParagraph = -1;
+        for (Sentence sentence : sentences) {
+            if (!keep[sentence.position]) {
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append(sentence.paragraph == lastParagraph ? " " : "\n\n");
+            }
+            out.append(sentence.text);
+            lastParagraph = sentence.paragraph;
+            kept++;
+        }
+        String summary = out.toString();
+        return new Result(summary, originalTokens, PromptBudget.estimateTokens(summary), kept, sentences.size());
+    }
+    private static List<Sentence> split(String text) {
+        List<Sentence> sentences = new ArrayList<>();
+        int paragraph = 0;
+        for (String rawParagraph : PARAGRAPH_SPLIT.split(text)) {
+            String trimmed = rawParagraph.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            for (String rawSentence : ArticleTextNormalizer.SENTENCE_SPLIT.split(trimmed)) {
+                String sentence = rawSentence.trim();
+                if (sentence.isEmpty()) {
+                    continue;
+                }
+                int position = sentences.size();
+                int tier = position < LEAD_SENTENCES ? 0 : QUOTE.matcher(sentence).find() ? 1 : 2;
+                sentences.add(new Sentence(sentence, paragraph, position, tier));
+            }
+            paragraph++;
+        }
+        return sentences;
+    }
+    // Centrality: summed cosine similarity of each sentence's TF-IDF vector to all others
+    private static void score(List<Sentence> sentences) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        List<Map<String, Integer>> termCounts = new ArrayList<>();
+        for (Sentence sentence : sentences) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String word : WORD_SPLIT.split(sentence.text.toLowerCase(Locale.ROOT))) {
+                if (word.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(word)) {
+                    counts.merge(word, 1, Integer::sum);
+                }
+            }
+            for (String term : counts.keySet()) {
+                documentFrequency.merge(term, 1, Integer::sum);
+            }
+            termCounts.add(counts);
+        }
+        int n = sentences.size();
+        double[] norms = new double[n];
+        for (int i = 0; i < n; i++) {
+            Map<String, Double> weights = new HashMap<>();
+            double norm = 0;
+            for (Map.Entry<String, Integer> entry : termCounts.get(i).entrySet()) {
+                double idf = Math.log((double) n / documentFrequency.get(entry.getKey())) + 1;
+                double weight = entry.getValue() * idf;
+                weights.put(entry.getKey(), weight);
+                norm += weight * weight;
+            }
+            sentences.get(i).weights = weights;
+            norms[i] = Math.sqrt(norm);
+        }
+        for (int i = 0; i < n; i++) {
+            Sentence a = sentences.get(i);
+            if (norms[i] == 0) {
+                continue;
+            }
+            for (int j = i + 1; j < n; j++) {
+                Sentence b = sentences.get(j);
+                if (norms[j] == 0) {
+                    continue;
+                }
+                Map<String, Double> small = a.weights.size() <= b.weights.size() ? a.weights : b.weights;
+                Map<String, Double> large = small == a.weights ? b.weights : a.weights;
+                double dot = 0;
+                for (Map.Entry<String, Double> entry : small.entrySet()) {
+                    Double other = large.get(entry.getKey());
+                    if (other != null) {
+                        dot += entry.getValue() * other;
+                    }
+                }
+                double similarity = dot / (norms[i] * norms[j]);
+                a.score += similarity;
+                b.score += similarity;
+            }
+        }
+    }
+}
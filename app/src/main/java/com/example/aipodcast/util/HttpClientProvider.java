@@ -0,0 +1,139 @@
+package com.example.aipodcast.util;
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+/**
+ * The process-wide OkHttp client. Every client in the app is derived from it with
+ * newBuilder(), which keeps the connection pool, dispatcher and event listener shared, so
+ * TLS sessions and HTTP/2 connections to the same host are reused across services and
+ * across service instances. Callers set their own timeouts and interceptors on the
+ * derived builder.
+ */
+public final class HttpClientProvider {
+    private static final String TAG = "HttpClientProvider";
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // Only limits enqueued calls; blocking execute() calls are bounded by AppScheduler
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+    private static final String CACHE_DIR = "http_cache";
+    private static final long CACHE_MAX_BYTES = 10L * 1024 * 1024;
+    private static HttpClientProvider instance;
+    private final OkHttpClient client;
+    private final StatsListener stats = new StatsListener();
+    private OkHttpClient cachingClient;
+    // Package-private so tests get their own cache and statistics
+    HttpClientProvider() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                // HTTP/2 is negotiated over ALPN; one connection per host then carries every call
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListener(stats)
+                .build();
+    }
+    public static synchronized HttpClientProvider getInstance() {
+        if (instance == null) {
+            instance = new HttpClientProvider();
+        }
+        return instance;
+    }
+    // The shared client; derive from it with newBuilder() to change timeouts or add interceptors
+    public OkHttpClient getClient() {
+        return client;
+    }
+    /**
+     * The shared client plus a disk HTTP cache, for APIs whose GET responses may be reused.
+     * Stored responses are revalidated with If-None-Match / If-Modified-Since, so an
+     * unchanged response costs a 304 instead of the full body.
+     */
+    public synchronized OkHttpClient getCachingClient(Context context) {
+        if (cachingClient == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+            cachingClient = client.newBuilder()
+                    .cache(new Cache(directory, CACHE_MAX_BYTES))
+                    .addNetworkInterceptor(chain -> {
+                        Response response = chain.proceed(chain.request());
+                        // Without caching headers OkHttp would not store the response at all;
+                        // no-cache stores it but still revalidates before every use
+                        if ("GET".equals(chain.request().method()) && response.header("Cache-Control") == null
+                                && response.header("Expires") == null) {
+                            return response.newBuilder().header("Cache-Control", "no-cache").build();
+                        }
+                        return response;
+                    })
+                    .build();
+        }
+        return cachingClient;
+    }
+    public String getStats() {
+        return stats.toString();
+    }
+    private static final class StatsListener extends EventListener {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong connectionsOpened = new AtomicLong();
+        private final AtomicLong connectionsAcquired = new AtomicLong();
+        private final AtomicLong http2Acquired = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong conditionalHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+        @Override
+        public void callStart(Call call) {
+            calls.incrementAndGet();
+        }
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            long opened = connectionsOpened.incrementAndGet();
+            Log.d(TAG, "Opened connection " + opened + " to " + call.request().url().host() + " (" + protocol + ")");
+        }
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+            if (connection.protocol() == Protocol.HTTP_2) {
+                http2Acquired.incrementAndGet();
+            }
+        }
+        @Override
+        public void cacheHit(Call call, Response response) {
+            cacheHits.incrementAndGet();
+        }
+        @Override
+        public void cacheConditionalHit(Call call, Response cachedResponse) {
+            conditionalHits.incrementAndGet();
+        }
+        @Override
+        public void cacheMiss(Call call) {
+            cacheMisses.incrementAndGet();
+        }
+        @Override
+        public String toString() {
+            long acquired = connectionsAcquired.get();
+            long reused = Math.max(0, acquired - connectionsOpened.get());
+            return "HTTP: " + calls.get() + " calls, " + connectionsOpened.get() + " connections opened, "
+                    + reused + "/" + acquired + " acquisitions reused, " + http2Acquired.get() + " over HTTP/2; "
+                    + "cache " + cacheHits.get() + " hits, " + conditionalHits.get() + " revalidated, "
+                    + cacheMisses.get() + " misses";
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.aipodcast.util;
+import android.content.Context;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+/**
+ * Persistent cache of raw LLM responses under the app cache dir, addressed by a SHA-256 of
+ * (kind, model, temperature, normalized prompt). Completions are stored as the raw JSON
+ * body and streamed responses as their SSE lines, so a hit replays through the same
+ * parsing code as a live call. Entries expire after a TTL and the directory is kept under
+ * a byte budget by evicting the least recently used files first.
+ */
+public class LlmResponseCache {
+    private static final String TAG = "LlmResponseCache";
+    private static final String CACHE_DIR = "llm_cache";
+    private static final String FILE_SUFFIX = ".llm";
+    private static final String HEADER_PREFIX = "v1 ";
+    private static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final long DEFAULT_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[ \\t\\x0B\\f]+");
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile("(?m)[ \\t]+$");
+    public static final String KIND_COMPLETION = "completion";
+    public static final String KIND_STREAM = "stream";
+    private static LlmResponseCache instance;
+    private final File directory;
+    private final long maxBytes;
+    private final long ttlMs;
+    private long hits = 0;
+    private long misses = 0;
+    private LlmResponseCache(Context context, long maxBytes, long ttlMs) {
+        this.directory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Failed to create cache directory");
+        }
+    }
+    public static synchronized LlmResponseCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new LlmResponseCache(context, DEFAULT_MAX_BYTES, DEFAULT_TTL_MS);
+        }
+        return instance;
+    }
+    // Whitespace-only differences in a prompt should not cost a new completion
+    static String normalizePrompt(String prompt) {
+        String normalized = prompt.replace("\r\n", "\n").replace('\r', '\n');
+        normalized = TRAILING_WHITESPACE.matcher(normalized).replaceAll("");
+        normalized = HORIZONTAL_WHITESPACE.matcher(normalized).replaceAll(" ");
+        return normalized.trim();
+    }
+    public static String keyFor(String kind, String model, float temperature, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String material = kind + "\n" + model + "\n" + temperature + "\n" + normalizePrompt(prompt);
+            byte[] hash = digest.digest(material.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    public synchronized String get(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            misses++;
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            long createdAt = header != null && header.startsWith(HEADER_PREFIX)
+                    ? Long.parseLong(header.substring(HEADER_PREFIX.length()).trim()) : 0;
+            if (System.currentTimeMillis() - createdAt > ttlMs) {
+                misses++;
+                deleteQuietly(file);
+                return null;
+            }
+            StringBuilder body = new StringBuilder((int) file.length());
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                body.append(buffer, 0, read);
+            }
+            // lastModified doubles as the LRU clock; the creation time lives in the header
+            file.setLastModified(System.currentTimeMillis());
+            hits++;
+            return body.toString();
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Dropping unreadable cache entry " + key + ": " + e.getMessage());
+            deleteQuietly(file);
+            misses++;
+            return null;
+        }
+    }
+    public synchronized void put(String key, String response) {
+        if (response == null || response.isEmpty()) {
+            return;
+        }
+        File file = fileFor(key);
+        File temp = new File(directory, key + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            writer.write(HEADER_PREFIX);
+            writer.write(Long.toString(System.currentTimeMillis()));
+            writer.write('\n');
+            writer.write(response);
+        } catch (IOException e) {
+            Log.e(TAG, "Error caching response: " + e.getMessage(), e);
+            deleteQuietly(temp);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Failed to move cache entry into place: " + key);
+            deleteQuietly(temp);
+            return;
+        }
+        trimToBudget();
+    }
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+    public synchronized String getStats() {
+        return "LLM cache: " + hits + " hits, " + misses + " misses";
+    }
+    private void trimToBudget() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+        for (int i = 0; i < files.length && total > maxBytes; i++) {
+            long size = files[i].length();
+            if (files[i].delete()) {
+                total -= size;
+                Log.d(TAG, "Evicted cached response: " + files[i].getName());
+            }
+        }
+    }
+    private File fileFor(String key) {
+        return new File(directory, key + FILE_SUFFIX);
+    }
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete cache file: " + file.getName());
+        }
+    }
+}
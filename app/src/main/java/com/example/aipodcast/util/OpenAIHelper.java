@@ -8,19 +8,16 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 public class OpenAIHelper {
     private static final String TAG = "OpenAIHelper";
     public static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     public static final String SPEAKER_MARKER = "§HOST§";
-    private static final String MODEL_GPT_4 = "gpt-4o";
-    private static final String MODEL_GPT_3_5 = "gpt-3.5-turbo";
-    private static final int MAX_RETRIES = 3;
-    private static final int RETRY_DELAY_MS = 1000;
+    public static final String MODEL_GPT_4 = "gpt-4o";
+    public static final String MODEL_GPT_3_5 = "gpt-3.5-turbo";
+    // Derived from the shared client, so it keeps the app-wide connection pool
     public static OkHttpClient buildOkHttpClient() {
-        return new OkHttpClient.Builder()
+        return HttpClientProvider.getInstance().getClient().newBuilder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
@@ -60,96 +57,28 @@ public class OpenAIHelper {
         prompt.append(SPEAKER_MARKER).append(" Welcome to our podcast! Today we'll be discussing some fascinating news stories.\n\n");
         prompt.append(SPEAKER_MARKER).append(" Our first story is about...\n\n");
         prompt.append("Discuss these news articles:\n\n");
+        PromptBudget budget = new PromptBudget(durationMinutes, articles.size());
         for (NewsArticle article : articles) {
             prompt.append("Title: ").append(article.getTitle()).append("\n");
             if (article.getSection() != null && !article.getSection().equals("Unknown")) {
                 prompt.append("Section: ").append(article.getSection()).append("\n");
             }
-            prompt.append("Abstract: ").append(article.getAbstract()).append("\n\n");
+            String abstractText = budget.fit(article.getAbstract(), PromptBudget.estimateTokens(article.getTitle()));
+            prompt.append("Abstract: ").append(abstractText).append("\n\n");
         }
         prompt.append("Format as a natural, engaging monologue with clear transitions between topics.\n");
         prompt.append("Start with a brief introduction and end with a conclusion.\n");
         prompt.append("Use a conversational tone as if speaking directly to listeners.\n\n");
         prompt.append("Return the podcast as plain text without additional formatting or markdown.\n");
         prompt.append("Remember to use ").append(SPEAKER_MARKER).append(" to indicate the start of each paragraph.\n");
+        Log.d(TAG, "Prompt budget: " + budget + ", prompt ~" + PromptBudget.estimateTokens(prompt.toString()) + " tokens");
         return prompt.toString();
     }
-    public static String executeWithRetry(OkHttpClient client, Request request) {
-        int retries = 0;
-        while (retries < MAX_RETRIES) {
-            try {
-                try (Response response = client.newCall(request).execute()) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        return response.body().string();
-                    } else {
-                        String errorBody = response.body() != null ? response.body().string() : "No response body";
-                        int code = response.code();
-                        if (code == 429 || code >= 500) {
-                            Log.w(TAG, "API request failed with code " + code + ": " + errorBody + " - Retrying (" + (retries + 1) + "/" + MAX_RETRIES + ")");
-                            retries++;
-                            Thread.sleep(RETRY_DELAY_MS * retries); 
-                            continue;
-                        } else {
-                            Log.e(TAG, "API request failed with code " + code + ": " + errorBody);
-                            throw new RuntimeException("API request failed: " + code + " - " + errorBody);
-                        }
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("API request interrupted", e);
-            } catch (Exception e) {
-                Log.e(TAG, "Error executing API request: " + e.getMessage());
-                if (retries < MAX_RETRIES - 1) {
-                    retries++;
-                    try {
-                        Log.w(TAG, "Retrying request after error (" + retries + "/" + MAX_RETRIES + ")");
-                        Thread.sleep(RETRY_DELAY_MS * retries); 
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Retry interrupted", ie);
-                    }
-                } else {
-                    throw new RuntimeException("Failed after " + MAX_RETRIES + " retries: " + e.getMessage(), e);
-                }
-            }
-        }
-        throw new RuntimeException("Failed after " + MAX_RETRIES + " retries");
-    }
     public static String extractContentFromResponse(String jsonResponse) {
         try {
-            String contentPattern = "\"content\"\\s*:\\s*\"([^\"]*(?:\\\\\"[^\"]*)*?)\"";
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(contentPattern);
-            java.util.regex.Matcher matcher = pattern.matcher(jsonResponse);
-            if (matcher.find()) {
-                String content = matcher.group(1);
-                return content.replace("\\n", "\n")
-                              .replace("\\\"", "\"")
-                              .replace("\\\\", "\\");
-            }
-            Log.w(TAG, "Regex extraction failed, fallback to manual parsing");
-            int contentStart = jsonResponse.indexOf("\"content\":");
-            if (contentStart >= 0) {
-                int valueStart = jsonResponse.indexOf("\"", contentStart + 10) + 1;
-                int valueEnd = -1;
-                boolean inEscape = false;
-                for (int i = valueStart; i < jsonResponse.length(); i++) {
-                    char c = jsonResponse.charAt(i);
-                    if (inEscape) {
-                        inEscape = false;
-                    } else if (c == '\\') {
-                        inEscape = true;
-                    } else if (c == '"') {
-                        valueEnd = i;
-                        break;
-                    }
-                }
-                if (valueEnd > valueStart) {
-                    String content = jsonResponse.substring(valueStart, valueEnd);
-                    return content.replace("\\n", "\n")
-                                  .replace("\\\"", "\"")
-                                  .replace("\\\\", "\\");
-                }
+            String content = SseDeltaDecoder.readMessageContent(jsonResponse);
+            if (content != null) {
+                return content;
             }
             Log.w(TAG, "Failed to extract content from JSON response");
             return "Error extracting content. Raw response: " + jsonResponse;
@@ -158,31 +87,6 @@ public class OpenAIHelper {
             return "Error: " + e.getMessage();
         }
     }
-    public static String processStreamingChunk(String chunk) {
-        try {
-            if (chunk.startsWith("data: ")) {
-                chunk = chunk.substring(6);
-            }
-            if (chunk.equals("[DONE]")) {
-                return null;
-            }
-            if (chunk.contains("\"delta\"") && chunk.contains("\"content\"")) {
-                String contentPattern = "\"content\"\\s*:\\s*\"([^\"]*(?:\\\\\"[^\"]*)*?)\"";
-                java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(contentPattern);
-                java.util.regex.Matcher matcher = pattern.matcher(chunk);
-                if (matcher.find()) {
-                    String content = matcher.group(1);
-                    return content.replace("\\n", "\n")
-                                  .replace("\\\"", "\"")
-                                  .replace("\\\\", "\\");
-                }
-            }
-            return null;
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing streaming chunk: " + e.getMessage());
-            return null;
-        }
-    }
     public static String formatErrorMessage(Throwable error) {
         String message = error.getMessage();
         if (message == null) message = "Unknown error";
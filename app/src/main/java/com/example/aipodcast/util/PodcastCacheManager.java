@@ -13,8 +13,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 public class PodcastCacheManager {
     private static final String TAG = "PodcastCacheManager";
     private static final String CACHE_DIR = "podcast_cache";
@@ -22,17 +21,19 @@ public class PodcastCacheManager {
     private static final int MAX_CACHED_PODCASTS = 10;
     private static PodcastCacheManager instance;
     private final Context context;
-    private final ExecutorService executor;
+    private final Executor executor;
+    private final Executor cleanupExecutor;
     private final Gson gson;
-    private PodcastCacheManager(Context context) {
+    private PodcastCacheManager(Context context, AppScheduler scheduler) {
         this.context = context.getApplicationContext();
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.USER);
+        this.cleanupExecutor = scheduler.serialExecutor(AppScheduler.Pool.DISK, AppScheduler.Priority.MAINTENANCE);
         this.gson = new GsonBuilder().create();
         initializeCacheDir();
     }
     public static synchronized PodcastCacheManager getInstance(Context context) {
         if (instance == null) {
-            instance = new PodcastCacheManager(context);
+            instance = new PodcastCacheManager(context, AppScheduler.getInstance());
         }
         return instance;
     }
@@ -61,7 +62,7 @@ public class PodcastCacheManager {
                     fos.write(json.getBytes());
                 }
                 Log.d(TAG, "Podcast cached to " + cacheFile.getPath());
-                cleanupCacheIfNeeded();
+                cleanupExecutor.execute(this::cleanupCacheIfNeeded);
                 return cacheFile.getPath();
             } catch (Exception e) {
                 Log.e(TAG, "Error caching podcast: " + e.getMessage(), e);
@@ -111,17 +112,12 @@ public class PodcastCacheManager {
     public CompletableFuture<String> cacheAudioFile(byte[] audioData, String podcastId, String segmentId) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                String filename = "audio_" + podcastId;
-                if (segmentId != null && !segmentId.isEmpty()) {
-                    filename += "_" + segmentId;
-                }
-                filename += ".mp3"; 
-                File cacheFile = new File(getCacheDir(), filename);
+                File cacheFile = getAudioFile(podcastId, segmentId, "mp3");
                 try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
                     fos.write(audioData);
                 }
                 Log.d(TAG, "Audio cached to " + cacheFile.getPath());
-                cleanupCacheIfNeeded();
+                cleanupExecutor.execute(this::cleanupCacheIfNeeded);
                 return cacheFile.getPath();
             } catch (Exception e) {
                 Log.e(TAG, "Error caching audio: " + e.getMessage(), e);
@@ -129,22 +125,46 @@ public class PodcastCacheManager {
             }
         }, executor);
     }
-    public CompletableFuture<String> getAudioFilePath(String podcastId, String segmentId) {
+    /**
+     * Moves an audio file rendered elsewhere in the app's cache into this cache, keeping its
+     * extension, instead of copying it through memory.
+     */
+    public CompletableFuture<String> cacheAudioFile(File audioFile, String podcastId, String segmentId) {
         return CompletableFuture.supplyAsync(() -> {
-            String filename = "audio_" + podcastId;
-            if (segmentId != null && !segmentId.isEmpty()) {
-                filename += "_" + segmentId;
+            String name = audioFile.getName();
+            int dot = name.lastIndexOf('.');
+            File cacheFile = getAudioFile(podcastId, segmentId, dot >= 0 ? name.substring(dot + 1) : "mp3");
+            if (!audioFile.renameTo(cacheFile)) {
+                throw new RuntimeException("Failed to cache audio file " + audioFile.getPath());
             }
-            filename += ".mp3";
-            File cacheFile = new File(getCacheDir(), filename);
+            Log.d(TAG, "Audio cached to " + cacheFile.getPath());
+            cleanupExecutor.execute(this::cleanupCacheIfNeeded);
+            return cacheFile.getPath();
+        }, executor);
+    }
+    public CompletableFuture<String> getAudioFilePath(String podcastId, String segmentId) {
+        return getAudioFilePath(podcastId, segmentId, "mp3");
+    }
+    public CompletableFuture<String> getAudioFilePath(String podcastId, String segmentId, String extension) {
+        return CompletableFuture.supplyAsync(() -> {
+            File cacheFile = getAudioFile(podcastId, segmentId, extension);
             if (cacheFile.exists()) {
+                // Eviction is oldest-first, so a replayed file counts as fresh
+                cacheFile.setLastModified(System.currentTimeMillis());
                 return cacheFile.getPath();
             } else {
-                Log.w(TAG, "Audio file not found in cache: " + filename);
+                Log.w(TAG, "Audio file not found in cache: " + cacheFile.getName());
                 return null;
             }
         }, executor);
     }
+    private File getAudioFile(String podcastId, String segmentId, String extension) {
+        String filename = "audio_" + podcastId;
+        if (segmentId != null && !segmentId.isEmpty()) {
+            filename += "_" + segmentId;
+        }
+        return new File(getCacheDir(), filename + "." + extension);
+    }
     public CompletableFuture<Boolean> deletePodcast(String podcastId) {
         return CompletableFuture.supplyAsync(() -> {
             boolean success = true;
@@ -155,7 +175,7 @@ public class PodcastCacheManager {
             }
             File cacheDir = getCacheDir();
             File[] audioFiles = cacheDir.listFiles((dir, name) -> 
-                    name.startsWith("audio_" + podcastId) && name.endsWith(".mp3"));
+                    name.startsWith("audio_" + podcastId) && (name.endsWith(".mp3") || name.endsWith(".wav")));
             if (audioFiles != null) {
                 for (File audioFile : audioFiles) {
                     if (!audioFile.delete()) {
@@ -170,20 +190,33 @@ public class PodcastCacheManager {
     private void cleanupCacheIfNeeded() {
         File cacheDir = getCacheDir();
         File[] files = cacheDir.listFiles();
-        if (files == null || files.length <= MAX_CACHED_PODCASTS) {
+        if (files == null) {
             return;
         }
         Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
         long totalSize = 0;
+        int podcastCount = 0;
         for (File file : files) {
             totalSize += file.length();
+            if (isPodcastFile(file)) {
+                podcastCount++;
+            }
         }
-        for (int i = 0; i < files.length && 
-                (totalSize > MAX_CACHE_SIZE_BYTES || files.length - i > MAX_CACHED_PODCASTS); i++) {
+        // The count limit is for podcasts; a rendered podcast has an audio file per part,
+        // so audio is only bounded by size
+        for (int i = 0; i < files.length
+                && (totalSize > MAX_CACHE_SIZE_BYTES || podcastCount > MAX_CACHED_PODCASTS); i++) {
             File file = files[i];
+            boolean podcastFile = isPodcastFile(file);
+            if (totalSize <= MAX_CACHE_SIZE_BYTES && !podcastFile) {
+                continue;
+            }
             long fileSize = file.length();
             if (file.delete()) {
                 totalSize -= fileSize;
+                if (podcastFile) {
+                    podcastCount--;
+                }
                 Log.d(TAG, "Deleted cached file: " + file.getName());
             } else {
                 Log.w(TAG, "Failed to delete cached file: " + file.getName());
@@ -206,6 +239,9 @@ public class PodcastCacheManager {
             return success;
         }, executor);
     }
+    private static boolean isPodcastFile(File file) {
+        return file.getName().startsWith("podcast_") && file.getName().endsWith(".json");
+    }
     private String readFileAsString(File file) throws IOException {
         byte[] buffer = new byte[(int) file.length()];
         try (FileInputStream fis = new FileInputStream(file)) {
@@ -213,7 +249,4 @@ public class PodcastCacheManager {
         }
         return new String(buffer);
     }
-    public void shutdown() {
-        executor.shutdown();
-    }
 } 
\ No newline at end of file
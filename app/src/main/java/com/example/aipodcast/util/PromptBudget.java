@@ -0,0 +1,64 @@
+package com.example.aipodcast.util;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Sizes article text in a prompt by the podcast it has to feed rather than by how long the
+ * source articles are. The source budget grows with the requested duration, is split evenly
+ * across articles, and anything over an article's share is compressed with
+ * {@link ExtractiveSummarizer}. Tokens are estimated locally at about four characters each,
+ * which is close enough for English news text to size prompts.
+ */
+public final class PromptBudget {
+    private static final int CHARS_PER_TOKEN = 4;
+    // Roughly three tokens of source per spoken script word at 140 words per minute
+    private static final int SOURCE_TOKENS_PER_MINUTE = 420;
+    private static final int MIN_TOKENS_PER_ARTICLE = 200;
+    private static final int MAX_TOKENS_PER_ARTICLE = 1500;
+    private static final int MAX_SOURCE_TOKENS = 12000;
+    private final int tokensPerArticle;
+    private final AtomicInteger originalTokens = new AtomicInteger();
+    private final AtomicInteger budgetedTokens = new AtomicInteger();
+    private final AtomicInteger compressedArticles = new AtomicInteger();
+    public PromptBudget(int durationMinutes, int articleCount) {
+        int total = Math.min(MAX_SOURCE_TOKENS, Math.max(1, durationMinutes) * SOURCE_TOKENS_PER_MINUTE);
+        this.tokensPerArticle = Math.max(MIN_TOKENS_PER_ARTICLE,
+                Math.min(MAX_TOKENS_PER_ARTICLE, total / Math.max(1, articleCount)));
+    }
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+    public int getTokensPerArticle() {
+        return tokensPerArticle;
+    }
+    /**
+     * Returns text unchanged when it fits the article's share, after reservedTokens for
+     * the title and abstract that go with it, or an extractive summary when it does not.
+     * Safe to call from several threads building prompts for the same podcast.
+     */
+    public String fit(String text, int reservedTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        int budget = Math.max(MIN_TOKENS_PER_ARTICLE / 2, tokensPerArticle - reservedTokens);
+        ExtractiveSummarizer.Result result = ExtractiveSummarizer.summarize(text, budget);
+        originalTokens.addAndGet(result.originalTokens);
+        budgetedTokens.addAndGet(result.summaryTokens);
+        if (result.summaryTokens < result.originalTokens) {
+            compressedArticles.incrementAndGet();
+        }
+        return result.text;
+    }
+    public int getSavedTokens() {
+        return originalTokens.get() - budgetedTokens.get();
+    }
+    @Override
+    public String toString() {
+        int original = originalTokens.get();
+        int saved = getSavedTokens();
+        return "article text ~" + original + " -> ~" + budgetedTokens.get() + " tokens ("
+                + (original > 0 ? saved * 100 / original : 0) + "% saved, "
+                + compressedArticles.get() + " compressed, budget " + tokensPerArticle + "/article)";
+    }
+}
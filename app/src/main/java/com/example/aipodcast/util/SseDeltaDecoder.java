@@ -0,0 +1,295 @@
+package com.example.aipodcast.util;
+import android.util.Log;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import okio.BufferedSource;
+/**
+ * Pulls content deltas out of a chat completion SSE stream without regexes or per-line
+ * JSON trees. The data payloads of the stream are fed, in order, to a single lenient
+ * {@link JsonReader}, so line bytes, decoded chars and the parser's buffer are all reused
+ * for the whole stream; JsonReader takes care of every string escape. Comments, event
+ * and id lines are ignored and the stream ends at "data: [DONE]". Not thread-safe.
+ */
+public final class SseDeltaDecoder implements Closeable {
+    private static final String TAG = "SseDeltaDecoder";
+    private static final String DONE = "[DONE]";
+    private final PayloadReader payloads;
+    private JsonReader json;
+    private int chunkCount = 0;
+    public SseDeltaDecoder(BufferedSource source) {
+        this(source, null);
+    }
+    // recording, if given, receives every data line as it was received
+    public SseDeltaDecoder(BufferedSource source, StringBuilder recording) {
+        this.payloads = new PayloadReader(source, recording);
+        this.json = newJsonReader(payloads);
+    }
+    /**
+     * Returns the next non-empty content delta, or null once the stream is done or
+     * exhausted. Chunks without content (role headers, finish reasons) are skipped.
+     */
+    public String nextDelta() throws IOException {
+        while (true) {
+            try {
+                if (json.peek() == JsonToken.END_DOCUMENT) {
+                    return null;
+                }
+                chunkCount++;
+                String content = readChoiceContent(json, "delta");
+                if (content != null && !content.isEmpty()) {
+                    return content;
+                }
+            } catch (IOException | IllegalStateException e) {
+                if (payloads.sourceFailed) {
+                    throw e;
+                }
+                // A malformed chunk costs itself and whatever the parser had already read
+                // past it; start over at the next data line
+                Log.w(TAG, "Skipping malformed stream chunk: " + e.getMessage());
+                payloads.skipPayload();
+                json = newJsonReader(payloads);
+            }
+        }
+    }
+    // True once the [DONE] marker was seen, as opposed to the stream just ending
+    public boolean isDone() {
+        return payloads.done;
+    }
+    public int getChunkCount() {
+        return chunkCount;
+    }
+    @Override
+    public void close() throws IOException {
+        payloads.source.close();
+    }
+    /**
+     * Content of the first choice's message in a non-streaming completion, or null if the
+     * response has none.
+     */
+    public static String readMessageContent(String jsonResponse) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(jsonResponse))) {
+            return readChoiceContent(reader, "message");
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected completion format: " + e.getMessage(), e);
+        }
+    }
+    private static JsonReader newJsonReader(Reader in) {
+        JsonReader reader = new JsonReader(in);
+        // Lenient so one reader can take the payloads as a sequence of top-level values
+        reader.setLenient(true);
+        return reader;
+    }
+    // Reads one completion object and returns choices[0].<container>.content
+    private static String readChoiceContent(JsonReader reader, String container) throws IOException {
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("choices") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                if (reader.hasNext()) {
+                    content = readContainerContent(reader, container);
+                }
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return content;
+    }
+    private static String readContainerContent(JsonReader reader, String container) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(container) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("content") && reader.peek() == JsonToken.STRING) {
+                        content = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return content;
+    }
+    /**
+     * Serves the data payloads of an SSE stream as one run of chars. A read never spans
+     * two payloads, so the JSON parser only pulls the next payload once it is done with
+     * the current one.
+     */
+    private static final class PayloadReader extends Reader {
+        private static final int INITIAL_CAPACITY = 1024;
+        private final BufferedSource source;
+        private final StringBuilder recording;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] lineBytes = new byte[INITIAL_CAPACITY];
+        private ByteBuffer lineView = ByteBuffer.wrap(lineBytes);
+        private CharBuffer chars = CharBuffer.allocate(INITIAL_CAPACITY);
+        private boolean ended = false;
+        boolean done = false;
+        boolean sourceFailed = false;
+        PayloadReader(BufferedSource source, StringBuilder recording) {
+            this.source = source;
+            this.recording = recording;
+            chars.limit(0);
+        }
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!chars.hasRemaining()) {
+                if (ended || !nextPayload()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.get(buffer, offset, count);
+            return count;
+        }
+        void skipPayload() {
+            chars.position(chars.limit());
+        }
+        @Override
+        public void close() {
+            // The decoder owns the source
+        }
+        // Loads the next data payload into chars; false at [DONE] or the end of the source
+        private boolean nextPayload() throws IOException {
+            try {
+                while (true) {
+                    int length = readLine();
+                    if (length < 0) {
+                        ended = true;
+                        return false;
+                    }
+                    if (length > 0 && lineBytes[length - 1] == '\r') {
+                        length--;
+                    }
+                    if (!startsWithData(length)) {
+                        continue;
+                    }
+                    int start = 5;
+                    if (start < length && lineBytes[start] == ' ') {
+                        start++;
+                    }
+                    if (isDone(start, length)) {
+                        record(DONE);
+                        done = true;
+                        ended = true;
+                        return false;
+                    }
+                    if (decode(start, length)) {
+                        record(chars);
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                sourceFailed = true;
+                throw e;
+            }
+        }
+        // Reads one line into lineBytes without its '\n'; -1 when the source is exhausted
+        private int readLine() throws IOException {
+            long newline = source.indexOf((byte) '\n');
+            if (newline < 0) {
+                // indexOf only gives up once the source is exhausted; take whatever is left
+                int length = 0;
+                int read;
+                while (true) {
+                    ensureLineCapacity(length + INITIAL_CAPACITY);
+                    read = source.read(lineBytes, length, lineBytes.length - length);
+                    if (read < 0) {
+                        break;
+                    }
+                    length += read;
+                }
+                return length == 0 ? -1 : length;
+            }
+            if (newline > Integer.MAX_VALUE - 1) {
+                throw new IOException("SSE line too long: " + newline + " bytes");
+            }
+            int length = (int) newline;
+            ensureLineCapacity(length);
+            int filled = 0;
+            while (filled < length) {
+                int read = source.read(lineBytes, filled, length - filled);
+                if (read < 0) {
+                    throw new IOException("Stream ended inside a line");
+                }
+                filled += read;
+            }
+            source.skip(1);
+            return length;
+        }
+        private boolean startsWithData(int length) {
+            return length >= 5 && lineBytes[0] == 'd' && lineBytes[1] == 'a' && lineBytes[2] == 't'
+                    && lineBytes[3] == 'a' && lineBytes[4] == ':';
+        }
+        private boolean isDone(int start, int length) {
+            if (length - start != DONE.length()) {
+                return false;
+            }
+            for (int i = 0; i < DONE.length(); i++) {
+                if (lineBytes[start + i] != DONE.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        private boolean decode(int start, int length) {
+            int byteCount = length - start;
+            if (byteCount == 0) {
+                return false;
+            }
+            // UTF-8 never decodes to more chars than it has bytes
+            if (chars.capacity() < byteCount) {
+                chars = CharBuffer.allocate(Math.max(byteCount, chars.capacity() * 2));
+            }
+            chars.clear();
+            lineView.limit(length).position(start);
+            decoder.reset();
+            decoder.decode(lineView, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            return chars.hasRemaining();
+        }
+        private void ensureLineCapacity(int capacity) {
+            if (lineBytes.length < capacity) {
+                byte[] grown = new byte[Math.max(capacity, lineBytes.length * 2)];
+                System.arraycopy(lineBytes, 0, grown, 0, lineBytes.length);
+                lineBytes = grown;
+                lineView = ByteBuffer.wrap(lineBytes);
+            }
+        }
+        private void record(CharSequence payload) {
+            if (recording != null) {
+                recording.append("data: ").append(payload).append('\n');
+            }
+        }
+    }
+}
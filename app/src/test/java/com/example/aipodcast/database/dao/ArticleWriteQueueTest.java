@@ -0,0 +1,121 @@
+package com.example.aipodcast.database.dao;
+import org.junit.Before;
+import org.junit.Test;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import com.example.aipodcast.database.DatabaseHelper;
+import com.example.aipodcast.model.NewsArticle;
+import com.example.aipodcast.util.AppScheduler;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+public class ArticleWriteQueueTest {
+    private static final String URL = "https://www.theguardian.com/world/a";
+    private SQLiteDatabase db;
+    private AppScheduler scheduler;
+    private ArticleWriteQueue queue;
+    private final Map<String, SQLiteStatement> statements = new LinkedHashMap<>();
+    @Before
+    public void setUp() {
+        Context context = mock(Context.class);
+        when(context.getApplicationContext()).thenReturn(context);
+        DatabaseHelper dbHelper = mock(DatabaseHelper.class);
+        db = mock(SQLiteDatabase.class);
+        when(dbHelper.getWritableDatabase()).thenReturn(db);
+        scheduler = mock(AppScheduler.class);
+        Executor direct = Runnable::run;
+        when(scheduler.serialExecutor(any(), any())).thenReturn(direct);
+        queue = new ArticleWriteQueue(context, dbHelper, scheduler);
+    }
+    @Test
+    public void failedTransactionRequeuesTheBatch() {
+        doAnswer(invocation -> {
+            throw new SQLiteException("disk I/O error");
+        }).when(db).compileStatement(anyString());
+        queue.enqueue(article("Title"), "politics", true);
+        queue.markRead(Collections.singletonList(URL));
+        queue.flush();
+        assertFalse(queue.isEmpty());
+        assertEquals("Title", queue.getPendingArticle(URL).getTitle());
+        assertTrue(queue.hasPendingKeyword("politics"));
+        assertTrue(queue.getStats(), queue.getStats().contains("applied=0"));
+        // First failure backs off to twice the normal flush delay
+        verify(scheduler).schedule(any(Runnable.class), eq(1000L));
+        verify(db).endTransaction();
+        verify(db, never()).setTransactionSuccessful();
+    }
+    @Test
+    public void writesQueuedDuringAFailedFlushWin() {
+        doAnswer(invocation -> {
+            queue.enqueue(article("Newer title"), "world", false);
+            throw new SQLiteException("database is locked");
+        }).when(db).compileStatement(anyString());
+        queue.enqueue(article("Old title"), "politics", true);
+        queue.flush();
+        assertEquals("Newer title", queue.getPendingArticle(URL).getTitle());
+        assertTrue(queue.hasPendingKeyword("politics"));
+        assertTrue(queue.hasPendingKeyword("world"));
+    }
+    @Test
+    public void requeuedBatchIsWrittenByTheNextFlush() {
+        doAnswer(invocation -> {
+            throw new SQLiteException("disk I/O error");
+        }).when(db).compileStatement(anyString());
+        queue.enqueue(article("Title"), "politics", true);
+        queue.markRead(Collections.singletonList(URL));
+        queue.flush();
+        doAnswer(invocation -> {
+            SQLiteStatement statement = mock(SQLiteStatement.class);
+            when(statement.executeUpdateDelete()).thenReturn(1);
+            when(statement.simpleQueryForLong()).thenReturn(42L);
+            statements.put(invocation.getArgument(0), statement);
+            return statement;
+        }).when(db).compileStatement(anyString());
+        queue.flush();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.getStats(), queue.getStats().contains("applied=1"));
+        verify(db).setTransactionSuccessful();
+        verify(statement("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_ARTICLE_KEYWORDS))
+                .bindString(1, "politics");
+        verify(statement("SET " + DatabaseHelper.COLUMN_LAST_READ_AT)).bindString(2, URL);
+    }
+    @Test
+    public void successfulFlushDoesNotReschedule() {
+        doAnswer(invocation -> {
+            SQLiteStatement statement = mock(SQLiteStatement.class);
+            when(statement.executeUpdateDelete()).thenReturn(1);
+            return statement;
+        }).when(db).compileStatement(anyString());
+        queue.enqueue(article("Title"), null, true);
+        queue.flush();
+        assertTrue(queue.isEmpty());
+        // Only the initial schedule from enqueue
+        verify(scheduler).schedule(any(Runnable.class), anyLong());
+    }
+    private SQLiteStatement statement(String sqlPart) {
+        for (Map.Entry<String, SQLiteStatement> entry : statements.entrySet()) {
+            if (entry.getKey().contains(sqlPart)) {
+                return entry.getValue();
+            }
+        }
+        throw new AssertionError("No statement containing " + sqlPart);
+    }
+    private static NewsArticle article(String title) {
+        return new NewsArticle(title, "Abstract", URL, "World news", "2024-05-01T10:00:00Z");
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.aipodcast.service;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+/**
+ * Times GuardianResponseParser against the JSONObject path it replaced, on a recorded
+ * 50-result search page and a single article with 30 body blocks.
+ */
+public class GuardianResponseParserBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int PARSES_PER_ROUND = 20;
+    private static byte[] searchPayload;
+    private static byte[] contentPayload;
+    @BeforeClass
+    public static void loadFixtures() throws IOException {
+        searchPayload = readFixture("/fixtures/guardian_search_50.json.gz");
+        contentPayload = readFixture("/fixtures/guardian_content_blocks.json.gz");
+    }
+    @Test
+    public void bothPathsExtractTheSameFields() throws Exception {
+        GuardianResponseParser.Payload search = parseStreaming(searchPayload);
+        List<String[]> legacy = parseSearchWithJsonObject(searchPayload);
+        assertEquals(50, search.results.size());
+        assertEquals(legacy.size(), search.results.size());
+        for (int i = 0; i < legacy.size(); i++) {
+            GuardianResponseParser.RawArticle article = search.results.get(i);
+            assertEquals(legacy.get(i)[0], article.webTitle);
+            assertEquals(legacy.get(i)[1], article.webUrl);
+            assertEquals(legacy.get(i)[2], article.bodyText);
+        }
+        GuardianResponseParser.RawArticle content = parseStreaming(contentPayload).content;
+        assertEquals(parseContentWithJsonObject(contentPayload),
+                content.bodyText + "\n\n" + String.join("\n\n", content.blockTexts));
+    }
+    @Test
+    public void streamingParserIsNotSlowerOnSearchPage() throws Exception {
+        compare("search page (" + searchPayload.length + " bytes)",
+                () -> parseStreaming(searchPayload), () -> parseSearchWithJsonObject(searchPayload));
+    }
+    @Test
+    public void streamingParserIsNotSlowerOnContentWithBlocks() throws Exception {
+        compare("content with blocks (" + contentPayload.length + " bytes)",
+                () -> parseStreaming(contentPayload), () -> parseContentWithJsonObject(contentPayload));
+    }
+    private interface Parse {
+        Object run() throws Exception;
+    }
+    private static void compare(String fixture, Parse streaming, Parse legacy) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            streaming.run();
+            legacy.run();
+        }
+        long streamingNanos = Long.MAX_VALUE;
+        long legacyNanos = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            streamingNanos = Math.min(streamingNanos, time(streaming));
+            legacyNanos = Math.min(legacyNanos, time(legacy));
+        }
+        System.out.println("Guardian " + fixture + ": JsonReader " + micros(streamingNanos)
+                + " us/parse, JSONObject " + micros(legacyNanos) + " us/parse");
+        // Generous margin so a noisy machine does not fail the build; a real regression still does
+        assertTrue("JsonReader " + micros(streamingNanos) + " us vs JSONObject " + micros(legacyNanos) + " us",
+                streamingNanos < legacyNanos * 2);
+    }
+    private static long time(Parse parse) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < PARSES_PER_ROUND; i++) {
+            parse.run();
+        }
+        return System.nanoTime() - start;
+    }
+    private static long micros(long nanos) {
+        return nanos / PARSES_PER_ROUND / 1000;
+    }
+    private static GuardianResponseParser.Payload parseStreaming(byte[] payload) throws IOException {
+        return GuardianResponseParser.parse(
+                new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+    }
+    // The search path that was replaced: whole body as a String, then a JSONObject tree
+    private static List<String[]> parseSearchWithJsonObject(byte[] payload) throws JSONException {
+        JSONObject json = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+        JSONArray results = json.getJSONObject("response").getJSONArray("results");
+        List<String[]> articles = new ArrayList<>();
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String bodyText = null;
+            if (result.has("fields")) {
+                JSONObject fields = result.getJSONObject("fields");
+                if (fields.has("bodyText")) {
+                    bodyText = fields.getString("bodyText");
+                }
+            }
+            articles.add(new String[] {result.getString("webTitle"), result.getString("webUrl"), bodyText,
+                    result.getString("sectionName"), result.getString("webPublicationDate")});
+        }
+        return articles;
+    }
+    // The content path that was replaced: bodyText followed by each block's best text
+    private static String parseContentWithJsonObject(byte[] payload) throws JSONException {
+        JSONObject article = new JSONObject(new String(payload, StandardCharsets.UTF_8))
+                .getJSONObject("response").getJSONObject("content");
+        StringBuilder body = new StringBuilder();
+        if (article.has("fields")) {
+            JSONObject fields = article.getJSONObject("fields");
+            if (fields.has("bodyText")) {
+                body.append(fields.getString("bodyText"));
+            }
+        }
+        if (article.has("blocks")) {
+            JSONObject blocks = article.getJSONObject("blocks");
+            if (blocks.has("body")) {
+                JSONArray bodyBlocks = blocks.getJSONArray("body");
+                for (int i = 0; i < bodyBlocks.length(); i++) {
+                    JSONObject block = bodyBlocks.getJSONObject(i);
+                    if (block.has("bodyTextSummary")) {
+                        body.append("\n\n").append(block.getString("bodyTextSummary"));
+                    } else if (block.has("bodyText")) {
+                        body.append("\n\n").append(block.getString("bodyText"));
+                    } else if (block.has("body")) {
+                        body.append("\n\n").append(block.getString("body"));
+                    }
+                }
+            }
+        }
+        return body.toString();
+    }
+    private static byte[] readFixture(String name) throws IOException {
+        try (InputStream in = new GZIPInputStream(GuardianResponseParserBenchmarkTest.class.getResourceAsStream(name))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.aipodcast.service;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+public class GuardianResponseParserTest {
+    @Test
+    public void searchResultsKeepOnlyUsedFields() throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"total\":2,\"pageSize\":10,"
+                + "\"results\":[{\"id\":\"world/2024/a\",\"type\":\"article\",\"webTitle\":\"First\","
+                + "\"webUrl\":\"https://www.theguardian.com/world/2024/a\",\"sectionName\":\"World news\","
+                + "\"webPublicationDate\":\"2024-05-01T10:00:00Z\","
+                + "\"fields\":{\"thumbnail\":\"https://img/x.jpg\",\"bodyText\":\"Body one.\"},"
+                + "\"tags\":[{\"id\":\"t\",\"nested\":{\"deep\":[1,2,{\"x\":null}]}}]},"
+                + "{\"id\":\"uk/2024/b\",\"webTitle\":\"Second\",\"webUrl\":\"https://www.theguardian.com/uk/2024/b\"}]}}";
+        GuardianResponseParser.Payload payload = GuardianResponseParser.parse(new StringReader(json));
+        assertEquals("ok", payload.status);
+        assertNull(payload.content);
+        assertEquals(2, payload.results.size());
+        GuardianResponseParser.RawArticle first = payload.results.get(0);
+        assertEquals("world/2024/a", first.id);
+        assertEquals("First", first.webTitle);
+        assertEquals("https://www.theguardian.com/world/2024/a", first.webUrl);
+        assertEquals("World news", first.sectionName);
+        assertEquals("2024-05-01T10:00:00Z", first.webPublicationDate);
+        assertEquals("Body one.", first.bodyText);
+        assertTrue(first.blockTexts.isEmpty());
+        GuardianResponseParser.RawArticle second = payload.results.get(1);
+        assertEquals("Second", second.webTitle);
+        assertNull(second.sectionName);
+        assertNull(second.bodyText);
+    }
+    @Test
+    public void contentBlocksFollowSummaryThenBodyTextThenBodyPrecedence() throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"c\",\"webTitle\":\"Title\","
+                + "\"fields\":{\"headline\":\"H\",\"bodyText\":\"Full body.\"},"
+                + "\"blocks\":{\"main\":{\"bodyHtml\":\"<p>x</p>\"},\"body\":["
+                + "{\"bodyTextSummary\":\"Summary.\",\"bodyText\":\"Ignored.\",\"body\":\"<p>Ignored</p>\"},"
+                + "{\"bodyText\":\"Block text.\",\"body\":\"<p>Ignored</p>\"},"
+                + "{\"body\":\"<p>Html only</p>\"},"
+                + "{\"id\":\"empty\",\"attributes\":{}}]}}}}";
+        GuardianResponseParser.Payload payload = GuardianResponseParser.parse(new StringReader(json));
+        GuardianResponseParser.RawArticle content = payload.content;
+        assertEquals("c", content.id);
+        assertEquals("Full body.", content.bodyText);
+        assertEquals(3, content.blockTexts.size());
+        assertEquals("Summary.", content.blockTexts.get(0));
+        assertEquals("Block text.", content.blockTexts.get(1));
+        assertEquals("<p>Html only</p>", content.blockTexts.get(2));
+        assertTrue(payload.results.isEmpty());
+    }
+    @Test
+    public void nullsNumbersAndUnexpectedTypesDoNotBreakParsing() throws IOException {
+        String json = "{\"response\":{\"status\":null,\"results\":[{\"id\":12345,\"webTitle\":null,"
+                + "\"sectionName\":{\"unexpected\":true},\"fields\":{\"bodyText\":[\"not\",\"a\",\"string\"]},"
+                + "\"blocks\":{\"body\":{\"not\":\"an array\"}}}]},\"extra\":[1,2,3]}";
+        GuardianResponseParser.Payload payload = GuardianResponseParser.parse(new StringReader(json));
+        assertNull(payload.status);
+        GuardianResponseParser.RawArticle article = payload.results.get(0);
+        assertEquals("12345", article.id);
+        assertNull(article.webTitle);
+        assertNull(article.sectionName);
+        assertNull(article.bodyText);
+        assertTrue(article.blockTexts.isEmpty());
+    }
+    @Test
+    public void escapedAndNonAsciiTextIsDecoded() throws IOException {
+        String json = "{\"response\":{\"results\":[{\"webTitle\":\"Caf\\u00e9 \\\"quoted\\\" \\u2013 dash\","
+                + "\"fields\":{\"bodyText\":\"Line one.\\nLine two über.\"}}]}}";
+        GuardianResponseParser.RawArticle article = GuardianResponseParser.parse(new StringReader(json)).results.get(0);
+        assertEquals("Café \"quoted\" – dash", article.webTitle);
+        assertEquals("Line one.\nLine two über.", article.bodyText);
+    }
+    @Test(expected = IOException.class)
+    public void truncatedBodyFails() throws IOException {
+        GuardianResponseParser.parse(new StringReader("{\"response\":{\"status\":\"ok\",\"results\":[{\"id\":\"a\""));
+    }
+    @Test
+    public void largePayloadParsesEveryResult() throws IOException {
+        StringBuilder json = new StringBuilder("{\"response\":{\"status\":\"ok\",\"results\":[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"a").append(i).append("\",\"webTitle\":\"T").append(i)
+                    .append("\",\"fields\":{\"bodyText\":\"");
+            for (int j = 0; j < 40; j++) {
+                json.append("Sentence ").append(j).append(" of article ").append(i).append(". ");
+            }
+            json.append("\"}}");
+        }
+        json.append("]}}");
+        GuardianResponseParser.Payload payload = GuardianResponseParser.parse(new StringReader(json.toString()));
+        assertEquals(500, payload.results.size());
+        assertEquals("a499", payload.results.get(499).id);
+        assertTrue(payload.results.get(499).bodyText.startsWith("Sentence 0 of article 499."));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aipodcast.service;
+import org.junit.Test;
+import com.example.aipodcast.util.CancellationToken;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+public class InFlightRequestsTest {
+    private final InFlightRequests<String, String> requests = new InFlightRequests<>("test");
+    private final List<List<String>> batches = new ArrayList<>();
+    @Test
+    public void batchJoinsKeysAlreadyInFlight() {
+        CompletableFuture<String> detail = new CompletableFuture<>();
+        CompletableFuture<String> single = requests.run("a", () -> detail);
+        CompletableFuture<Map<String, String>> batch = new CompletableFuture<>();
+        Map<String, CompletableFuture<String>> results = requests.runAll(Arrays.asList("a", "b"), keys -> {
+            batches.add(keys);
+            return batch;
+        });
+        assertEquals(Collections.singletonList(Collections.singletonList("b")), batches);
+        assertEquals(1, requests.getCoalescedCount());
+        detail.complete("A");
+        batch.complete(Collections.singletonMap("b", "B"));
+        assertEquals("A", single.join());
+        assertEquals("A", results.get("a").join());
+        assertEquals("B", results.get("b").join());
+        assertEquals(0, requests.getInFlightCount());
+    }
+    @Test
+    public void ownedKeysAreLoadedOnceAndMissingOnesCompleteWithNull() {
+        CompletableFuture<Map<String, String>> batch = new CompletableFuture<>();
+        Map<String, CompletableFuture<String>> results = requests.runAll(Arrays.asList("a", "b", "a", "c"), keys -> {
+            batches.add(keys);
+            return batch;
+        });
+        // A second caller for the same keys joins instead of loading again
+        Map<String, CompletableFuture<String>> joined = requests.runAll(Arrays.asList("c", "a"), keys -> {
+            batches.add(keys);
+            return CompletableFuture.completedFuture(new HashMap<>());
+        });
+        assertEquals(Collections.singletonList(Arrays.asList("a", "b", "c")), batches);
+        assertEquals(3, requests.getStartedCount());
+        assertEquals(2, requests.getCoalescedCount());
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "A");
+        values.put("c", "C");
+        batch.complete(values);
+        assertEquals("A", results.get("a").join());
+        assertNull(results.get("b").join());
+        assertEquals("C", joined.get("c").join());
+        assertEquals("A", joined.get("a").join());
+        assertEquals(0, requests.getInFlightCount());
+    }
+    @Test
+    public void cancellingAReturnedFutureLeavesTheSharedLoadRunning() {
+        CompletableFuture<Map<String, String>> batch = new CompletableFuture<>();
+        Map<String, CompletableFuture<String>> owner = requests.runAll(Collections.singletonList("a"), keys -> batch);
+        CompletableFuture<String> joiner = requests.run("a", () -> {
+            fail("joiner must not start its own load");
+            return null;
+        });
+        owner.get("a").cancel(false);
+        assertFalse(batch.isDone());
+        batch.complete(Collections.singletonMap("a", "A"));
+        assertEquals("A", joiner.join());
+    }
+    @Test
+    public void cancellingTheOwnersTokenFailsJoinedCallers() {
+        CancellationToken token = new CancellationToken();
+        Map<String, CompletableFuture<String>> owner = requests.runAll(Collections.singletonList("a"),
+                keys -> token.bind(new CompletableFuture<>()));
+        CompletableFuture<String> joiner = requests.run("a", CompletableFuture::new);
+        token.cancel();
+        assertTrue(owner.get("a").isCompletedExceptionally());
+        try {
+            joiner.join();
+            fail("joiner should fail with the owner's cancellation");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+        assertEquals(0, requests.getInFlightCount());
+    }
+}
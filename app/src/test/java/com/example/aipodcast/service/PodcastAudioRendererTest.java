@@ -0,0 +1,68 @@
+package com.example.aipodcast.service;
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+public class PodcastAudioRendererTest {
+    @Test
+    public void firstPartIsShortAndLaterPartsUseTheFullLimit() {
+        String text = sentences(200);
+        List<String> chunks = PodcastAudioRenderer.splitIntoChunks(Collections.singletonList(text));
+        assertTrue(chunks.size() > 2);
+        assertTrue(chunks.get(0).length() <= PodcastAudioRenderer.FIRST_PART_CHARS);
+        assertTrue(chunks.get(1).length() > PodcastAudioRenderer.FIRST_PART_CHARS);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= PodcastAudioRenderer.MAX_PART_CHARS);
+            assertTrue(chunk, chunk.endsWith("."));
+        }
+        assertEquals(text, String.join(" ", chunks));
+    }
+    @Test
+    public void onlyTheFirstSegmentGetsTheShortLimit() {
+        List<String> chunks = PodcastAudioRenderer.splitIntoChunks(Arrays.asList("", "§HOST§ " + sentences(20),
+                sentences(20)));
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.get(0).length() <= PodcastAudioRenderer.FIRST_PART_CHARS);
+        assertFalse(chunks.get(0).contains("§HOST§"));
+        // The second segment fits in one part, since the short limit was already used
+        assertEquals(sentences(20), chunks.get(2));
+    }
+    @Test
+    public void sentenceLongerThanAPartIsCutAtWords() {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sentence.append("word").append(i).append(' ');
+        }
+        String text = sentence.toString().trim() + ".";
+        List<String> chunks = PodcastAudioRenderer.splitAtSentences(text, PodcastAudioRenderer.FIRST_PART_CHARS);
+        assertTrue(chunks.get(0).length() <= PodcastAudioRenderer.FIRST_PART_CHARS);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= PodcastAudioRenderer.MAX_PART_CHARS);
+            assertTrue(chunk, chunk.startsWith("word"));
+        }
+        assertEquals(text, String.join(" ", chunks));
+    }
+    @Test
+    public void runAheadWindowIsClippedToTheScript() {
+        int ahead = PodcastAudioRenderer.RUN_AHEAD_PARTS;
+        assertEquals(ahead, PodcastAudioRenderer.lastPartToRender(0, 20));
+        assertEquals(10 + ahead, PodcastAudioRenderer.lastPartToRender(10, 20));
+        assertEquals(19, PodcastAudioRenderer.lastPartToRender(18, 20));
+        assertEquals(19, PodcastAudioRenderer.lastPartToRender(19, 20));
+        assertEquals(0, PodcastAudioRenderer.lastPartToRender(0, 1));
+    }
+    // Numbered sentences of about 40 characters each
+    private static String sentences(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append("This is sentence number ").append(i).append(" of the script.");
+        }
+        return text.toString();
+    }
+}
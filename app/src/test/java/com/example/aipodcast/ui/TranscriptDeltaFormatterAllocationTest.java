@@ -0,0 +1,99 @@
+package com.example.aipodcast.ui;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.example.aipodcast.util.SseDeltaDecoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import static org.junit.Assert.assertTrue;
+/**
+ * Measures bytes allocated per streamed token by the append-only formatter against the
+ * full rebuild it replaced, which re-read and re-formatted the whole transcript per token.
+ */
+public class TranscriptDeltaFormatterAllocationTest {
+    private static final String FIXTURE = "/fixtures/completion_stream_2000.sse.gz";
+    private static final int WARMUP_ROUNDS = 20;
+    private static final String LABEL = "<span style='color:#6200EE; font-weight:bold; display:block; "
+            + "margin-top:16dp'>HOST: </span>";
+    private static List<String> deltas;
+    private static long sink;
+    @BeforeClass
+    public static void loadDeltas() throws IOException {
+        deltas = new ArrayList<>();
+        try (InputStream in = TranscriptDeltaFormatterAllocationTest.class.getResourceAsStream(FIXTURE);
+             BufferedSource source = Okio.buffer(Okio.source(new GZIPInputStream(in)))) {
+            SseDeltaDecoder decoder = new SseDeltaDecoder(new Buffer().write(source.readByteArray()));
+            String delta;
+            while ((delta = decoder.nextDelta()) != null) {
+                deltas.add(delta);
+            }
+        }
+    }
+    @Test
+    public void appendOnlyFormattingAllocatesFarLessPerToken() {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            formatIncrementally();
+            rebuildPerToken();
+        }
+        long threadId = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(threadId);
+        formatIncrementally();
+        long incremental = threads.getThreadAllocatedBytes(threadId) - start;
+        start = threads.getThreadAllocatedBytes(threadId);
+        rebuildPerToken();
+        long rebuild = threads.getThreadAllocatedBytes(threadId) - start;
+        long incrementalPerToken = incremental / deltas.size();
+        long rebuildPerToken = rebuild / deltas.size();
+        System.out.println("Allocated per token over " + deltas.size() + " deltas: append-only "
+                + incrementalPerToken + " B, full rebuild " + rebuildPerToken + " B");
+        assertTrue("append-only allocated " + incrementalPerToken + " B per token", incrementalPerToken < 1024);
+        assertTrue("append-only " + incrementalPerToken + " B vs rebuild " + rebuildPerToken + " B per token",
+                incrementalPerToken * 20 < rebuildPerToken);
+    }
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+    private static void formatIncrementally() {
+        TranscriptDeltaFormatter formatter = new TranscriptDeltaFormatter();
+        TranscriptDeltaFormatter.Sink counter = new TranscriptDeltaFormatter.Sink() {
+            @Override
+            public void text(CharSequence text, int start, int end) {
+                sink += end - start;
+            }
+            @Override
+            public void label(boolean newParagraph) {
+                sink++;
+            }
+        };
+        for (String delta : deltas) {
+            formatter.append(delta, counter);
+        }
+        formatter.flush(counter);
+    }
+    // The path the formatter replaced, minus Html.fromHtml: snapshot and re-format per token
+    private static void rebuildPerToken() {
+        StringBuilder transcript = new StringBuilder();
+        for (String delta : deltas) {
+            transcript.append(delta);
+            String formatted = transcript.toString()
+                    .replace("§HOST§", LABEL)
+                    .replace("§ALEX§", LABEL)
+                    .replace("§JORDAN§", LABEL)
+                    .replace("\n\n", "<br><br>")
+                    .replace("\n", "<br>");
+            sink += formatted.length();
+        }
+    }
+}
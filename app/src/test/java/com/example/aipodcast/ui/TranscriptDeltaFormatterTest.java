@@ -0,0 +1,85 @@
+package com.example.aipodcast.ui;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+public class TranscriptDeltaFormatterTest {
+    private TranscriptDeltaFormatter formatter;
+    private StringBuilder output;
+    private TranscriptDeltaFormatter.Sink sink;
+    @Before
+    public void setUp() {
+        formatter = new TranscriptDeltaFormatter();
+        output = new StringBuilder();
+        sink = new TranscriptDeltaFormatter.Sink() {
+            @Override
+            public void text(CharSequence text, int start, int end) {
+                output.append(text, start, end);
+            }
+            @Override
+            public void label(boolean newParagraph) {
+                output.append(newParagraph ? "\n\n[HOST]" : "[HOST]");
+            }
+        };
+    }
+    @Test
+    public void plainDeltasPassThrough() {
+        formatter.append("Hello", sink);
+        formatter.append(", world.", sink);
+        formatter.append("", sink);
+        formatter.append(null, sink);
+        assertEquals("Hello, world.", output.toString());
+    }
+    @Test
+    public void markerBecomesLabelWithParagraphBreakAfterFirstTurn() {
+        formatter.append("§ALEX§Welcome back. §JORDAN§Thanks!", sink);
+        assertEquals("[HOST]Welcome back. \n\n[HOST]Thanks!", output.toString());
+    }
+    @Test
+    public void markerSplitAcrossDeltasIsHeldUntilItCloses() {
+        formatter.append("Intro. §JO", sink);
+        assertEquals("Intro. ", output.toString());
+        formatter.append("RD", sink);
+        assertEquals("Intro. ", output.toString());
+        formatter.append("AN§ Next line", sink);
+        assertEquals("Intro. \n\n[HOST] Next line", output.toString());
+    }
+    @Test
+    public void strayMarkerInProseIsKeptAsText() {
+        String prose = "Price rose 5§ after the announcement, analysts said on Tuesday § again";
+        formatter.append(prose, sink);
+        formatter.flush(sink);
+        assertEquals(prose, output.toString());
+    }
+    @Test
+    public void unterminatedMarkerIsEmittedOnFlush() {
+        formatter.append("The end §HO", sink);
+        assertEquals("The end ", output.toString());
+        formatter.flush(sink);
+        assertEquals("The end §HO", output.toString());
+        formatter.flush(sink);
+        assertEquals("The end §HO", output.toString());
+    }
+    @Test
+    public void resetStartsANewTranscript() {
+        formatter.append("Old text §HO", sink);
+        formatter.reset();
+        output.setLength(0);
+        formatter.append("§HOST§New", sink);
+        assertEquals("[HOST]New", output.toString());
+    }
+    @Test
+    public void characterByCharacterStreamMatchesWholeText() {
+        String transcript = "§ALEX§Today: markets, § symbols and more. §JORDAN§Right. "
+                + "A long aside that mentions a section sign § and never closes it properly at all. §ALEX§Bye.";
+        formatter.append(transcript, sink);
+        formatter.flush(sink);
+        String whole = output.toString();
+        TranscriptDeltaFormatter streamed = new TranscriptDeltaFormatter();
+        output.setLength(0);
+        for (int i = 0; i < transcript.length(); i++) {
+            streamed.append(transcript.substring(i, i + 1), sink);
+        }
+        streamed.flush(sink);
+        assertEquals(whole, output.toString());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.aipodcast.util;
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+public class ArticleTextNormalizerTest {
+    @Test
+    public void blocksRepeatingTheFieldTextAreDropped() {
+        ArticleTextNormalizer.Result result = ArticleTextNormalizer.normalize(
+                "The vote passed. Turnout was high.",
+                Arrays.asList("The vote  passed.", "turnout was HIGH! Counting ends tonight."));
+        assertEquals("The vote passed. Turnout was high.\n\nCounting ends tonight.", result.text);
+        assertEquals(2, result.duplicateSentences);
+        assertEquals(2, result.paragraphs.size());
+    }
+    @Test
+    public void repeatsWithinOneSourceAreKept() {
+        String body = "We shall not give up. The crowd chanted for hours.\n\nWe shall not give up. It was late.";
+        ArticleTextNormalizer.Result result = ArticleTextNormalizer.normalize(body, null);
+        assertEquals("We shall not give up. The crowd chanted for hours.\n\nWe shall not give up. It was late.",
+                result.text);
+        assertEquals(0, result.duplicateSentences);
+    }
+    @Test
+    public void repeatsAcrossBlocksAreKept() {
+        ArticleTextNormalizer.Result result = ArticleTextNormalizer.normalize(null,
+                Arrays.asList("Stay tuned. First update.", "Stay tuned. Second update."));
+        assertEquals("Stay tuned. First update.\n\nStay tuned. Second update.", result.text);
+        assertEquals(0, result.duplicateSentences);
+    }
+    @Test
+    public void captionsAndPromosAreStripped() {
+        String body = "Rescuers reached the village. Photograph: Jane Doe/Reuters\n\n"
+                + "Sign up to First Edition, our free daily newsletter\n\n"
+                + "By Jane Doe and John Smith\n\n"
+                + "Roads remain closed.";
+        ArticleTextNormalizer.Result result = ArticleTextNormalizer.normalize(body, Collections.emptyList());
+        assertEquals("Rescuers reached the village.\n\nRoads remain closed.", result.text);
+        assertEquals(3, result.boilerplateSentences);
+    }
+    @Test
+    public void sentencesMentioningCreditWordsMidwayAreKept() {
+        String body = "The minister posted a video: it showed the flooded bridge.\n\n"
+                + "Her favourite photo: a sunset over the harbour.";
+        ArticleTextNormalizer.Result result = ArticleTextNormalizer.normalize(body, null);
+        assertTrue(result.text.contains("posted a video: it showed the flooded bridge."));
+        assertTrue(result.text.contains("Her favourite photo: a sunset over the harbour."));
+        assertEquals(0, result.boilerplateSentences);
+    }
+}
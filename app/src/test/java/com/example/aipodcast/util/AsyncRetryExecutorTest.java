@@ -0,0 +1,236 @@
+package com.example.aipodcast.util;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+public class AsyncRetryExecutorTest {
+    private MockWebServer server;
+    private OkHttpClient client;
+    private AsyncRetryExecutor executor;
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+        executor = new AsyncRetryExecutor(AppScheduler.getInstance());
+    }
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+    @Test
+    public void parseDurationReadsRateLimitResetFormats() {
+        assertEquals(20, AsyncRetryExecutor.parseDuration("20ms"));
+        assertEquals(1500, AsyncRetryExecutor.parseDuration("1.5s"));
+        assertEquals(360000, AsyncRetryExecutor.parseDuration("6m0s"));
+        assertEquals(3723000, AsyncRetryExecutor.parseDuration("1h2m3s"));
+        assertEquals(1, AsyncRetryExecutor.parseDuration("0.2ms"));
+    }
+    @Test
+    public void parseDurationRejectsMalformedValues() {
+        assertEquals(-1, AsyncRetryExecutor.parseDuration(null));
+        assertEquals(-1, AsyncRetryExecutor.parseDuration(""));
+        assertEquals(-1, AsyncRetryExecutor.parseDuration("5"));
+        assertEquals(-1, AsyncRetryExecutor.parseDuration("s"));
+        assertEquals(-1, AsyncRetryExecutor.parseDuration("5d"));
+        assertEquals(-1, AsyncRetryExecutor.parseDuration("1..5s"));
+    }
+    @Test
+    public void serverDelayPrefersRetryAfterMs() {
+        assertEquals(250, AsyncRetryExecutor.serverDelayMs(response("retry-after-ms", "250", "Retry-After", "9")));
+        assertEquals(2000, AsyncRetryExecutor.serverDelayMs(response("Retry-After", "2")));
+        assertEquals(1500, AsyncRetryExecutor.serverDelayMs(response("Retry-After", " 1.5 ")));
+    }
+    @Test
+    public void serverDelayReadsRetryAfterDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        long delay = AsyncRetryExecutor.serverDelayMs(response("Retry-After", date));
+        assertTrue("delay was " + delay, delay > 25000 && delay <= 30000);
+    }
+    @Test
+    public void serverDelayUsesResetOnlyForExhaustedLimits() {
+        assertEquals(-1, AsyncRetryExecutor.serverDelayMs(response()));
+        assertEquals(-1, AsyncRetryExecutor.serverDelayMs(response(
+                "x-ratelimit-remaining-requests", "4", "x-ratelimit-reset-requests", "3s")));
+        assertEquals(3000, AsyncRetryExecutor.serverDelayMs(response(
+                "x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "3s")));
+        assertEquals(6000, AsyncRetryExecutor.serverDelayMs(response(
+                "x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "3s",
+                "x-ratelimit-remaining-tokens", "0", "x-ratelimit-reset-tokens", "6s")));
+    }
+    @Test
+    public void statusCodesRetryOnlyWhenSafe() {
+        assertTrue(AsyncRetryExecutor.isRetryable(429, false));
+        assertTrue(AsyncRetryExecutor.isRetryable(503, false));
+        assertFalse(AsyncRetryExecutor.isRetryable(500, false));
+        assertFalse(AsyncRetryExecutor.isRetryable(504, false));
+        assertTrue(AsyncRetryExecutor.isRetryable(500, true));
+        assertTrue(AsyncRetryExecutor.isRetryable(502, true));
+        assertTrue(AsyncRetryExecutor.isRetryable(408, true));
+        assertFalse(AsyncRetryExecutor.isRetryable(400, true));
+        assertFalse(AsyncRetryExecutor.isRetryable(401, true));
+    }
+    @Test
+    public void ioFailuresRetryOnlyWhenSafe() {
+        assertTrue(AsyncRetryExecutor.isRetryable(new ConnectException("refused"), false));
+        assertTrue(AsyncRetryExecutor.isRetryable(new UnknownHostException("api.openai.com"), false));
+        assertFalse(AsyncRetryExecutor.isRetryable(new SocketTimeoutException("timeout"), false));
+        assertTrue(AsyncRetryExecutor.isRetryable(new SocketTimeoutException("timeout"), true));
+        assertFalse(AsyncRetryExecutor.isRetryable(new IOException("Canceled"), true));
+    }
+    @Test
+    public void retriesAfterTheDelayTheServerAskedFor() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("done"));
+        long startedAt = System.nanoTime();
+        assertEquals("done", await(executor.execute(client, request(), false)));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        assertTrue("retried after " + elapsedMs + "ms", elapsedMs >= 1000);
+        assertEquals(2, server.getRequestCount());
+    }
+    @Test
+    public void serverErrorIsRetriedOnlyForIdempotentRequests() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+        assertFailure(executor.execute(client, request(), false), "500");
+        assertEquals(1, server.getRequestCount());
+        server.enqueue(new MockResponse().setResponseCode(500).setHeader("retry-after-ms", "0"));
+        server.enqueue(new MockResponse().setBody("done"));
+        assertEquals("done", await(executor.execute(client, request(), true)));
+        assertEquals(3, server.getRequestCount());
+    }
+    @Test
+    public void clientErrorIsNotRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+        assertFailure(executor.execute(client, request(), true), "400 - bad request");
+        assertEquals(1, server.getRequestCount());
+    }
+    @Test
+    public void givesUpAfterMaxAttempts() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503).setHeader("retry-after-ms", "0"));
+        }
+        assertFailure(executor.execute(client, request(), true), "Failed after 3 attempts");
+        assertEquals(3, server.getRequestCount());
+    }
+    @Test
+    public void serverDelayAboveCapFailsWithoutWaiting() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "120"));
+        assertFailure(executor.execute(client, request(), true), "Server asked to retry in 120000ms");
+        assertEquals(1, server.getRequestCount());
+    }
+    @Test
+    public void retryBudgetIsSharedAcrossRequests() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(429).setHeader("retry-after-ms", "0");
+            }
+        });
+        // Five calls of three attempts each spend the budget of ten retries
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(executor.execute(client, request(), true));
+        }
+        for (CompletableFuture<String> call : calls) {
+            assertFailure(call, "Failed after 3 attempts");
+        }
+        assertEquals(15, server.getRequestCount());
+        assertFailure(executor.execute(client, request(), true), "Retry budget exhausted");
+        assertEquals(16, server.getRequestCount());
+    }
+    @Test
+    public void cancellingTheBoundTokenStopsReadingTheBody() throws Exception {
+        int bodyBytes = 256 * 1024;
+        server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(new byte[bodyBytes]))
+                .throttleBody(8 * 1024, 100, TimeUnit.MILLISECONDS));
+        AtomicLong bytesRead = new AtomicLong();
+        OkHttpClient countingClient = client.newBuilder().addNetworkInterceptor(chain -> {
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            BufferedSource counted = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        bytesRead.addAndGet(read);
+                    }
+                    return read;
+                }
+            });
+            return response.newBuilder()
+                    .body(ResponseBody.create(counted, body.contentType(), body.contentLength()))
+                    .build();
+        }).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CancellationToken token = new CancellationToken();
+        // The same binding EnhancedOpenAIService uses for its non-streaming completions
+        CompletableFuture<String> call = token.bind(
+                executor.execute(countingClient, request(), true, started::countDown));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        token.cancel();
+        assertTrue(call.isCancelled());
+        Thread.sleep(200);
+        long readAtCancel = bytesRead.get();
+        Thread.sleep(1000);
+        assertEquals(readAtCancel, bytesRead.get());
+        assertTrue("read " + readAtCancel + " bytes", readAtCancel < bodyBytes);
+        assertEquals(0, countingClient.dispatcher().runningCallsCount());
+    }
+    private Request request() {
+        return new Request.Builder().url(server.url("/v1/chat/completions")).build();
+    }
+    private static Response response(String... headers) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://api.openai.com/v1/chat/completions").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests")
+                .headers(Headers.of(headers))
+                .build();
+    }
+    private static String await(CompletableFuture<String> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+    private static void assertFailure(CompletableFuture<String> future, String messagePart) throws Exception {
+        try {
+            await(future);
+            fail("Expected the call to fail with " + messagePart);
+        } catch (ExecutionException e) {
+            String message = e.getCause().getMessage();
+            assertTrue(message, message.contains(messagePart));
+        }
+    }
+}
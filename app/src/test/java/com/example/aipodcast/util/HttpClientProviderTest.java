@@ -0,0 +1,119 @@
+package com.example.aipodcast.util;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import android.content.Context;
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+public class HttpClientProviderTest {
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+    private MockWebServer server;
+    private HttpClientProvider provider;
+    private OkHttpClient client;
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        Context context = mock(Context.class);
+        when(context.getApplicationContext()).thenReturn(context);
+        when(context.getCacheDir()).thenReturn(cacheDir.getRoot());
+        provider = new HttpClientProvider();
+        client = provider.getCachingClient(context);
+    }
+    @After
+    public void tearDown() throws IOException {
+        client.cache().close();
+        server.shutdown();
+    }
+    @Test
+    public void responseWithoutCacheHeadersIsRevalidatedWithEtag() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        assertEquals("first", get("/search?q=news"));
+        try (Response response = client.newCall(request("/search?q=news")).execute()) {
+            assertEquals("first", response.body().string());
+            assertEquals(304, response.networkResponse().code());
+            assertNotNull(response.cacheResponse());
+        }
+        server.takeRequest();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertTrue(provider.getStats(), provider.getStats().contains("1 revalidated"));
+    }
+    @Test
+    public void lastModifiedIsRevalidatedWithIfModifiedSince() throws IOException, InterruptedException {
+        String lastModified = "Wed, 01 May 2024 10:00:00 GMT";
+        server.enqueue(new MockResponse().setHeader("Last-Modified", lastModified).setBody("article"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        assertEquals("article", get("/content/a"));
+        assertEquals("article", get("/content/a"));
+        server.takeRequest();
+        assertEquals(lastModified, server.takeRequest().getHeader("If-Modified-Since"));
+    }
+    @Test
+    public void changedResourceReplacesTheStoredCopy() throws IOException {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("old"));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody("new"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        assertEquals("old", get("/search"));
+        assertEquals("new", get("/search"));
+        assertEquals("new", get("/search"));
+        assertEquals(3, server.getRequestCount());
+    }
+    @Test
+    public void serverCacheControlIsKept() throws IOException {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("fresh"));
+        assertEquals("fresh", get("/sections"));
+        assertEquals("fresh", get("/sections"));
+        assertEquals(1, server.getRequestCount());
+        assertTrue(provider.getStats(), provider.getStats().contains("1 hits"));
+    }
+    @Test
+    public void noStoreAndPostResponsesAreNotCached() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "no-store").setHeader("ETag", "\"x\"")
+                .setBody("private"));
+        server.enqueue(new MockResponse().setBody("private"));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"p\"").setBody("posted"));
+        server.enqueue(new MockResponse().setBody("posted"));
+        get("/account");
+        get("/account");
+        post("/v1/chat/completions");
+        post("/v1/chat/completions");
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(4, server.getRequestCount());
+    }
+    private String get(String path) throws IOException {
+        try (Response response = client.newCall(request(path)).execute()) {
+            return response.body().string();
+        }
+    }
+    private void post(String path) throws IOException {
+        Request request = new Request.Builder().url(server.url(path))
+                .post(RequestBody.create("{}", MediaType.get("application/json"))).build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+    private Request request(String path) {
+        return new Request.Builder().url(server.url(path)).build();
+    }
+}
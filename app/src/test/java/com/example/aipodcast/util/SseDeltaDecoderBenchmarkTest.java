@@ -0,0 +1,122 @@
+package com.example.aipodcast.util;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+/**
+ * Replays a recorded 2,000-chunk completion stream through SseDeltaDecoder and through
+ * the per-line split and Gson tree it replaced, and reports data lines per second.
+ */
+public class SseDeltaDecoderBenchmarkTest {
+    private static final String FIXTURE = "/fixtures/completion_stream_2000.sse.gz";
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int REPLAYS_PER_ROUND = 10;
+    private static final Gson gson = new Gson();
+    private static byte[] stream;
+    private static int dataLines;
+    @BeforeClass
+    public static void loadFixture() throws IOException {
+        try (InputStream in = SseDeltaDecoderBenchmarkTest.class.getResourceAsStream(FIXTURE);
+             BufferedSource source = Okio.buffer(Okio.source(new GZIPInputStream(in)))) {
+            stream = source.readByteArray();
+        }
+        String text = new String(stream, StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            if (line.startsWith("data: ")) {
+                dataLines++;
+            }
+        }
+        assertEquals(2001, dataLines);
+    }
+    @Test
+    public void decoderAndLineSplitPathAgree() throws IOException {
+        String decoded = decodeWithDecoder();
+        assertEquals(decodeWithLineSplit(), decoded);
+        assertTrue(decoded.contains("we’re"));
+        assertTrue(decoded.contains("\"surprising\""));
+        assertTrue(decoded.contains("\t"));
+        assertTrue(decoded.contains("🎙️"));
+    }
+    @Test
+    public void decoderIsNotSlowerThanLineSplitPath() throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decodeWithDecoder();
+            decodeWithLineSplit();
+        }
+        long decoderNanos = Long.MAX_VALUE;
+        long lineSplitNanos = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < REPLAYS_PER_ROUND; i++) {
+                decodeWithDecoder();
+            }
+            decoderNanos = Math.min(decoderNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < REPLAYS_PER_ROUND; i++) {
+                decodeWithLineSplit();
+            }
+            lineSplitNanos = Math.min(lineSplitNanos, System.nanoTime() - start);
+        }
+        long decoderRate = linesPerSecond(decoderNanos);
+        long lineSplitRate = linesPerSecond(lineSplitNanos);
+        System.out.println("SseDeltaDecoder: " + decoderRate + " lines/sec, line split + Gson tree: "
+                + lineSplitRate + " lines/sec");
+        // Generous margin so a noisy machine does not fail the build; a real regression still does
+        assertTrue("decoder " + decoderRate + " vs line split " + lineSplitRate + " lines/sec",
+                decoderNanos < lineSplitNanos * 2);
+    }
+    private static long linesPerSecond(long nanos) {
+        return (long) (dataLines * (double) REPLAYS_PER_ROUND * 1e9 / nanos);
+    }
+    private static String decodeWithDecoder() throws IOException {
+        StringBuilder text = new StringBuilder();
+        SseDeltaDecoder decoder = new SseDeltaDecoder(new Buffer().write(stream));
+        String delta;
+        while ((delta = decoder.nextDelta()) != null) {
+            text.append(delta);
+        }
+        return text.toString();
+    }
+    // The path the decoder replaced: readUtf8Line, strip "data: ", one JsonObject per line
+    private static String decodeWithLineSplit() throws IOException {
+        StringBuilder text = new StringBuilder();
+        BufferedSource source = new Buffer().write(stream);
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("data: ")) {
+                line = line.substring(6);
+            }
+            if (line.equals("[DONE]")) {
+                continue;
+            }
+            JsonObject chunk = gson.fromJson(line, JsonObject.class);
+            if (chunk.has("choices")) {
+                JsonArray choices = chunk.getAsJsonArray("choices");
+                if (choices.size() > 0) {
+                    JsonObject choice = choices.get(0).getAsJsonObject();
+                    if (choice.has("delta")) {
+                        JsonObject delta = choice.getAsJsonObject("delta");
+                        if (delta.has("content")) {
+                            text.append(delta.get("content").getAsString());
+                        }
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+}
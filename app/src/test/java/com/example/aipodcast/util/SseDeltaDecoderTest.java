@@ -0,0 +1,109 @@
+package com.example.aipodcast.util;
+import org.junit.Test;
+import java.io.IOException;
+import okio.Buffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+public class SseDeltaDecoderTest {
+    @Test
+    public void deltasArriveInOrderUntilDone() throws IOException {
+        SseDeltaDecoder decoder = decoder("data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}\n\n"
+                + chunk("Hel") + chunk("lo")
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n"
+                + "data: [DONE]\n\n"
+                + chunk("after done"));
+        assertEquals("Hel", decoder.nextDelta());
+        assertEquals("lo", decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+        assertTrue(decoder.isDone());
+        assertEquals(4, decoder.getChunkCount());
+    }
+    @Test
+    public void crlfCommentsEventsAndIdsAreIgnored() throws IOException {
+        SseDeltaDecoder decoder = decoder(": keep-alive\r\n"
+                + "event: message\r\nid: 7\r\n"
+                + "data:{\"choices\":[{\"delta\":{\"content\":\"one\"}}]}\r\n\r\n"
+                + "retry: 1000\r\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\" two\"}}]}\r\n\r\n"
+                + "data: [DONE]\r\n");
+        assertEquals("one", decoder.nextDelta());
+        assertEquals(" two", decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+        assertTrue(decoder.isDone());
+    }
+    @Test
+    public void escapesAndMultibyteTextAreDecoded() throws IOException {
+        SseDeltaDecoder decoder = decoder(chunk("Café \\\"quoted\\\"\\n\\u2013 🎙 über"));
+        assertEquals("Café \"quoted\"\n– 🎙 über", decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+    }
+    @Test
+    public void malformedChunkIsSkipped() throws IOException {
+        SseDeltaDecoder decoder = decoder(chunk("a")
+                + "data: {not json\n\n"
+                + "data: [1, 2\n\n"
+                + chunk("b")
+                + "data: [DONE]\n");
+        assertEquals("a", decoder.nextDelta());
+        assertEquals("b", decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+        assertTrue(decoder.isDone());
+    }
+    @Test
+    public void streamEndingWithoutDoneIsNotDone() throws IOException {
+        SseDeltaDecoder decoder = decoder(chunk("first")
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"last\"}}]}");
+        assertEquals("first", decoder.nextDelta());
+        assertEquals("last", decoder.nextDelta());
+        assertNull(decoder.nextDelta());
+        assertFalse(decoder.isDone());
+    }
+    @Test
+    public void longDeltaGrowsTheLineBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("word").append(i).append(' ');
+        }
+        SseDeltaDecoder decoder = decoder(chunk(text.toString()) + chunk("next"));
+        assertEquals(text.toString(), decoder.nextDelta());
+        assertEquals("next", decoder.nextDelta());
+    }
+    @Test
+    public void recordingKeepsOnlyDataLines() throws IOException {
+        StringBuilder recording = new StringBuilder();
+        SseDeltaDecoder decoder = new SseDeltaDecoder(new Buffer().writeUtf8(": ping\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"x\"}}]}\r\n\r\n"
+                + "event: done\ndata: [DONE]\n"), recording);
+        while (decoder.nextDelta() != null) {
+            // drain
+        }
+        assertEquals("data: {\"choices\":[{\"delta\":{\"content\":\"x\"}}]}\ndata: [DONE]\n", recording.toString());
+        SseDeltaDecoder replay = decoder(recording.toString());
+        assertEquals("x", replay.nextDelta());
+        assertNull(replay.nextDelta());
+        assertTrue(replay.isDone());
+    }
+    @Test
+    public void messageContentIsReadFromCompletions() throws IOException {
+        assertEquals("Hello\nthere", SseDeltaDecoder.readMessageContent("{\"id\":\"c\",\"object\":\"chat.completion\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"Hello\\nthere\"},"
+                + "\"finish_reason\":\"stop\"},{\"message\":{\"content\":\"second\"}}],"
+                + "\"usage\":{\"total_tokens\":12}}"));
+        assertNull(SseDeltaDecoder.readMessageContent("{\"choices\":[]}"));
+        assertNull(SseDeltaDecoder.readMessageContent("{\"choices\":[{\"message\":{\"content\":null}}]}"));
+        assertNull(SseDeltaDecoder.readMessageContent("{\"error\":{\"message\":\"quota\"}}"));
+    }
+    @Test(expected = IOException.class)
+    public void unexpectedCompletionShapeFails() throws IOException {
+        SseDeltaDecoder.readMessageContent("[\"not\", \"an object\"]");
+    }
+    private static SseDeltaDecoder decoder(String stream) {
+        return new SseDeltaDecoder(new Buffer().writeUtf8(stream));
+    }
+    private static String chunk(String escapedContent) {
+        return "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + escapedContent + "\"}}]}\n\n";
+    }
+}